@@ -0,0 +1,274 @@
+package org.exercise.inventorymanager.benchmarks;
+
+import org.exercise.inventorymanager.InventoryManagerApplication;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.repositories.InventoryRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Load test of the HTTP API: the whole application on a random port, against the embedded MongoDB
+// used by the tests, driven by concurrent clients. Every mix is a JMH group, the threads of a
+// group run at the same time, so the reads are measured while the writes go on. Throughput is in
+// operations per millisecond, SampleTime reports the latency percentiles (p0.50 ... p0.999).
+// An unexpected status (5xx, or 4xx where none is possible) fails the run.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class HttpLoadBenchmark {
+
+    // allowed in src/test/resources/application.yaml
+    private static final String[][] ITEMS = {
+            {"cat1", "subcat1"}, {"cat1", "subcat2"}, {"cat2", "subcat3"}, {"cat2", "subcat4"}};
+
+    // inventories shared by the read-heavy mix
+    private static final int INVENTORIES = 100;
+    // inventories created and deleted over and over by the delete storm
+    private static final int STORM_INVENTORIES = 10;
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    // spring.threads.virtual.enabled: one virtual thread per request instead of the Tomcat pool
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    // server.tomcat.threads.max, only used without virtual threads. Below the threads of a mix (10 for most),
+    // requests wait for a Tomcat thread, like a burst larger than the pool would
+    @Param({"200"})
+    public int maxThreads;
+
+    // "memory" runs against the embedded storage, when no MongoDB can be started
+    @Param({"default"})
+    public String profile;
+
+    // items of the inventory listed by the large-inventory benchmarks
+    @Param({"10000"})
+    public int largeItems;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(InventoryManagerApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles(profile)
+                .properties("server.port=0", "app.cache.enabled=" + cacheEnabled,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.threads.max=" + maxThreads)
+                .run();
+
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        InventoryRepository inventoryRepository = context.getBean(InventoryRepository.class);
+
+        List<QuantityUpdate> items = new ArrayList<>();
+        for (int i = 0; i < INVENTORIES; i++)
+            for (String[] item : ITEMS)
+                items.add(new QuantityUpdate(inventory(i), item[0], item[1], i));
+
+        // straight to the repository: the catalog only allows a handful of items
+        for (int i = 0; i < largeItems; i++)
+            items.add(new QuantityUpdate(large(), "category" + (i % 100), "subcategory" + i, i));
+
+        inventoryRepository.bulkUpdateQuantity(items);
+    }
+
+    @TearDown
+    public void tearDown() {
+        InventoryRepository inventoryRepository = context.getBean(InventoryRepository.class);
+
+        for (int i = 0; i < INVENTORIES; i++)
+            inventoryRepository.deleteByName(inventory(i));
+        for (int i = 0; i < STORM_INVENTORIES; i++)
+            inventoryRepository.deleteByName("storm-" + i);
+        inventoryRepository.deleteByName("hot");
+        inventoryRepository.deleteByName(large());
+
+        context.close();
+    }
+
+    // read-heavy: 9 readers for 1 writer, spread over many inventories
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(6)
+    public int readHeavy_getItem() {
+        String[] item = randomItem();
+        return send(get("/inventory/" + randomInventory() + "/" + item[0] + "/" + item[1]), 200);
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(3)
+    public int readHeavy_getInventory() {
+        return send(get("/inventory/" + randomInventory()), 200);
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(1)
+    public int readHeavy_update() {
+        String[] item = randomItem();
+        return send(post("/inventory/" + randomInventory() + "/" + item[0] + "/" + item[1] + "/"
+                + ThreadLocalRandom.current().nextInt(1000)), 200);
+    }
+
+    // write-heavy on hot keys: every writer hits the same four items
+
+    @Benchmark
+    @Group("hotKeys")
+    @GroupThreads(4)
+    public int hotKeys_update() {
+        String[] item = randomItem();
+        return send(post("/inventory/hot/" + item[0] + "/" + item[1] + "/"
+                + ThreadLocalRandom.current().nextInt(1000)), 200);
+    }
+
+    @Benchmark
+    @Group("hotKeys")
+    @GroupThreads(4)
+    public int hotKeys_adjust() {
+        String[] item = randomItem();
+        // the item may not exist yet, before the first update
+        return send(patch("/inventory/hot/" + item[0] + "/" + item[1] + "?delta=1"), 200, 404);
+    }
+
+    @Benchmark
+    @Group("hotKeys")
+    @GroupThreads(2)
+    public int hotKeys_getItem() {
+        String[] item = randomItem();
+        return send(get("/inventory/hot/" + item[0] + "/" + item[1]), 200, 404);
+    }
+
+    // large inventory, listed whole, streamed and by pages
+
+    @Benchmark
+    @Threads(4)
+    public int largeListing_json() {
+        return send(get("/inventory/" + large()), 200);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int largeListing_jsonGzip() {
+        return send(get("/inventory/" + large()).header("Accept-Encoding", "gzip"), 200);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int largeListing_stream() {
+        return send(get("/inventory/" + large() + "?stream=true"), 200);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int largeListing_firstPage() {
+        return send(get("/inventory/" + large() + "?limit=100"), 200);
+    }
+
+    // delete storm: items and whole inventories deleted while they are written again
+
+    @Benchmark
+    @Group("deleteStorm")
+    @GroupThreads(4)
+    public int deleteStorm_create() {
+        String[] item = randomItem();
+        return send(post("/inventory/" + randomStormInventory() + "/" + item[0] + "/" + item[1] + "/1"), 200);
+    }
+
+    @Benchmark
+    @Group("deleteStorm")
+    @GroupThreads(4)
+    public int deleteStorm_deleteItem() {
+        String[] item = randomItem();
+        return send(delete("/inventory/" + randomStormInventory() + "/" + item[0] + "/" + item[1]), 200, 404);
+    }
+
+    @Benchmark
+    @Group("deleteStorm")
+    @GroupThreads(2)
+    public int deleteStorm_deleteInventory() {
+        return send(delete("/inventory/" + randomStormInventory()), 200, 404);
+    }
+
+    private int send(HttpRequest.Builder request, int... expected) {
+        HttpResponse<byte[]> response;
+
+        try {
+            // read the whole body, as a client would
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+
+        for (int status : expected)
+            if (response.statusCode() == status)
+                return response.body().length;
+
+        throw new IllegalStateException("Unexpected status " + response.statusCode() + " for "
+                + response.request().method() + " " + response.request().uri());
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+    }
+
+    private HttpRequest.Builder post(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).POST(HttpRequest.BodyPublishers.noBody());
+    }
+
+    private HttpRequest.Builder patch(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).method("PATCH", HttpRequest.BodyPublishers.noBody());
+    }
+
+    private HttpRequest.Builder delete(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).DELETE();
+    }
+
+    private static String[] randomItem() {
+        return ITEMS[ThreadLocalRandom.current().nextInt(ITEMS.length)];
+    }
+
+    private static String randomInventory() {
+        return inventory(ThreadLocalRandom.current().nextInt(INVENTORIES));
+    }
+
+    private static String randomStormInventory() {
+        return "storm-" + ThreadLocalRandom.current().nextInt(STORM_INVENTORIES);
+    }
+
+    private static String inventory(int i) {
+        return "load-" + i;
+    }
+
+    private String large() {
+        return "large-" + largeItems;
+    }
+
+}
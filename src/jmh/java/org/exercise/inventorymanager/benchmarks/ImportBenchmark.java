@@ -0,0 +1,102 @@
+package org.exercise.inventorymanager.benchmarks;
+
+import org.exercise.inventorymanager.InventoryManagerApplication;
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.dto.ImportResult;
+import org.exercise.inventorymanager.dto.TransferFormat;
+import org.exercise.inventorymanager.repositories.InventoryRepository;
+import org.exercise.inventorymanager.services.InventoryTransferService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// rows imported per second, parsing, validation and bulk upserts included. The rows go over the items of the
+// catalog, an item appears many times when there are more rows than allowed items
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@OperationsPerInvocation(ImportBenchmark.ROWS)
+public class ImportBenchmark {
+
+    static final int ROWS = 100_000;
+
+    // default: MongoDB (the embedded one of the tests), memory: the embedded storage
+    @Param({"default", "memory"})
+    public String profile;
+
+    @Param({"csv", "ndjson"})
+    public String format;
+
+    // with the memory profile, each chunk waits for the write-ahead log to be forced to disk
+    @Param({"false"})
+    public boolean fsync;
+
+    private ConfigurableApplicationContext context;
+    private InventoryTransferService inventoryTransferService;
+    private InventoryRepository inventoryRepository;
+    private TransferFormat transferFormat;
+    private byte[] file;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(InventoryManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles(profile)
+                // as arguments, default properties would not override application.yaml
+                .run("--app.memory.directory=" + Files.createTempDirectory("inventories"),
+                        "--app.memory.fsync=" + fsync);
+
+        inventoryTransferService = context.getBean(InventoryTransferService.class);
+        inventoryRepository = context.getBean(InventoryRepository.class);
+        transferFormat = TransferFormat.parse(format);
+
+        List<String[]> items = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> category : context.getBean(AppConfig.class).getAllowedItems().entrySet())
+            for (String subcategory : category.getValue())
+                items.add(new String[]{category.getKey(), subcategory});
+
+        StringBuilder content = new StringBuilder(transferFormat == TransferFormat.CSV
+                ? "category,subcategory,quantity\n"
+                : "");
+
+        for (int i = 0; i < ROWS; i++) {
+            String[] item = items.get(i % items.size());
+
+            if (transferFormat == TransferFormat.CSV)
+                content.append(item[0]).append(',').append(item[1]).append(',').append(i).append('\n');
+            else
+                content.append("{\"category\":\"").append(item[0])
+                        .append("\",\"subcategory\":\"").append(item[1])
+                        .append("\",\"quantity\":").append(i).append("}\n");
+        }
+
+        file = content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        inventoryRepository.deleteByName("benchmark-import");
+        context.close();
+    }
+
+    @Benchmark
+    public ImportResult importItems() throws IOException {
+        return inventoryTransferService.importItems("benchmark-import", transferFormat,
+                new ByteArrayInputStream(file));
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.exercise.inventorymanager.benchmarks;
+
+import org.bson.types.ObjectId;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.storage.ItemTable;
+import org.exercise.inventorymanager.storage.StringTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+// the entities of 10M items take about 3 GB
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class MemoryFootprintBenchmark {
+
+    private static final int ITEMS_PER_INVENTORY = 1000;
+
+    @Param({"10000000"})
+    public int items;
+
+    // entities: what the cache held before, the decoded documents. table: ItemTable, see InventoryCache
+    @Param({"entities", "table"})
+    public String layout;
+
+    private List<List<InventoryEntity>> entities;
+    private List<ItemTable> tables;
+
+    @Setup
+    public void setUp() {
+        long before = usedHeap();
+
+        if (layout.equals("entities"))
+            entities = new ArrayList<>();
+        else
+            tables = new ArrayList<>();
+
+        // one dictionary for all the tables, like in InventoryCache
+        StringTable strings = new StringTable();
+
+        for (int first = 0; first < items; first += ITEMS_PER_INVENTORY) {
+            List<InventoryEntity> inventory = new ArrayList<>(ITEMS_PER_INVENTORY);
+
+            for (int i = first; i < Math.min(items, first + ITEMS_PER_INVENTORY); i++)
+                inventory.add(decoded(i));
+
+            if (entities != null)
+                entities.add(inventory);
+            else
+                tables.add(ItemTable.of(strings, inventory));
+        }
+
+        long retained = usedHeap() - before;
+
+        // a footprint is not a time, it is printed once with the results of the fork
+        System.out.printf("%n%s, %d items: %d MB retained, %d bytes per item%n",
+                layout, items, retained >> 20, retained / items);
+    }
+
+    // the read path of a cached inventory: whole inventories, as entities
+    @Benchmark
+    public long readAll() {
+        long quantity = 0;
+
+        if (entities != null) {
+            for (List<InventoryEntity> inventory : entities)
+                for (InventoryEntity item : inventory)
+                    quantity += item.getQuantity();
+        } else {
+            for (int i = 0; i < tables.size(); i++)
+                for (InventoryEntity item : tables.get(i).list("inventory" + i, null))
+                    quantity += item.getQuantity();
+        }
+
+        return quantity;
+    }
+
+    private static InventoryEntity decoded(int i) {
+        // new strings for every document, like the MongoDB driver decodes them
+        return InventoryEntity.builder()
+                .id(new ObjectId().toHexString())
+                .name("inventory" + i / ITEMS_PER_INVENTORY)
+                .category("category" + i % 100)
+                .subcategory("subcategory" + i % ITEMS_PER_INVENTORY)
+                .quantity(i % 10000)
+                .version(1L)
+                .build();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++)
+            System.gc();
+
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+}
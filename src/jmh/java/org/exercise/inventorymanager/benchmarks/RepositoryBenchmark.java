@@ -0,0 +1,80 @@
+package org.exercise.inventorymanager.benchmarks;
+
+import org.exercise.inventorymanager.InventoryManagerApplication;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.repositories.InventoryRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// read and upsert paths, against the embedded MongoDB used by the tests
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"10", "1000"})
+    public int items;
+
+    private ConfigurableApplicationContext context;
+    private InventoryRepository inventoryRepository;
+    private String inventory;
+    private List<QuantityUpdate> bulk;
+    private int quantity;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(InventoryManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                // measure MongoDB, not the in-process cache
+                .properties("app.cache.enabled=false")
+                .run();
+
+        inventoryRepository = context.getBean(InventoryRepository.class);
+        inventory = "benchmark-" + items;
+
+        bulk = new ArrayList<>(items);
+        for (int i = 0; i < items; i++)
+            bulk.add(new QuantityUpdate(inventory, "category" + (i % 10), "subcategory" + i, i));
+
+        inventoryRepository.deleteByName(inventory);
+        inventoryRepository.bulkUpdateQuantity(bulk);
+    }
+
+    @TearDown
+    public void tearDown() {
+        inventoryRepository.deleteByName(inventory);
+        context.close();
+    }
+
+    @Benchmark
+    public List<InventoryEntity> findByName() {
+        return inventoryRepository.findByName(inventory);
+    }
+
+    @Benchmark
+    public InventoryEntity findByNameAndCategoryAndSubcategory() {
+        return inventoryRepository.findByNameAndCategoryAndSubcategory(inventory, "category1", "subcategory1");
+    }
+
+    @Benchmark
+    public InventoryEntity updateQuantity() {
+        return inventoryRepository.updateQuantity(inventory, "category1", "subcategory1", quantity++);
+    }
+
+    @Benchmark
+    public List<QuantityUpdateResult> bulkUpdateQuantity() {
+        return inventoryRepository.bulkUpdateQuantity(bulk);
+    }
+
+}
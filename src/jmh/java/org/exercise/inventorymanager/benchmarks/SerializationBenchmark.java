@@ -0,0 +1,111 @@
+package org.exercise.inventorymanager.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final TypeReference<List<QuantityUpdate>> UPDATES = new TypeReference<>() {
+    };
+
+    @Param({"10", "1000", "100000"})
+    public int items;
+
+    // wire format, json-gzip is what a client gets with server.compression and Accept-Encoding: gzip
+    @Param({"json", "json-gzip", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper objectMapper;
+    private boolean gzip;
+
+    private List<InventoryEntity> inventory;
+    private byte[] updates;
+
+    @Setup
+    public void setUp() throws IOException {
+        // configured like the ones Spring Boot uses for the controllers
+        switch (format) {
+            case "cbor":
+                objectMapper = Jackson2ObjectMapperBuilder.cbor().build();
+                break;
+            case "smile":
+                objectMapper = Jackson2ObjectMapperBuilder.smile().build();
+                break;
+            default:
+                objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+
+        gzip = format.endsWith("-gzip");
+        inventory = new ArrayList<>(items);
+        List<QuantityUpdate> bulk = new ArrayList<>(items);
+
+        for (int i = 0; i < items; i++) {
+            inventory.add(InventoryEntity.builder()
+                    .id(Integer.toHexString(i))
+                    .name("warehouse")
+                    .category("category" + (i % 100))
+                    .subcategory("subcategory" + i)
+                    .quantity(i)
+                    .build());
+
+            bulk.add(new QuantityUpdate("warehouse", "category" + (i % 100), "subcategory" + i, i));
+        }
+
+        updates = serialize(bulk);
+
+        // payload sizes are not a time, they are printed once with the results of the fork
+        System.out.printf("%n%s, %d items: response %d bytes, request %d bytes%n",
+                format, items, serializeInventory().length, updates.length);
+    }
+
+    @Benchmark
+    public byte[] serializeInventory() throws IOException {
+        // response of GET /inventory/{name}
+        return serialize(inventory);
+    }
+
+    @Benchmark
+    public List<QuantityUpdate> deserializeUpdates() throws IOException {
+        // request body of POST /inventory/bulk
+        InputStream input = new ByteArrayInputStream(updates);
+
+        if (gzip)
+            input = new GZIPInputStream(input);
+
+        return objectMapper.readValue(input, UPDATES);
+    }
+
+    private byte[] serialize(Object value) throws IOException {
+        if (!gzip)
+            return objectMapper.writeValueAsBytes(value);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream output = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(output, value);
+        }
+
+        return bytes.toByteArray();
+    }
+
+}
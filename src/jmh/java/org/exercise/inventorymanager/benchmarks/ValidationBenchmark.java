@@ -0,0 +1,77 @@
+package org.exercise.inventorymanager.benchmarks;
+
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.controllers.InventoryController;
+import org.exercise.inventorymanager.services.AllowedItemsIndex;
+import org.exercise.inventorymanager.services.InventoryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    // total number of allowed (category, subcategory) pairs
+    @Param({"100", "100000"})
+    public int catalogSize;
+
+    private InventoryService inventoryService;
+
+    @Setup
+    public void setUp() {
+        Map<String, Set<String>> allowedItems = new HashMap<>();
+
+        for (int i = 0; i < catalogSize; i++)
+            allowedItems.computeIfAbsent("category" + (i % 100), key -> new HashSet<>())
+                    .add("subcategory" + i);
+
+        AppConfig appConfig = new AppConfig();
+        appConfig.setAllowedItems(allowedItems);
+
+        AllowedItemsIndex allowedItemsIndex = new AllowedItemsIndex(appConfig);
+        allowedItemsIndex.refresh();
+
+        // only the validation is measured, it does not use the repository
+        inventoryService = new InventoryService(appConfig, allowedItemsIndex, null, null, null);
+    }
+
+    @Benchmark
+    public boolean isAllowedItem_Allowed() {
+        return inventoryService.isAllowedItem("category42", "subcategory42");
+    }
+
+    @Benchmark
+    public boolean isAllowedItem_UnknownSubcategory() {
+        return inventoryService.isAllowedItem("category42", "subcategory43");
+    }
+
+    @Benchmark
+    public boolean isAllowedItem_UnknownCategory() {
+        return inventoryService.isAllowedItem("unknown", "subcategory42");
+    }
+
+    @Benchmark
+    public boolean isAllowedItem_MixedCase() {
+        return inventoryService.isAllowedItem("Category42", "SubCategory42");
+    }
+
+    @Benchmark
+    public String paramFormatter_LowerCase() {
+        return InventoryController.paramFormatter("subcategory42");
+    }
+
+    @Benchmark
+    public String paramFormatter_MixedCase() {
+        return InventoryController.paramFormatter("SubCategory42");
+    }
+
+}
@@ -0,0 +1,201 @@
+package org.exercise.inventorymanager.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.storage.ItemTable;
+import org.exercise.inventorymanager.storage.StringTable;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+@Slf4j
+@Component
+public class InventoryCache implements MeterBinder {
+
+    private final boolean enabled;
+    private final boolean indexIds;
+
+    // all the items of an inventory, keyed by inventory name. Held in an ItemTable rather than as
+    // the loaded entities: a fraction of their size, entities are only created again for the reads
+    private final Cache<String, CachedInventory> cache;
+
+    // categories and subcategories of the cached inventories
+    private final StringTable strings = new StringTable();
+
+    // document id -> cached inventory holding it, only needed to apply remote deletes,
+    // because a delete event only contains the id of the deleted document
+    private final Map<String, CachedInventory> idIndex = new ConcurrentHashMap<>();
+
+    public InventoryCache(AppConfig appConfig) {
+        AppConfig.Cache config = appConfig.getCache();
+
+        this.enabled = config.isEnabled();
+        this.indexIds = config.isEnabled() && config.getChangeStream().isEnabled();
+
+        if (config.isEnabled() && !config.getChangeStream().isEnabled())
+            log.warn("Inventory cache enabled without the change stream: with several nodes, writes made by the "
+                    + "others are only seen once cached inventories expire, after {}", config.getTimeToLive());
+
+        this.cache = Caffeine.newBuilder()
+                // weighted by number of items, inventories can be very different in size
+                .maximumWeight(config.getMaxItems())
+                .weigher((String name, CachedInventory inventory) -> inventory.items.size() + 1)
+                .expireAfterWrite(config.getTimeToLive())
+                // run inline, so that the id index is cleaned as soon as an entry is removed
+                .executor(Runnable::run)
+                .removalListener((String name, CachedInventory inventory, RemovalCause cause) -> unindex(inventory))
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // only when enabled, see isEnabled
+    public ItemTable get(String name, Function<String, List<InventoryEntity>> loader) {
+        if (!enabled)
+            throw new IllegalStateException("Inventory cache is disabled!");
+
+        // an invalidation racing with the load waits for it, then removes the loaded value
+        return cache.get(name, key -> index(new CachedInventory(key, ItemTable.of(strings, loader.apply(key))))).items;
+    }
+
+    public Map<String, ItemTable> getAllPresent(Collection<String> names) {
+        // no bulk load: unlike get, it would not be atomic with the invalidations of concurrent writes
+        if (!enabled)
+            return Map.of();
+
+        Map<String, ItemTable> present = new HashMap<>();
+        cache.getAllPresent(names).forEach((name, inventory) -> present.put(name, inventory.items));
+
+        return present;
+    }
+
+    public void invalidate(String name) {
+        if (enabled)
+            cache.invalidate(name);
+    }
+
+    public void invalidateAll(Collection<String> names) {
+        if (enabled)
+            cache.invalidateAll(names);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public void patch(InventoryEntity entity) {
+        // apply an insert or update made elsewhere, only if its inventory is cached
+        if (!enabled)
+            return;
+
+        cache.asMap().computeIfPresent(entity.getName(), (name, inventory) -> {
+            // an older change, delivered after the item was loaded again: the cached item is already newer
+            InventoryEntity cached = inventory.items.get(name, entity.getCategory(), entity.getSubcategory());
+
+            if (cached != null && cached.getVersion() != null && entity.getVersion() != null
+                    && entity.getVersion() <= cached.getVersion())
+                return inventory;
+
+            // same (category, subcategory) means same document, see unique_item_per_inventory
+            inventory.items.put(entity);
+
+            if (indexIds && entity.getId() != null)
+                idIndex.put(entity.getId(), inventory);
+
+            return inventory;
+        });
+    }
+
+    public void evictItem(String id) {
+        // apply a delete made elsewhere, only if the deleted item is cached
+        if (!enabled || id == null)
+            return;
+
+        CachedInventory owner = idIndex.remove(id);
+
+        if (owner == null)
+            return;
+
+        cache.asMap().computeIfPresent(owner.name, (name, inventory) -> {
+            if (inventory != owner)
+                return inventory;
+
+            inventory.items.removeById(id);
+
+            return inventory;
+        });
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // cache.gets (hit/miss), cache.evictions, cache.size... tagged with cache=inventories
+        CaffeineCacheMetrics.monitor(registry, cache, "inventories");
+    }
+
+    private CachedInventory index(CachedInventory inventory) {
+        if (indexIds)
+            for (String id : inventory.items.ids())
+                idIndex.put(id, inventory);
+
+        return inventory;
+    }
+
+    private void unindex(CachedInventory inventory) {
+        // remove(key, value) only drops ids that still point to this exact entry,
+        // not the ones already re-indexed by a newer load of the same inventory
+        if (indexIds && inventory != null)
+            for (String id : inventory.items.ids())
+                idIndex.remove(id, inventory);
+    }
+
+    private static final class CachedInventory {
+
+        private final String name;
+
+        // modified in place under the cache entry lock, read under the lock of the table
+        private final ItemTable items;
+
+        private CachedInventory(String name, ItemTable items) {
+            this.name = name;
+            this.items = items;
+        }
+
+    }
+
+}
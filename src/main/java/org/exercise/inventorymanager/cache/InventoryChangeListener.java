@@ -0,0 +1,214 @@
+package org.exercise.inventorymanager.cache;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.entities.ResumeTokenEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Component
+@Profile("!memory")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.cache.change-stream", name = "enabled", havingValue = "true")
+public class InventoryChangeListener implements MessageListener<ChangeStreamDocument<Document>, InventoryEntity> {
+
+    private final AppConfig appConfig;
+    private final MongoTemplate mongoTemplate;
+    private final InventoryCache inventoryCache;
+
+    private final AtomicReference<BsonValue> lastToken = new AtomicReference<>();
+
+    private String tokenId;
+    private BsonValue savedToken;
+    private BsonValue subscribedToken;
+    private MessageListenerContainer container;
+    private Subscription subscription;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        String collection = mongoTemplate.getCollectionName(InventoryEntity.class);
+        tokenId = nodeId() + ":" + collection;
+
+        savedToken = loadToken();
+        lastToken.set(savedToken);
+
+        container = new DefaultMessageListenerContainer(mongoTemplate);
+        container.start();
+        subscribe(savedToken);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-change-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = appConfig.getCache().getChangeStream().getTokenSaveInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::checkpoint, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+
+        if (container != null)
+            container.stop();
+
+        saveToken();
+    }
+
+    @Override
+    public void onMessage(Message<ChangeStreamDocument<Document>, InventoryEntity> message) {
+        ChangeStreamDocument<Document> change = message.getRaw();
+
+        if (change == null)
+            return;
+
+        switch (change.getOperationType()) {
+            case INSERT:
+            case UPDATE:
+            case REPLACE:
+                InventoryEntity entity = message.getBody();
+
+                // the full document can be missing when it was deleted right after this change
+                if (entity != null)
+                    inventoryCache.patch(entity);
+                else
+                    inventoryCache.evictItem(documentId(change));
+                break;
+
+            case DELETE:
+                inventoryCache.evictItem(documentId(change));
+                break;
+
+            default:
+                // drop, rename, invalidate...: nothing targeted can be done
+                inventoryCache.invalidateAll();
+        }
+
+        lastToken.set(change.getResumeToken());
+    }
+
+    // the token the stream was last started after, null when started from the current time
+    BsonValue getSubscribedToken() {
+        return subscribedToken;
+    }
+
+    private void subscribe(BsonValue token) {
+        ChangeStreamRequest.ChangeStreamRequestBuilder<InventoryEntity> request = ChangeStreamRequest.builder(this)
+                .collection(mongoTemplate.getCollectionName(InventoryEntity.class))
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+
+        if (token != null)
+            request.resumeAfter(token);
+
+        subscribedToken = token;
+        subscription = container.register(request.build(), InventoryEntity.class);
+    }
+
+    private void checkpoint() {
+        try {
+            saveToken();
+
+            if (subscription.isActive())
+                return;
+
+            // changes may have been missed while the stream was down
+            inventoryCache.invalidateAll();
+
+            BsonValue token = lastToken.get();
+
+            // no progress since the last attempt: the token is probably too old, start from now
+            if (Objects.equals(token, subscribedToken) && token != null) {
+                log.warn("Change stream could not resume, restarting it from the current time");
+                token = null;
+                lastToken.set(null);
+            }
+
+            container.remove(subscription);
+            subscribe(token);
+        } catch (RuntimeException e) {
+            log.error("Change stream checkpoint failed", e);
+        }
+    }
+
+    private BsonValue loadToken() {
+        ResumeTokenEntity entity = mongoTemplate.findById(tokenId, ResumeTokenEntity.class);
+
+        return entity == null || !StringUtils.hasText(entity.getToken())
+                ? null
+                : BsonDocument.parse(entity.getToken());
+    }
+
+    private void saveToken() {
+        BsonValue token = lastToken.get();
+
+        // only write when the stream moved forward
+        if (token == null || token.equals(savedToken))
+            return;
+
+        mongoTemplate.save(ResumeTokenEntity.builder()
+                .id(tokenId)
+                .token(token.asDocument().toJson())
+                .updatedAt(Instant.now())
+                .build());
+
+        savedToken = token;
+    }
+
+    private String nodeId() {
+        String nodeId = appConfig.getCache().getChangeStream().getNodeId();
+
+        if (StringUtils.hasText(nodeId))
+            return nodeId;
+
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Cannot determine a node id, set app.cache.change-stream.node-id", e);
+        }
+    }
+
+    private static String documentId(ChangeStreamDocument<Document> change) {
+        BsonDocument key = change.getDocumentKey();
+
+        if (key == null || !key.containsKey("_id"))
+            return null;
+
+        BsonValue id = key.get("_id");
+
+        return id.isObjectId()
+                ? id.asObjectId().getValue().toHexString()
+                : id.asString().getValue();
+    }
+
+}
@@ -3,7 +3,9 @@ package org.exercise.inventorymanager.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
 
@@ -14,4 +16,157 @@ public class AppConfig {
 
     private Map<String, Set<String>> allowedItems;
 
+    // maximum number of upserts sent to MongoDB in a single bulkWrite
+    private int bulkChunkSize = 1000;
+
+    private WriteBehind writeBehind = new WriteBehind();
+
+    private AsyncWrites asyncWrites = new AsyncWrites();
+
+    private DeleteJobs deleteJobs = new DeleteJobs();
+
+    private Imports imports = new Imports();
+
+    private Cache cache = new Cache();
+
+    private Catalog catalog = new Catalog();
+
+    private Summary summary = new Summary();
+
+    private Memory memory = new Memory();
+
+    @Data
+    public static class WriteBehind {
+
+        // when enabled, quantity updates are buffered and written to MongoDB in bulk
+        private boolean enabled = false;
+
+        // flush every N ms...
+        private long flushIntervalMs = 100;
+
+        // ...or as soon as M distinct items are pending
+        private int flushSize = 1000;
+
+        // upper bound of pending items, writers flush themselves when it is reached
+        private int maxPending = 100_000;
+
+    }
+
+    @Data
+    public static class AsyncWrites {
+
+        // writes accepted with durability=accepted and not written yet, beyond that they are refused.
+        // Split between the workers, so a single busy inventory can only use its share
+        private int capacity = 10_000;
+
+        // threads writing them, all the writes of an inventory go to the same one, in order
+        private int workers = 2;
+
+        // how long a request waits for room in a full queue before being refused
+        private Duration offerTimeout = Duration.ZERO;
+
+    }
+
+    @Data
+    public static class DeleteJobs {
+
+        // items removed per delete command of a bulk delete job, each chunk is a bounded _id range
+        private int chunkSize = 1000;
+
+        // pause between two chunks, leaves room on the primary for the other requests
+        private Duration pause = Duration.ofMillis(100);
+
+        // how often each node looks for jobs to start or resume
+        private Duration pollInterval = Duration.ofSeconds(5);
+
+        // a job is owned by one node, renewed on each chunk. Another node resumes it once expired
+        private Duration lease = Duration.ofMinutes(1);
+
+    }
+
+    @Data
+    public static class Imports {
+
+        // bulk upserts of an import written in parallel, the rows of an item always go through the same one.
+        // Shared by all the imports running on the node
+        private int writers = 4;
+
+    }
+
+    @Data
+    public static class Catalog {
+
+        // allowed items are kept in the catalog collection, seeded from allowed-items when it is empty.
+        // When disabled, allowed-items is the catalog, as before
+        private boolean enabled = true;
+
+        // how often the local snapshot of the catalog is refreshed from the database
+        private Duration refreshInterval = Duration.ofSeconds(5);
+
+        // updates are read again within this window, in case clocks of the nodes differ
+        private Duration clockSkew = Duration.ofSeconds(5);
+
+    }
+
+    @Data
+    public static class Summary {
+
+        // inventory summaries are maintained incrementally, they are also recomputed on this interval
+        // to repair any drift (writes of the reactive stack, crash between the two writes...). Zero disables it
+        private Duration rebuildInterval = Duration.ofHours(1);
+
+    }
+
+    @Data
+    public static class Memory {
+
+        // with the memory profile, where the write-ahead log and the snapshots of the inventories are kept
+        private String directory = "data";
+
+        // acknowledge writes once forced to disk. Without it, a crash of the machine (not of the process)
+        // may lose the last writes
+        private boolean fsync = true;
+
+        // a snapshot is written on this interval, the log before it is then deleted. Zero disables it
+        private Duration snapshotInterval = Duration.ofMinutes(5);
+
+        // a new log segment is started once this one would grow past it, segments are mapped whole at startup
+        private DataSize segmentSize = DataSize.ofMegabytes(256);
+
+    }
+
+    @Data
+    public static class Cache {
+
+        // Read-through cache of the items of each inventory, in front of MongoDB. Unset, it follows the change
+        // stream: without it, a node keeps serving what other nodes overwrote until the time to live expires
+        private Boolean enabled;
+
+        // bound on the total number of cached items, across all inventories
+        private long maxItems = 1_000_000;
+
+        private Duration timeToLive = Duration.ofMinutes(10);
+
+        private ChangeStream changeStream = new ChangeStream();
+
+        public boolean isEnabled() {
+            return enabled != null ? enabled : changeStream.isEnabled();
+        }
+
+    }
+
+    @Data
+    public static class ChangeStream {
+
+        // keeps the cache of every node coherent with writes made by the other nodes,
+        // requires MongoDB to run as a replica set
+        private boolean enabled = false;
+
+        // identifies this node's resume token, each node consumes the stream on its own
+        private String nodeId;
+
+        private Duration tokenSaveInterval = Duration.ofSeconds(1);
+
+    }
+
 }
@@ -0,0 +1,130 @@
+package org.exercise.inventorymanager.config;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import lombok.Data;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Typed settings of the MongoDB driver, on top of spring.data.mongodb.uri. Options given in the URI take precedence,
+// see mongoClientSettingsCustomizer. The defaults are the ones of the driver. Pool metrics (mongodb.driver.pool.*) are published by Spring Boot
+@Data
+@Configuration
+@Profile("!memory")
+@ConfigurationProperties(prefix = "app.mongo")
+public class MongoConfig {
+
+    public static final String READ_TEMPLATE = "readMongoTemplate";
+    public static final String BULK_TEMPLATE = "bulkMongoTemplate";
+
+    private Pool pool = new Pool();
+
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    // zero means no timeout
+    private Duration readTimeout = Duration.ZERO;
+
+    private Duration serverSelectionTimeout = Duration.ofSeconds(30);
+
+    // for the reads that are not cached (see READ_TEMPLATE), for example secondaryPreferred
+    private String readPreference = "primary";
+
+    // single writes, for example w1, majority or journaled
+    private String writeConcern = "acknowledged";
+
+    // bulk writes (bulk endpoint, write-behind flushes), see BULK_TEMPLATE
+    private String bulkWriteConcern = "acknowledged";
+
+    @Data
+    public static class Pool {
+
+        private int maxSize = 100;
+        private int minSize = 0;
+
+        // how long a request waits for a free connection before failing
+        private Duration maxWaitTime = Duration.ofMinutes(2);
+
+        // zero means no limit
+        private Duration maxConnectionIdleTime = Duration.ZERO;
+        private Duration maxConnectionLifeTime = Duration.ZERO;
+
+        // connections being established at the same time
+        private int maxConnecting = 2;
+
+    }
+
+    public boolean isReadFromPrimary() {
+        return ReadPreference.valueOf(readPreference).equals(ReadPreference.primary());
+    }
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public MongoClientSettingsBuilderCustomizer mongoClientSettingsCustomizer() {
+        // Applies to the blocking and the reactive clients. Runs before the customizer of Spring Boot (order 0),
+        // which applies the URI: only the options the URI gives replace these, the read preference included
+        ReadPreference parsedReadPreference = ReadPreference.valueOf(readPreference);
+        WriteConcern parsedWriteConcern = parseWriteConcern(writeConcern);
+        parseWriteConcern(bulkWriteConcern);
+
+        return builder -> builder
+                .applyToConnectionPoolSettings(settings -> settings
+                        .maxSize(pool.getMaxSize())
+                        .minSize(pool.getMinSize())
+                        .maxWaitTime(pool.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(pool.getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionLifeTime(pool.getMaxConnectionLifeTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnecting(pool.getMaxConnecting()))
+                .applyToSocketSettings(settings -> settings
+                        .connectTimeout((int) connectTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                        .readTimeout((int) readTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(settings -> settings
+                        .serverSelectionTimeout(serverSelectionTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                // the read preference only applies to the read template, everything else reads from the primary
+                // unless the URI says otherwise
+                .readPreference(ReadPreference.primary())
+                .writeConcern(parsedWriteConcern);
+    }
+
+    @Bean
+    @Primary
+    public MongoTemplate mongoTemplate(MongoDatabaseFactory mongoDatabaseFactory, MongoConverter mongoConverter) {
+        // defining other templates disables the one of Spring Boot, so this is the same as its default
+        return new MongoTemplate(mongoDatabaseFactory, mongoConverter);
+    }
+
+    @Bean(READ_TEMPLATE)
+    public MongoTemplate readMongoTemplate(MongoDatabaseFactory mongoDatabaseFactory, MongoConverter mongoConverter) {
+        MongoTemplate template = new MongoTemplate(mongoDatabaseFactory, mongoConverter);
+        template.setReadPreference(ReadPreference.valueOf(readPreference));
+        return template;
+    }
+
+    @Bean(BULK_TEMPLATE)
+    public MongoTemplate bulkMongoTemplate(MongoDatabaseFactory mongoDatabaseFactory, MongoConverter mongoConverter) {
+        MongoTemplate template = new MongoTemplate(mongoDatabaseFactory, mongoConverter);
+        template.setWriteConcern(parseWriteConcern(bulkWriteConcern));
+        return template;
+    }
+
+    private static WriteConcern parseWriteConcern(String name) {
+        WriteConcern parsed = WriteConcern.valueOf(name);
+
+        if (parsed == null)
+            throw new IllegalArgumentException("Unknown write concern " + name + "!");
+
+        return parsed;
+    }
+
+}
@@ -0,0 +1,31 @@
+package org.exercise.inventorymanager.config;
+
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        // Tomcat is also on the classpath (for the servlet stack) and would be picked first,
+        // Netty serves all connections from a small, fixed number of event loop threads
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public CodecCustomizer cborCodecCustomizer() {
+        // WebFlux registers Smile when it is on the classpath, but not CBOR
+        return configurer -> {
+            configurer.customCodecs().registerWithDefaultConfig(new Jackson2CborEncoder());
+            configurer.customCodecs().registerWithDefaultConfig(new Jackson2CborDecoder());
+        };
+    }
+
+}
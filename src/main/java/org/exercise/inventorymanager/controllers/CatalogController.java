@@ -0,0 +1,61 @@
+package org.exercise.inventorymanager.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.exercise.inventorymanager.services.CatalogService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.exercise.inventorymanager.controllers.InventoryController.paramFormatter;
+import static org.exercise.inventorymanager.controllers.InventoryController.withBadRequest;
+
+@Profile("!reactive & !memory")
+@RequiredArgsConstructor
+@RestController
+@ConditionalOnProperty(prefix = "app.catalog", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CatalogController {
+
+    private final CatalogService catalogService;
+
+    @GetMapping("/catalog")
+    public Map<String, Set<String>> getCatalog() {
+        // all allowed items, as currently seen by this node
+        return catalogService.getCatalog();
+    }
+
+    @PostMapping("/catalog/{category}/{subcategory}")
+    public void addItem(@PathVariable(name = "category") String category,
+                        @PathVariable(name = "subcategory") String subcategory) {
+        // allow a new item, in every inventory
+        if (!StringUtils.hasText(category) || !StringUtils.hasText(subcategory))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Category and subcategory must be valid strings!");
+
+        withBadRequest(() -> {
+            catalogService.addItem(paramFormatter(category), paramFormatter(subcategory));
+            return null;
+        });
+    }
+
+    @DeleteMapping("/catalog/{category}/{subcategory}")
+    public void removeItem(@PathVariable(name = "category") String category,
+                           @PathVariable(name = "subcategory") String subcategory) {
+        // stop allowing an item, stored items are kept
+        if (!catalogService.removeItem(paramFormatter(category), paramFormatter(subcategory)))
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!");
+    }
+
+    @DeleteMapping("/catalog/{category}")
+    public void removeCategory(@PathVariable(name = "category") String category) {
+        // stop allowing a whole category
+        if (!catalogService.removeCategory(paramFormatter(category)))
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!");
+    }
+
+}
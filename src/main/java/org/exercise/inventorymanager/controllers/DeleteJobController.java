@@ -0,0 +1,77 @@
+package org.exercise.inventorymanager.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.exercise.inventorymanager.dto.DeleteRequest;
+import org.exercise.inventorymanager.dto.ItemKey;
+import org.exercise.inventorymanager.entities.DeleteJobEntity;
+import org.exercise.inventorymanager.metrics.Monitored;
+import org.exercise.inventorymanager.services.DeleteJobService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+import static org.exercise.inventorymanager.controllers.InventoryController.paramFormatter;
+import static org.exercise.inventorymanager.controllers.InventoryController.withBadRequest;
+
+@Profile("!reactive & !memory")
+@RequiredArgsConstructor
+@RestController
+public class DeleteJobController {
+
+    // inventories, and items, deleted by a single request
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final DeleteJobService deleteJobService;
+
+    @Monitored("bulk-delete")
+    @PostMapping("/inventories/delete")
+    public ResponseEntity<DeleteJobEntity> deleteMany(@RequestBody DeleteRequest request) {
+        // delete many inventories and / or items in the background, the job can be followed at the returned location
+        List<String> names = request.getNames();
+        List<ItemKey> keys = request.getKeys();
+
+        if (names != null && names.size() > MAX_BATCH_SIZE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BATCH_SIZE + " names are allowed!");
+
+        if (keys != null && keys.size() > MAX_BATCH_SIZE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BATCH_SIZE + " keys are allowed!");
+
+        if (keys != null)
+            for (ItemKey key : keys) {
+                if (key == null)
+                    continue;
+
+                key.setCategory(paramFormatter(key.getCategory()));
+                key.setSubcategory(paramFormatter(key.getSubcategory()));
+            }
+
+        DeleteJobEntity job = withBadRequest(() -> deleteJobService.submit(names, keys));
+
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                        .path("/{id}")
+                        .buildAndExpand(job.getId())
+                        .toUri())
+                .body(job);
+    }
+
+    @Monitored("delete-job")
+    @GetMapping("/inventories/delete/{id}")
+    public DeleteJobEntity getDeleteJob(@PathVariable(name = "id") String id) {
+        // status and progress of a bulk delete, kept a week once finished
+        DeleteJobEntity job = deleteJobService.findById(id);
+
+        if (job == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!");
+
+        return job;
+    }
+
+}
@@ -1,30 +1,118 @@
 package org.exercise.inventorymanager.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import lombok.RequiredArgsConstructor;
+import org.exercise.inventorymanager.dto.CompactInventory;
+import org.exercise.inventorymanager.dto.Durability;
+import org.exercise.inventorymanager.dto.ImportResult;
+import org.exercise.inventorymanager.dto.InventoryPage;
+import org.exercise.inventorymanager.dto.ItemKey;
+import org.exercise.inventorymanager.dto.ItemTag;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
+import org.exercise.inventorymanager.dto.TransferFormat;
 import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.errors.InsufficientQuantityError;
+import org.exercise.inventorymanager.errors.ItemNotAllowedError;
+import org.exercise.inventorymanager.errors.ItemNotFoundError;
+import org.exercise.inventorymanager.errors.PreconditionFailedError;
+import org.exercise.inventorymanager.metrics.Monitored;
 import org.exercise.inventorymanager.services.InventoryService;
+import org.exercise.inventorymanager.services.InventoryTransferService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
+@Profile("!reactive")
 @RequiredArgsConstructor
 @RestController
 public class InventoryController {
 
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // inventories or items read by a single batch request
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final InventoryService inventoryService;
+    private final InventoryTransferService inventoryTransferService;
+    private final ObjectMapper objectMapper;
 
+    @Monitored("find-by-name")
     @GetMapping("/inventory/{name}")
-    public List<InventoryEntity> getAllItemsInInventory(@PathVariable(name = "name") String name) {
+    public Object getInventory(@PathVariable(name = "name") String name,
+                               @RequestParam(name = "fields", required = false) String fields,
+                               @RequestParam(name = "shape", required = false) String shape,
+                               @RequestParam(name = "stream", defaultValue = "false") boolean stream,
+                               @RequestParam(name = "limit", required = false) Integer limit,
+                               @RequestParam(name = "after", required = false) String after,
+                               @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+                               WebRequest request,
+                               HttpServletResponse response) {
+        // One mapping for all the ways to read an inventory: mappings told apart by their params would tie on a
+        // request combining them. Whole, compact, streamed or by pages, one at a time
         if (!StringUtils.hasText(name))
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Name must be a valid string!");
 
-        // get all items in an inventory
-        List<InventoryEntity> inventoryEntities = inventoryService
-                .findAllItemsByName(name);
+        if (shape != null && !shape.equals("compact"))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown shape " + shape + ", expected compact!");
+
+        if (after != null && limit == null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "after can only be used with limit!");
+
+        if (stream && (shape != null || limit != null || fields != null))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "stream can not be combined with shape, limit or fields!");
+
+        if (limit != null && (shape != null || fields != null))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit can not be combined with shape or fields!");
+
+        if (stream)
+            return streamAllItemsInInventory(name, accept, response);
+
+        if (limit != null)
+            return getPageOfItemsInInventory(name, limit, after, request);
+
+        if (shape != null)
+            return getCompactInventory(name, fields, request);
+
+        return getAllItemsInInventory(name, fields, request);
+    }
+
+    private List<InventoryEntity> getAllItemsInInventory(String name, String fields, WebRequest request) {
+        if (isNotModified(request, name, fields))
+            return null;
+
+        // get all items in an inventory, optionally with only some of their fields (comma separated)
+        List<InventoryEntity> inventoryEntities = fields == null
+                ? inventoryService.findAllItemsByName(name)
+                : withBadRequest(() -> inventoryService.findAllItemsByName(name, parseFields(fields)));
 
         if (inventoryEntities.isEmpty())
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!");
@@ -32,9 +120,71 @@ public class InventoryController {
         return inventoryEntities;
     }
 
+    private CompactInventory getCompactInventory(String name, String fields, WebRequest request) {
+        // get all items in an inventory, grouped under its name instead of repeating it in each item
+        if (isNotModified(request, name, "compact", fields))
+            return null;
+
+        CompactInventory inventory = withBadRequest(() -> inventoryService
+                .findCompactInventoryByName(name, fields == null ? null : parseFields(fields)));
+
+        if (inventory.getItems().isEmpty())
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!");
+
+        return inventory;
+    }
+
+    private StreamingResponseBody streamAllItemsInInventory(String name, String accept,
+                                                            HttpServletResponse response) {
+        // get all items in an inventory, written while they are read from the database.
+        // A JSON array by default, or one JSON object per line if NDJSON is accepted
+        CloseableIterator<InventoryEntity> items = inventoryService.streamAllItemsByName(name);
+
+        // checked before anything is written, so we can still answer with a 404
+        if (!items.hasNext()) {
+            items.close();
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!");
+        }
+
+        boolean ndjson = accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(APPLICATION_NDJSON::equalsTypeAndSubtype);
+
+        // returned as is rather than in a ResponseEntity, which would not be recognized as streamed
+        // behind the Object return type of getInventory
+        response.setContentType((ndjson ? APPLICATION_NDJSON : MediaType.APPLICATION_JSON).toString());
+
+        return outputStream -> {
+            try (items; SequenceWriter writer = ndjson
+                    ? objectMapper.writer().withRootValueSeparator("\n").writeValues(outputStream)
+                    : objectMapper.writer().writeValuesAsArray(outputStream)) {
+                while (items.hasNext())
+                    writer.write(items.next());
+            }
+        };
+    }
+
+    private InventoryPage getPageOfItemsInInventory(String name, int limit, String after, WebRequest request) {
+        // get one page of the items in an inventory, use the returned "next" token as "after" for the following one
+        if (limit <= 0 || limit > MAX_PAGE_SIZE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Limit must be between 1 and " + MAX_PAGE_SIZE + "!");
+
+        if (isNotModified(request, name, "page", limit, after))
+            return null;
+
+        try {
+            return inventoryService.findPageOfItemsByName(name, after, limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @Monitored("find-by-category")
     @GetMapping("/inventory/{name}/{category}")
     public List<InventoryEntity> getInventoryItemsWithCategory(@PathVariable(name = "name") String name,
-                                                               @PathVariable(name = "category") String category) {
+                                                               @PathVariable(name = "category") String category,
+                                                               @RequestParam(name = "fields", required = false) String fields,
+                                                               WebRequest request) {
         // get all item in an inventory that belong in a specific category
         if (!StringUtils.hasText(name))
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
@@ -42,8 +192,13 @@ public class InventoryController {
 
         String formattedCategory = paramFormatter(category);
 
-        List<InventoryEntity> inventoryEntities = inventoryService
-                .findAllItemsByNameAndCategory(name, formattedCategory);
+        if (isNotModified(request, name, formattedCategory, fields))
+            return null;
+
+        List<InventoryEntity> inventoryEntities = fields == null
+                ? inventoryService.findAllItemsByNameAndCategory(name, formattedCategory)
+                : withBadRequest(() -> inventoryService
+                .findAllItemsByNameAndCategory(name, formattedCategory, parseFields(fields)));
 
         if (inventoryEntities.isEmpty())
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!");
@@ -51,10 +206,52 @@ public class InventoryController {
         return inventoryEntities;
     }
 
+    @Monitored("find-by-names")
+    @GetMapping("/inventories")
+    public Map<String, List<InventoryEntity>> getItemsInInventories(
+            @RequestParam(name = "names") List<String> names,
+            @RequestParam(name = "category", required = false) String category,
+            @RequestParam(name = "subcategory", required = false) String subcategory) {
+        // get the items of several inventories at once (names=a,b,c), grouped by inventory,
+        // optionally only the ones in a category / subcategory. Unknown inventories have no items
+        if (names.size() > MAX_BATCH_SIZE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BATCH_SIZE + " names are allowed!");
+
+        return withBadRequest(() -> inventoryService.findAllItemsByNames(names,
+                paramFormatter(category),
+                paramFormatter(subcategory)));
+    }
+
+    @Monitored("find-by-keys")
+    @PostMapping("/inventories/lookup")
+    public List<InventoryEntity> lookupItems(@RequestBody List<ItemKey> keys) {
+        // get many specific items at once, in the same order as the keys, null for the items that do not exist
+        if (keys == null || keys.isEmpty())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At least one key is required!");
+
+        if (keys.size() > MAX_BATCH_SIZE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BATCH_SIZE + " keys are allowed!");
+
+        for (ItemKey key : keys) {
+            if (key == null)
+                continue;
+
+            key.setCategory(paramFormatter(key.getCategory()));
+            key.setSubcategory(paramFormatter(key.getSubcategory()));
+        }
+
+        return withBadRequest(() -> inventoryService.findItemsByKeys(keys));
+    }
+
+    @Monitored("find-one")
     @GetMapping("/inventory/{name}/{category}/{subcategory}")
     public InventoryEntity getInventoryItemsWithCategoryAndSubcategory(@PathVariable(name = "name") String name,
                                                                        @PathVariable(name = "category") String category,
-                                                                       @PathVariable(name = "subcategory") String subcategory) {
+                                                                       @PathVariable(name = "subcategory") String subcategory,
+                                                                       WebRequest request) {
         // get a specific item in an inventory, if it exists
         if (!StringUtils.hasText(name))
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
@@ -69,15 +266,26 @@ public class InventoryController {
         if (inventoryEntity == null)
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!");
 
+        // the item is small and already read, its own tag is the one to use with If-Match
+        ItemTag tag = ItemTag.of(inventoryEntity);
+        if (tag != null && request.checkNotModified(tag.encode()))
+            return null;
+
         return inventoryEntity;
     }
 
+    @Monitored("upsert")
     @PostMapping("/inventory/{name}/{category}/{subcategory}/{quantity}")
-    public void updateQuantity(@PathVariable(name = "name") String name,
-                               @PathVariable(name = "category") String category,
-                               @PathVariable(name = "subcategory") String subcategory,
-                               @PathVariable(name = "quantity") int quantity) {
-        // Update or insert a new item in an inventory
+    public ResponseEntity<Void> updateQuantity(@PathVariable(name = "name") String name,
+                                               @PathVariable(name = "category") String category,
+                                               @PathVariable(name = "subcategory") String subcategory,
+                                               @PathVariable(name = "quantity") int quantity,
+                                               @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                               @RequestParam(name = "durability", required = false) String durability) {
+        // Update or insert a new item in an inventory.
+        // With If-Match, only update the item if it is still the version the client read.
+        // With durability, acknowledged at that level, durability=accepted answers 202 before writing
+        Durability parsedDurability = parseDurability(durability, ifMatch);
         String formattedCategory = paramFormatter(category);
         String formattedSubcategory = paramFormatter(subcategory);
 
@@ -90,30 +298,172 @@ public class InventoryController {
                     "Quantity must be positive or zero!");
 
         if (!inventoryService.isAllowedItem(formattedCategory, formattedSubcategory))
+            throw new ItemNotAllowedError("Item category does not exists, create it first!");
+
+        InventoryEntity entity;
+
+        if (ifMatch == null) {
+            entity = inventoryService.updateItemQuantity(name,
+                    formattedCategory,
+                    formattedSubcategory,
+                    quantity,
+                    parsedDurability);
+        } else {
+            ItemTag expected = parseIfMatch(ifMatch);
+
+            try {
+                entity = inventoryService.updateItemQuantity(name,
+                        formattedCategory,
+                        formattedSubcategory,
+                        quantity,
+                        expected);
+            } catch (PreconditionFailedError e) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage());
+            }
+        }
+
+        if (parsedDurability == Durability.ACCEPTED)
+            return ResponseEntity.accepted().build();
+
+        return withTag(ResponseEntity.ok(), entity).build();
+    }
+
+    @Monitored("adjust")
+    @PatchMapping("/inventory/{name}/{category}/{subcategory}")
+    public ResponseEntity<InventoryEntity> adjustQuantity(@PathVariable(name = "name") String name,
+                                                          @PathVariable(name = "category") String category,
+                                                          @PathVariable(name = "subcategory") String subcategory,
+                                                          @RequestParam(name = "delta") int delta,
+                                                          @RequestParam(name = "allowNegative", defaultValue = "false") boolean allowNegative) {
+        // Add (or remove, with a negative delta) a quantity to an item, atomically.
+        // A decrement that would make the quantity negative is refused, unless explicitly allowed
+        String formattedCategory = paramFormatter(category);
+        String formattedSubcategory = paramFormatter(subcategory);
+
+        if (!StringUtils.hasText(name))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Name must be a valid string!");
+
+        if (!inventoryService.isAllowedItem(formattedCategory, formattedSubcategory))
+            throw new ItemNotAllowedError("Item category does not exists, create it first!");
+
+        try {
+            InventoryEntity entity = inventoryService.adjustItemQuantity(name,
+                    formattedCategory,
+                    formattedSubcategory,
+                    delta,
+                    allowNegative);
+
+            return withTag(ResponseEntity.ok(), entity).body(entity);
+        } catch (ItemNotFoundError e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (InsufficientQuantityError e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @Monitored("bulk-upsert")
+    @PostMapping("/inventory/bulk")
+    public List<QuantityUpdateResult> bulkUpdateQuantity(@RequestBody List<QuantityUpdate> items) {
+        // Update or insert many items at once, possibly across several inventories.
+        // Invalid items are rejected one by one, they do not fail the whole request
+        if (items == null || items.isEmpty())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At least one item is required!");
+
+        for (QuantityUpdate item : items) {
+            if (item == null)
+                continue;
+
+            item.setCategory(paramFormatter(item.getCategory()));
+            item.setSubcategory(paramFormatter(item.getSubcategory()));
+        }
+
+        return inventoryService.bulkUpdateItemQuantity(items);
+    }
+
+    @Monitored("export")
+    @GetMapping("/inventory/{name}/export")
+    public ResponseEntity<StreamingResponseBody> exportInventory(
+            @PathVariable(name = "name") String name,
+            @RequestParam(name = "format", defaultValue = "csv") String format) {
+        // download all items of an inventory as a CSV or NDJSON file, written while they are read
+        TransferFormat parsedFormat = withBadRequest(() -> TransferFormat.parse(format));
+
+        if (!StringUtils.hasText(name))
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                    "Item category does not exists, create it first!");
+                    "Name must be a valid string!");
+
+        CloseableIterator<InventoryEntity> items = inventoryService.streamAllItemsByName(name);
+
+        // checked before anything is written, so we can still answer with a 404
+        if (!items.hasNext()) {
+            items.close();
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!");
+        }
 
-        inventoryService.updateItemQuantity(name,
-                formattedCategory,
-                formattedSubcategory,
-                quantity);
+        String filename = name + "." + parsedFormat.name().toLowerCase();
+
+        return ResponseEntity.ok()
+                .contentType(parsedFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(filename)
+                        .build()
+                        .toString())
+                .body(outputStream -> inventoryTransferService.exportItems(items, parsedFormat, outputStream));
     }
 
+    @Monitored("import")
+    @PostMapping(value = "/inventory/{name}/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ImportResult importInventory(@PathVariable(name = "name") String name,
+                                        @RequestHeader(name = HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                        @RequestHeader(name = HttpHeaders.CONTENT_ENCODING, required = false)
+                                        String contentEncoding,
+                                        InputStream body) throws IOException {
+        // Update or insert the items of a CSV or NDJSON file (Content-Type), optionally gzip compressed
+        // (Content-Encoding). Rows are read as they arrive, invalid ones are reported in the result
+        TransferFormat format = TransferFormat.of(contentType);
+        InputStream inputStream = "gzip".equalsIgnoreCase(contentEncoding)
+                ? new GZIPInputStream(body, 1 << 16)
+                : body;
+
+        try {
+            return inventoryTransferService.importItems(name, format, inputStream);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @Monitored("delete-inventory")
     @DeleteMapping("/inventory/{name}")
-    public void deleteInventory(@PathVariable(name = "name") String name) {
+    public ResponseEntity<Void> deleteInventory(@PathVariable(name = "name") String name,
+                                                @RequestParam(name = "durability", required = false) String durability) {
         // delete an inventory and all its items
+        Durability parsedDurability = parseDurability(durability, null);
+
         if (!StringUtils.hasText(name))
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Name must be a valid string!");
 
-        inventoryService.deleteInventory(name);
+        inventoryService.deleteInventory(name, parsedDurability);
+
+        return parsedDurability == Durability.ACCEPTED
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.ok().build();
     }
 
+    @Monitored("delete-item")
     @DeleteMapping("/inventory/{name}/{category}/{subcategory}")
-    public void deleteItemInInventory(@PathVariable(name = "name") String name,
-                                      @PathVariable(name = "category") String category,
-                                      @PathVariable(name = "subcategory") String subcategory) {
-        // delete a specific item in an inventory
+    public ResponseEntity<Void> deleteItemInInventory(@PathVariable(name = "name") String name,
+                                                      @PathVariable(name = "category") String category,
+                                                      @PathVariable(name = "subcategory") String subcategory,
+                                                      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                      @RequestParam(name = "durability", required = false) String durability) {
+        // delete a specific item in an inventory, with If-Match only if it is still the version the client read
+        Durability parsedDurability = parseDurability(durability, ifMatch);
+
         if (!StringUtils.hasText(name))
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Name must be a valid string!");
@@ -121,13 +471,88 @@ public class InventoryController {
         String formattedCategory = paramFormatter(category);
         String formattedSubcategory = paramFormatter(subcategory);
 
-        inventoryService.deleteItemInInventory(name, formattedCategory, formattedSubcategory);
+        if (ifMatch == null) {
+            inventoryService.deleteItemInInventory(name, formattedCategory, formattedSubcategory, parsedDurability);
+
+            return parsedDurability == Durability.ACCEPTED
+                    ? ResponseEntity.accepted().build()
+                    : ResponseEntity.ok().build();
+        }
+
+        ItemTag expected = parseIfMatch(ifMatch);
+
+        try {
+            inventoryService.deleteItemInInventory(name, formattedCategory, formattedSubcategory, expected);
+        } catch (PreconditionFailedError e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage());
+        }
+
+        return ResponseEntity.ok().build();
+    }
+
+    private boolean isNotModified(WebRequest request, String name, Object... variant) {
+        // The inventory tag is read before the items: if an item changes in between, the client gets the new
+        // items with the old tag and downloads them once more, instead of keeping old items with a new tag.
+        // Each variant of the representation (fields, page...) gets its own tag
+        String tag = inventoryService.findInventoryTag(name);
+
+        if (tag == null)
+            return false;
+
+        return request.checkNotModified(tag + '-' + Integer.toHexString(Arrays.hashCode(variant)));
+    }
+
+    private static Durability parseDurability(String durability, String ifMatch) {
+        // a conditional write is answered with its outcome, so it is always done right away,
+        // with the default write concern
+        if (durability != null && ifMatch != null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Durability cannot be combined with If-Match!");
+
+        return withBadRequest(() -> Durability.parse(durability));
+    }
+
+    private static ItemTag parseIfMatch(String ifMatch) {
+        // a tag we could not have issued cannot match
+        try {
+            return ItemTag.decode(ifMatch);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage());
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder withTag(ResponseEntity.BodyBuilder response, InventoryEntity entity) {
+        // no tag for an item not written yet (write-behind)
+        ItemTag tag = entity == null ? null : ItemTag.of(entity);
+
+        return tag == null ? response : response.eTag(tag.encode());
+    }
+
+    private static Set<String> parseFields(String fields) {
+        return StringUtils.commaDelimitedListToSet(fields).stream()
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .collect(Collectors.toSet());
+    }
+
+    static <T> T withBadRequest(Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     public static String paramFormatter(String str) {
-        return str == null
-                ? null
-                : str.toLowerCase();
+        if (str == null)
+            return null;
+
+        // most parameters are already lower case, keep them as is instead of allocating a copy
+        for (int i = 0; i < str.length(); i++)
+            if (Character.toLowerCase(str.charAt(i)) != str.charAt(i))
+                return str.toLowerCase();
+
+        return str;
     }
 
 }
@@ -0,0 +1,114 @@
+package org.exercise.inventorymanager.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.exercise.inventorymanager.dto.QuantityTotal;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.entities.InventorySummaryEntity;
+import org.exercise.inventorymanager.metrics.Monitored;
+import org.exercise.inventorymanager.services.InventoryStatsService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.exercise.inventorymanager.controllers.InventoryController.withBadRequest;
+
+@Profile("!reactive & !memory")
+@RequiredArgsConstructor
+@RestController
+public class InventoryStatsController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final InventoryStatsService inventoryStatsService;
+
+    @Monitored("totals")
+    @GetMapping("/stats/totals")
+    public List<QuantityTotal> getTotals(
+            @RequestParam(name = "groupBy", defaultValue = "inventory") String groupBy) {
+        // total quantity per inventory, or per category / subcategory across all inventories
+        return inventoryStatsService.totals(parseGroupBy(groupBy));
+    }
+
+    @Monitored("totals")
+    @GetMapping("/stats/totals/{name}")
+    public List<QuantityTotal> getTotalsOfInventory(
+            @PathVariable(name = "name") String name,
+            @RequestParam(name = "groupBy", defaultValue = "inventory") String groupBy) {
+        // total quantity of an inventory, or of each of its categories / subcategories
+        List<QuantityTotal> totals = withBadRequest(() -> inventoryStatsService.totalsByName(name,
+                parseGroupBy(groupBy)));
+
+        if (totals.isEmpty())
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!");
+
+        return totals;
+    }
+
+    @Monitored("top-items")
+    @GetMapping("/stats/top")
+    public List<InventoryEntity> getTopItems(@RequestParam(name = "name", required = false) String name,
+                                             @RequestParam(name = "limit", defaultValue = "10") int limit) {
+        // items with the highest quantity, in one inventory or across all of them
+        checkLimit(limit);
+
+        return withBadRequest(() -> inventoryStatsService.topItems(name, limit));
+    }
+
+    @Monitored("low-stock")
+    @GetMapping("/stats/low-stock")
+    public List<InventoryEntity> getLowStockItems(@RequestParam(name = "threshold") int threshold,
+                                                  @RequestParam(name = "name", required = false) String name,
+                                                  @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        // items with a quantity under the threshold, lowest first
+        checkLimit(limit);
+
+        return withBadRequest(() -> inventoryStatsService.lowStockItems(name, threshold, limit));
+    }
+
+    @Monitored("find-summary")
+    @GetMapping("/stats/summary/{name}")
+    public InventorySummaryEntity getSummary(@PathVariable(name = "name") String name) {
+        // totals of an inventory maintained on each write, a single lookup whatever its size
+        InventorySummaryEntity summary = withBadRequest(() -> inventoryStatsService.findSummaryByName(name));
+
+        if (summary == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!");
+
+        return summary;
+    }
+
+    @Monitored("rebuild-summary")
+    @PostMapping("/stats/summary/{name}/rebuild")
+    public void rebuildSummary(@PathVariable(name = "name") String name) {
+        // recompute the summary of an inventory from its items
+        withBadRequest(() -> {
+            inventoryStatsService.rebuildSummary(name);
+            return null;
+        });
+    }
+
+    @Monitored("rebuild-summaries")
+    @PostMapping("/stats/summary/rebuild")
+    public int rebuildSummaries() {
+        // recompute all summaries, returns the number of inventories
+        return inventoryStatsService.rebuildSummaries();
+    }
+
+    private static QuantityTotal.GroupBy parseGroupBy(String groupBy) {
+        try {
+            return QuantityTotal.GroupBy.parse(groupBy);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Limit must be between 1 and " + MAX_LIMIT + "!");
+    }
+
+}
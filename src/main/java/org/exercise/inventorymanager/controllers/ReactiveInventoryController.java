@@ -0,0 +1,177 @@
+package org.exercise.inventorymanager.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.exercise.inventorymanager.dto.InventoryPage;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.errors.ItemNotAllowedError;
+import org.exercise.inventorymanager.services.ReactiveInventoryService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.exercise.inventorymanager.controllers.InventoryController.paramFormatter;
+
+// same endpoints and validation rules as InventoryController, on WebFlux
+@Profile("reactive")
+@RequiredArgsConstructor
+@RestController
+public class ReactiveInventoryController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveInventoryService inventoryService;
+
+    @GetMapping("/inventory/{name}")
+    public Mono<List<InventoryEntity>> getAllItemsInInventory(@PathVariable(name = "name") String name) {
+        if (!StringUtils.hasText(name))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Name must be a valid string!");
+
+        // get all items in an inventory
+        return notEmpty(inventoryService.findAllItemsByName(name));
+    }
+
+    @GetMapping(value = "/inventory/{name}", params = "stream=true")
+    public Flux<InventoryEntity> streamAllItemsInInventory(@PathVariable(name = "name") String name) {
+        // get all items in an inventory, written as they are read: WebFlux writes a JSON array,
+        // or NDJSON if application/x-ndjson is accepted
+        if (!StringUtils.hasText(name))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Name must be a valid string!");
+
+        return inventoryService.findAllItemsByName(name)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!")));
+    }
+
+    @GetMapping(value = "/inventory/{name}", params = "limit")
+    public Mono<InventoryPage> getPageOfItemsInInventory(@PathVariable(name = "name") String name,
+                                                         @RequestParam(name = "limit") int limit,
+                                                         @RequestParam(name = "after", required = false) String after) {
+        if (!StringUtils.hasText(name))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Name must be a valid string!");
+
+        if (limit <= 0 || limit > MAX_PAGE_SIZE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Limit must be between 1 and " + MAX_PAGE_SIZE + "!");
+
+        return inventoryService.findPageOfItemsByName(name, after, limit)
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+
+    @GetMapping("/inventory/{name}/{category}")
+    public Mono<List<InventoryEntity>> getInventoryItemsWithCategory(@PathVariable(name = "name") String name,
+                                                                     @PathVariable(name = "category") String category) {
+        // get all item in an inventory that belong in a specific category
+        if (!StringUtils.hasText(name))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Name must be a valid string!");
+
+        String formattedCategory = paramFormatter(category);
+
+        return notEmpty(inventoryService.findAllItemsByNameAndCategory(name, formattedCategory));
+    }
+
+    @GetMapping("/inventory/{name}/{category}/{subcategory}")
+    public Mono<InventoryEntity> getInventoryItemsWithCategoryAndSubcategory(@PathVariable(name = "name") String name,
+                                                                             @PathVariable(name = "category") String category,
+                                                                             @PathVariable(name = "subcategory") String subcategory) {
+        // get a specific item in an inventory, if it exists
+        if (!StringUtils.hasText(name))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Name must be a valid string!");
+
+        String formattedCategory = paramFormatter(category);
+        String formattedSubcategory = paramFormatter(subcategory);
+
+        return inventoryService
+                .findSpecificItemInInventory(name, formattedCategory, formattedSubcategory)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!")));
+    }
+
+    @PostMapping("/inventory/{name}/{category}/{subcategory}/{quantity}")
+    public Mono<Void> updateQuantity(@PathVariable(name = "name") String name,
+                                     @PathVariable(name = "category") String category,
+                                     @PathVariable(name = "subcategory") String subcategory,
+                                     @PathVariable(name = "quantity") int quantity) {
+        // Update or insert a new item in an inventory
+        String formattedCategory = paramFormatter(category);
+        String formattedSubcategory = paramFormatter(subcategory);
+
+        if (!StringUtils.hasText(name))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Name must be a valid string!");
+
+        if (quantity < 0)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Quantity must be positive or zero!");
+
+        if (!inventoryService.isAllowedItem(formattedCategory, formattedSubcategory))
+            throw new ItemNotAllowedError("Item category does not exists, create it first!");
+
+        return inventoryService.updateItemQuantity(name,
+                formattedCategory,
+                formattedSubcategory,
+                quantity).then();
+    }
+
+    @PostMapping("/inventory/bulk")
+    public Mono<List<QuantityUpdateResult>> bulkUpdateQuantity(@RequestBody List<QuantityUpdate> items) {
+        // Update or insert many items at once, invalid items are rejected one by one
+        if (items == null || items.isEmpty())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At least one item is required!");
+
+        for (QuantityUpdate item : items) {
+            if (item == null)
+                continue;
+
+            item.setCategory(paramFormatter(item.getCategory()));
+            item.setSubcategory(paramFormatter(item.getSubcategory()));
+        }
+
+        return inventoryService.bulkUpdateItemQuantity(items);
+    }
+
+    @DeleteMapping("/inventory/{name}")
+    public Mono<Void> deleteInventory(@PathVariable(name = "name") String name) {
+        // delete an inventory and all its items
+        if (!StringUtils.hasText(name))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Name must be a valid string!");
+
+        return inventoryService.deleteInventory(name);
+    }
+
+    @DeleteMapping("/inventory/{name}/{category}/{subcategory}")
+    public Mono<Void> deleteItemInInventory(@PathVariable(name = "name") String name,
+                                            @PathVariable(name = "category") String category,
+                                            @PathVariable(name = "subcategory") String subcategory) {
+        // delete a specific item in an inventory
+        if (!StringUtils.hasText(name))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Name must be a valid string!");
+
+        String formattedCategory = paramFormatter(category);
+        String formattedSubcategory = paramFormatter(subcategory);
+
+        return inventoryService.deleteItemInInventory(name, formattedCategory, formattedSubcategory);
+    }
+
+    private static Mono<List<InventoryEntity>> notEmpty(Flux<InventoryEntity> items) {
+        return items.collectList()
+                .flatMap(list -> list.isEmpty()
+                        ? Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Nothing found!"))
+                        : Mono.just(list));
+    }
+
+}
@@ -0,0 +1,23 @@
+package org.exercise.inventorymanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+
+import java.util.List;
+
+// the items of an inventory with its name given once, instead of repeated in each item
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactInventory {
+
+    private String name;
+
+    // read without their name
+    private List<InventoryEntity> items;
+
+}
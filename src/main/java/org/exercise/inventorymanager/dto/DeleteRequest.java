@@ -0,0 +1,20 @@
+package org.exercise.inventorymanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// body of a bulk delete: whole inventories, single items, or both
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeleteRequest {
+
+    private List<String> names;
+    private List<ItemKey> keys;
+
+}
@@ -0,0 +1,35 @@
+package org.exercise.inventorymanager.dto;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// how far a write goes before it is acknowledged to the client, the durability parameter of the writes.
+// Without it, writes use the default write concern (app.mongo.write-concern)
+public enum Durability {
+
+    // queued in the application and answered with 202 Accepted right away, see AsyncWriteQueue.
+    // Lost if the application stops abruptly before writing it
+    ACCEPTED,
+
+    // written by the primary
+    ACKNOWLEDGED,
+
+    // written by a majority of the replica set, survives a failover
+    MAJORITY,
+
+    // written to the journal of the primary, survives a restart of the primary
+    JOURNALED;
+
+    public static Durability parse(String value) {
+        if (value == null)
+            return null;
+
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown durability " + value + ", expected one of "
+                    + Arrays.toString(values()).toLowerCase(Locale.ROOT) + "!", e);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package org.exercise.inventorymanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// outcome of an import: the rows that were not written are reported here, they do not fail the whole import
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResult {
+
+    // data rows read, the header excluded
+    private long rows;
+    private long imported;
+    private long rejected;
+
+    // false when the file could not be read to its end (malformed CSV): the rows after the last error are
+    // not imported, the ones before are
+    private boolean complete;
+
+    // the first rejected rows, at most InventoryTransferService.MAX_REPORTED_ERRORS, in no particular order
+    private List<RowError> errors;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+
+        // line of the row in the file, the header being line 1 of a CSV file
+        private long line;
+        private String error;
+
+    }
+
+}
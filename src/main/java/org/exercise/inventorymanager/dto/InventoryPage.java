@@ -0,0 +1,22 @@
+package org.exercise.inventorymanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryPage {
+
+    private List<InventoryEntity> items;
+
+    // token to pass to get the next page, null on the last page
+    private String next;
+
+}
@@ -0,0 +1,19 @@
+package org.exercise.inventorymanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// identifies one item, as the unique_item_per_inventory index does
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemKey {
+
+    private String name;
+    private String category;
+    private String subcategory;
+
+}
@@ -0,0 +1,53 @@
+package org.exercise.inventorymanager.dto;
+
+import lombok.Value;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+
+// entity tag of a stored item: its id (changes when the item is deleted and created again) and version
+@Value
+public class ItemTag {
+
+    // If-Match: *, any version of an existing item
+    public static final ItemTag ANY = new ItemTag(null, 0);
+
+    private static final char SEPARATOR = '-';
+
+    String id;
+    long version;
+
+    public boolean isAny() {
+        return id == null;
+    }
+
+    public String encode() {
+        return id + SEPARATOR + version;
+    }
+
+    public static ItemTag of(InventoryEntity entity) {
+        if (entity.getId() == null)
+            return null;
+
+        return new ItemTag(entity.getId(), entity.getVersion() == null ? 0 : entity.getVersion());
+    }
+
+    public static ItemTag decode(String header) {
+        // only a single strong tag, as returned in the ETag header, or *
+        String tag = header.trim();
+
+        if (tag.equals("*"))
+            return ANY;
+
+        if (tag.length() < 2 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"')
+            throw new IllegalArgumentException("Invalid entity tag!");
+
+        String raw = tag.substring(1, tag.length() - 1);
+        int separator = raw.lastIndexOf(SEPARATOR);
+
+        try {
+            return new ItemTag(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid entity tag!", e);
+        }
+    }
+
+}
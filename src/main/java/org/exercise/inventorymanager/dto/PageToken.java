@@ -0,0 +1,42 @@
+package org.exercise.inventorymanager.dto;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// position in an inventory, following the order of the unique_item_per_inventory index
+@Value
+public class PageToken {
+
+    private static final char SEPARATOR = '\n';
+
+    String category;
+    String subcategory;
+
+    public String encode() {
+        String raw = category + SEPARATOR + subcategory;
+
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageToken decode(String token) {
+        String raw;
+
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page token!", e);
+        }
+
+        int separator = raw.indexOf(SEPARATOR);
+
+        if (separator < 0)
+            throw new IllegalArgumentException("Invalid page token!");
+
+        return new PageToken(raw.substring(0, separator), raw.substring(separator + 1));
+    }
+
+}
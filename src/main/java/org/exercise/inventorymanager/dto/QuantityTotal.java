@@ -0,0 +1,38 @@
+package org.exercise.inventorymanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// total quantity of a group of items, only the fields the items are grouped by are set
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QuantityTotal {
+
+    private String name;
+    private String category;
+    private String subcategory;
+
+    private long quantity;
+
+    // number of items in the group
+    private long items;
+
+    public enum GroupBy {
+        INVENTORY, CATEGORY, SUBCATEGORY;
+
+        public static GroupBy parse(String value) {
+            for (GroupBy groupBy : values())
+                if (groupBy.name().equalsIgnoreCase(value))
+                    return groupBy;
+
+            throw new IllegalArgumentException("groupBy must be one of inventory, category or subcategory!");
+        }
+    }
+
+}
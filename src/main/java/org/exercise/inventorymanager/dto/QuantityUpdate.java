@@ -0,0 +1,19 @@
+package org.exercise.inventorymanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuantityUpdate {
+
+    private String name;
+    private String category;
+    private String subcategory;
+    private Integer quantity;
+
+}
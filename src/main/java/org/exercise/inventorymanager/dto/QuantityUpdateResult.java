@@ -0,0 +1,33 @@
+package org.exercise.inventorymanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuantityUpdateResult {
+
+    public enum Status {
+        INSERTED,
+        UPDATED,
+        REJECTED,
+        FAILED
+    }
+
+    private QuantityUpdate item;
+    private Status status;
+    private String message;
+
+    public static QuantityUpdateResult of(QuantityUpdate item, Status status) {
+        return new QuantityUpdateResult(item, status, null);
+    }
+
+    public static QuantityUpdateResult of(QuantityUpdate item, Status status, String message) {
+        return new QuantityUpdateResult(item, status, message);
+    }
+
+}
@@ -0,0 +1,45 @@
+package org.exercise.inventorymanager.dto;
+
+import org.springframework.http.MediaType;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// formats of the import and export of an inventory, see InventoryTransferService
+public enum TransferFormat {
+
+    // a header line naming the columns (category, subcategory, quantity, optionally name), then one item per line
+    CSV(MediaType.parseMediaType("text/csv")),
+
+    // one JSON object per line: category, subcategory, quantity, optionally name
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"));
+
+    private final MediaType mediaType;
+
+    TransferFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static TransferFormat parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown format " + value + ", expected one of "
+                    + Arrays.toString(values()).toLowerCase(Locale.ROOT) + "!", e);
+        }
+    }
+
+    // null if the content type is neither of them
+    public static TransferFormat of(MediaType contentType) {
+        for (TransferFormat format : values())
+            if (format.mediaType.equalsTypeAndSubtype(contentType))
+                return format;
+
+        return null;
+    }
+
+}
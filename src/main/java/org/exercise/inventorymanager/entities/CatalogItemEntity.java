@@ -0,0 +1,33 @@
+package org.exercise.inventorymanager.entities;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// one allowed (category, subcategory) pair
+@Data
+@Builder
+@Document(collection = "catalog")
+@CompoundIndex(name = "unique_catalog_item",
+        def = "{'category' : 1, 'subcategory': 1}",
+        unique = true)
+public class CatalogItemEntity {
+
+    @Id
+    private String id;
+
+    private String category;
+    private String subcategory;
+
+    // removed items are kept as tombstones, so that other nodes see the removal when polling
+    private boolean deleted;
+
+    @Indexed
+    private Instant updatedAt;
+
+}
@@ -0,0 +1,70 @@
+package org.exercise.inventorymanager.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.exercise.inventorymanager.dto.ItemKey;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+// A bulk delete, run in the background by DeleteJobService. The progress is saved after each chunk,
+// so a job interrupted by a restart resumes where it stopped, on this node or another one
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Document(collection = "delete_jobs")
+public class DeleteJobEntity {
+
+    @Id
+    private String id;
+
+    private Status status;
+
+    // whole inventories first, then single items
+    private List<String> names;
+    private List<ItemKey> keys;
+
+    // the names before it are deleted, then the keys before position - names.size()
+    private int position;
+
+    // the items of the current inventory are deleted up to this _id
+    @JsonIgnore
+    private String lastId;
+
+    // Only the items that existed when the job was created are deleted: items of the same inventories
+    // written afterwards have a greater _id, and are kept. The last _id of each of the names, as found in the
+    // collection rather than taken from the clock of a node, null for an inventory that had no items
+    @JsonIgnore
+    private List<String> maxIds;
+
+    private long deleted;
+    private String error;
+
+    // the node running the job, until lockedUntil
+    @JsonIgnore
+    private String owner;
+
+    @JsonIgnore
+    private Instant lockedUntil;
+
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    // finished jobs are kept a week for their status, then removed by MongoDB
+    @Indexed(expireAfter = "7d")
+    private Instant finishedAt;
+
+    public enum Status {
+        PENDING, RUNNING, DONE, FAILED
+    }
+
+}
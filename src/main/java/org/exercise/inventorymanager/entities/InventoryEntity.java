@@ -1,18 +1,26 @@
 package org.exercise.inventorymanager.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Document(collection = "inventories")
-@CompoundIndex(name = "unique_item_per_inventory",
-        def = "{'name' : 1, 'category' : 1, 'subcategory': 1}",
-        unique = true)
+@CompoundIndexes({
+        @CompoundIndex(name = "unique_item_per_inventory",
+                def = "{'name' : 1, 'category' : 1, 'subcategory': 1}",
+                unique = true),
+        // _id ranges of an inventory, deleted chunk by chunk by DeleteJobService
+        @CompoundIndex(name = "items_by_id_per_inventory",
+                def = "{'name' : 1, '_id' : 1}")
+})
 public class InventoryEntity {
 
     @Id
@@ -24,4 +32,8 @@ public class InventoryEntity {
     private String subcategory;
     private Integer quantity;
 
+    // incremented on each write of the item, see ItemTag
+    @JsonIgnore
+    private Long version;
+
 }
@@ -0,0 +1,45 @@
+package org.exercise.inventorymanager.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+// totals of an inventory, kept up to date on each write so reading them is a single lookup
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "inventory_summaries")
+public class InventorySummaryEntity {
+
+    // the inventory name
+    @Id
+    private String name;
+
+    private long items;
+    private long quantity;
+
+    private Map<String, CategorySummary> categories;
+
+    // incremented on each change of the summary
+    private long version;
+
+    private Instant updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CategorySummary {
+
+        private long items;
+        private long quantity;
+
+    }
+
+}
@@ -0,0 +1,24 @@
+package org.exercise.inventorymanager.entities;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// the node running a periodic job for all the others, see JobLeaseRepository
+@Data
+@Builder
+@Document(collection = "job_leases")
+public class JobLeaseEntity {
+
+    // name of the job
+    @Id
+    private String id;
+
+    private String owner;
+    private Instant lockedUntil;
+    private Instant updatedAt;
+
+}
@@ -0,0 +1,23 @@
+package org.exercise.inventorymanager.entities;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@Document(collection = "change_stream_tokens")
+public class ResumeTokenEntity {
+
+    // <node id>:<watched collection>
+    @Id
+    private String id;
+
+    // resume token of the last processed change, as extended JSON
+    private String token;
+    private Instant updatedAt;
+
+}
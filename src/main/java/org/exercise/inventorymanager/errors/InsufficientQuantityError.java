@@ -0,0 +1,7 @@
+package org.exercise.inventorymanager.errors;
+
+public class InsufficientQuantityError extends RuntimeException {
+    public InsufficientQuantityError(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package org.exercise.inventorymanager.errors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// same 400 answer as any bad input, but tells apart items refused by the allowed items check
+public class ItemNotAllowedError extends ResponseStatusException {
+    public ItemNotAllowedError(String message) {
+        super(HttpStatus.BAD_REQUEST, message);
+    }
+}
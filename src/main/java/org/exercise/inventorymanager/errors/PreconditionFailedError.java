@@ -0,0 +1,7 @@
+package org.exercise.inventorymanager.errors;
+
+public class PreconditionFailedError extends RuntimeException {
+    public PreconditionFailedError(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package org.exercise.inventorymanager.errors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// backpressure: an accepted write is refused rather than queued without bound, the client may retry later
+public class WriteQueueFullError extends ResponseStatusException {
+    public WriteQueueFullError(String message) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, message);
+    }
+}
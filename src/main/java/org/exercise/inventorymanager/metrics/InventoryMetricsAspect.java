@@ -0,0 +1,114 @@
+package org.exercise.inventorymanager.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.exercise.inventorymanager.errors.InsufficientQuantityError;
+import org.exercise.inventorymanager.errors.ItemNotAllowedError;
+import org.exercise.inventorymanager.errors.ItemNotFoundError;
+import org.exercise.inventorymanager.errors.PreconditionFailedError;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+// records the "inventory.operation" timer for every @Monitored method, tagged by
+// layer (controller, service, repository), operation and outcome
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class InventoryMetricsAspect {
+
+    public static final String METRIC_NAME = "inventory.operation";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("@annotation(monitored)")
+    public Object record(ProceedingJoinPoint joinPoint, Monitored monitored) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+
+        try {
+            Object result = joinPoint.proceed();
+            outcome = outcome(joinPoint, result);
+
+            return result;
+        } catch (Throwable e) {
+            outcome = outcome(e);
+
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .tag("layer", layer(joinPoint))
+                    .tag("operation", monitored.value())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String outcome(ProceedingJoinPoint joinPoint, Object result) {
+        Class<?> returnType = ((MethodSignature) joinPoint.getSignature()).getReturnType();
+
+        if (returnType == void.class)
+            return "success";
+
+        if (result instanceof Boolean)
+            return (Boolean) result ? "hit" : "rejected";
+
+        // a conditional GET answered with 304, see InventoryController
+        if (result == null && Arrays.stream(joinPoint.getArgs())
+                .anyMatch(arg -> arg instanceof ServletWebRequest && ((ServletWebRequest) arg).isNotModified()))
+            return "not-modified";
+
+        if (result == null || (result instanceof Collection && ((Collection<?>) result).isEmpty()))
+            return "not-found";
+
+        return "hit";
+    }
+
+    private static String outcome(Throwable e) {
+        if (e instanceof ItemNotAllowedError || e instanceof ItemNotFoundError)
+            return "rejected";
+
+        if (e instanceof InsufficientQuantityError || e instanceof PreconditionFailedError)
+            return "conflict";
+
+        if (e instanceof IllegalArgumentException)
+            return "bad-request";
+
+        if (e instanceof ResponseStatusException) {
+            HttpStatusCode status = ((ResponseStatusException) e).getStatusCode();
+
+            if (status.isSameCodeAs(HttpStatus.NOT_FOUND))
+                return "not-found";
+            if (status.isSameCodeAs(HttpStatus.CONFLICT) || status.isSameCodeAs(HttpStatus.PRECONDITION_FAILED))
+                return "conflict";
+            if (status.is4xxClientError())
+                return "bad-request";
+        }
+
+        return "error";
+    }
+
+    private static String layer(ProceedingJoinPoint joinPoint) {
+        String type = joinPoint.getSignature().getDeclaringType().getSimpleName();
+
+        if (type.endsWith("Controller"))
+            return "controller";
+        if (type.endsWith("Service"))
+            return "service";
+        if (type.endsWith("Repository"))
+            return "repository";
+
+        return type;
+    }
+
+}
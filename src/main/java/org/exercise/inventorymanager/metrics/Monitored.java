@@ -0,0 +1,16 @@
+package org.exercise.inventorymanager.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// times the annotated method, see InventoryMetricsAspect
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Monitored {
+
+    // operation tag, for example "find-by-name"
+    String value();
+
+}
@@ -0,0 +1,83 @@
+package org.exercise.inventorymanager.repositories;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.exercise.inventorymanager.dto.ItemKey;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// maps the outcome of an unordered bulkWrite back to each of the items sent
+final class BulkResults {
+
+    private BulkResults() {
+    }
+
+    // An unordered bulkWrite applies its writes in no particular order: an item given several times would end up
+    // with any of its quantities. Only its last one is sent, the one an ordered write would have left
+    static List<QuantityUpdate> lastPerItem(List<QuantityUpdate> items) {
+        Map<ItemKey, QuantityUpdate> last = new LinkedHashMap<>();
+
+        for (QuantityUpdate item : items)
+            last.put(keyOf(item), item);
+
+        return last.size() == items.size() ? items : new ArrayList<>(last.values());
+    }
+
+    // back to one result per item sent, see lastPerItem: a superseded item gets the outcome of the write of its key
+    static List<QuantityUpdateResult> perItem(List<QuantityUpdate> items, List<QuantityUpdateResult> written) {
+        if (written.size() == items.size())
+            return written;
+
+        Map<ItemKey, QuantityUpdateResult> byKey = new HashMap<>();
+        for (QuantityUpdateResult result : written)
+            byKey.put(keyOf(result.getItem()), result);
+
+        List<QuantityUpdateResult> results = new ArrayList<>(items.size());
+        for (QuantityUpdate item : items) {
+            QuantityUpdateResult result = byKey.get(keyOf(item));
+
+            results.add(result.getItem() == item ? result
+                    : QuantityUpdateResult.of(item, result.getStatus(), result.getMessage() != null
+                    ? result.getMessage() : "Superseded by a later quantity of the same item"));
+        }
+
+        return results;
+    }
+
+    static List<QuantityUpdateResult> of(List<QuantityUpdate> items,
+                                         List<BulkWriteUpsert> upserts,
+                                         List<BulkWriteError> writeErrors) {
+        Map<Integer, String> errors = new HashMap<>();
+        for (BulkWriteError error : writeErrors)
+            errors.put(error.getIndex(), error.getMessage());
+
+        Set<Integer> upserted = new HashSet<>();
+        for (BulkWriteUpsert upsert : upserts)
+            upserted.add(upsert.getIndex());
+
+        List<QuantityUpdateResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (errors.containsKey(i))
+                results.add(QuantityUpdateResult.of(items.get(i), QuantityUpdateResult.Status.FAILED, errors.get(i)));
+            else if (upserted.contains(i))
+                results.add(QuantityUpdateResult.of(items.get(i), QuantityUpdateResult.Status.INSERTED));
+            else
+                results.add(QuantityUpdateResult.of(items.get(i), QuantityUpdateResult.Status.UPDATED));
+        }
+
+        return results;
+    }
+
+    private static ItemKey keyOf(QuantityUpdate item) {
+        return new ItemKey(item.getName(), item.getCategory(), item.getSubcategory());
+    }
+
+}
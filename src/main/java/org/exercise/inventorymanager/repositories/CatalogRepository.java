@@ -0,0 +1,75 @@
+package org.exercise.inventorymanager.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.exercise.inventorymanager.entities.CatalogItemEntity;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+@Profile("!memory")
+@RequiredArgsConstructor
+public class CatalogRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    public long count() {
+        return mongoTemplate.count(new Query(), CatalogItemEntity.class);
+    }
+
+    public List<CatalogItemEntity> findAll() {
+        // tombstones included, the caller needs to know the latest update time anyway
+        return mongoTemplate.findAll(CatalogItemEntity.class);
+    }
+
+    public List<CatalogItemEntity> findUpdatedSince(Instant since) {
+        Query query = Query.query(Criteria.where("updatedAt").gte(since))
+                .with(Sort.by("updatedAt"));
+
+        return mongoTemplate.find(query, CatalogItemEntity.class);
+    }
+
+    public void save(String category, String subcategory) {
+        // upsert relying on the unique index, see CatalogItemEntity class
+        Query query = Query.query(Criteria.where("category").is(category)
+                .and("subcategory").is(subcategory));
+
+        Update update = Update.update("deleted", false)
+                .set("updatedAt", Instant.now());
+
+        mongoTemplate.upsert(query, update, CatalogItemEntity.class);
+    }
+
+    public boolean delete(String category, String subcategory) {
+        Query query = Query.query(Criteria.where("category").is(category)
+                .and("subcategory").is(subcategory)
+                .and("deleted").is(false));
+
+        Update update = Update.update("deleted", true)
+                .set("updatedAt", Instant.now());
+
+        return mongoTemplate.updateFirst(query, update, CatalogItemEntity.class).getModifiedCount() > 0;
+    }
+
+    public long deleteCategory(String category) {
+        Query query = Query.query(Criteria.where("category").is(category)
+                .and("deleted").is(false));
+
+        Update update = Update.update("deleted", true)
+                .set("updatedAt", Instant.now());
+
+        return mongoTemplate.updateMulti(query, update, CatalogItemEntity.class).getModifiedCount();
+    }
+
+    public void insertAll(List<CatalogItemEntity> items) {
+        mongoTemplate.insertAll(items);
+    }
+
+}
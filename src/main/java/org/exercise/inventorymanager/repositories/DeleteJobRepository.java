@@ -0,0 +1,228 @@
+package org.exercise.inventorymanager.repositories;
+
+import com.mongodb.WriteConcern;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.exercise.inventorymanager.dto.ItemKey;
+import org.exercise.inventorymanager.entities.DeleteJobEntity;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.entities.InventorySummaryEntity;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+@Repository
+@Profile("!memory")
+public class DeleteJobRepository {
+
+    private final MongoTemplate mongoTemplate;
+    private final InventorySummaryRepository inventorySummaryRepository;
+
+    // chunks wait for the majority: a job can not run ahead of the secondaries and grow their replication lag
+    private final MongoTemplate chunkMongoTemplate;
+
+    public DeleteJobRepository(MongoTemplate mongoTemplate, InventorySummaryRepository inventorySummaryRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.inventorySummaryRepository = inventorySummaryRepository;
+        this.chunkMongoTemplate = new MongoTemplate(mongoTemplate.getMongoDatabaseFactory(),
+                mongoTemplate.getConverter());
+        this.chunkMongoTemplate.setWriteConcern(WriteConcern.MAJORITY);
+    }
+
+    public DeleteJobEntity create(List<String> names, List<ItemKey> keys) {
+        Instant now = Instant.now();
+
+        return mongoTemplate.insert(DeleteJobEntity.builder()
+                .status(DeleteJobEntity.Status.PENDING)
+                .names(names)
+                .keys(keys)
+                .maxIds(findMaxIds(names))
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+    }
+
+    private List<String> findMaxIds(List<String> names) {
+        if (names.isEmpty())
+            return List.of();
+
+        // the first _id of each name walking items_by_id_per_inventory backwards, one index entry per name
+        Aggregation aggregation = newAggregation(
+                match(Criteria.where("name").in(names)),
+                sort(Sort.by(Sort.Order.asc("name"), Sort.Order.desc("_id"))),
+                group("name").first("_id").as("maxId"));
+
+        Map<String, String> maxIds = new HashMap<>();
+        for (Document last : mongoTemplate.aggregate(aggregation, InventoryEntity.class, Document.class))
+            maxIds.put(last.getString("_id"), last.getObjectId("maxId").toHexString());
+
+        return names.stream()
+                .map(maxIds::get)
+                .collect(Collectors.toList());
+    }
+
+    public DeleteJobEntity findById(String id) {
+        return mongoTemplate.findById(id, DeleteJobEntity.class);
+    }
+
+    // the oldest job that is not finished and not owned by a running node, null if there is none
+    public DeleteJobEntity claim(String owner, Duration lease) {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("status")
+                        .in(DeleteJobEntity.Status.PENDING, DeleteJobEntity.Status.RUNNING)
+                        .orOperator(Criteria.where("lockedUntil").is(null), Criteria.where("lockedUntil").lt(now)))
+                .with(Sort.by("createdAt"));
+
+        Update update = Update.update("status", DeleteJobEntity.Status.RUNNING)
+                .set("owner", owner)
+                .set("lockedUntil", now.plus(lease))
+                .set("updatedAt", now);
+
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                DeleteJobEntity.class);
+    }
+
+    // false if the lease was lost, the job is then left to its new owner
+    public boolean saveProgress(DeleteJobEntity job, long deleted, Duration lease) {
+        Instant now = Instant.now();
+        Update update = Update.update("position", job.getPosition())
+                .set("lastId", job.getLastId())
+                .inc("deleted", deleted)
+                .set("lockedUntil", now.plus(lease))
+                .set("updatedAt", now);
+
+        return mongoTemplate.updateFirst(ownedBy(job), update, DeleteJobEntity.class).getModifiedCount() > 0;
+    }
+
+    public void finish(DeleteJobEntity job, DeleteJobEntity.Status status, String error) {
+        Instant now = Instant.now();
+        Update update = Update.update("status", status)
+                .set("error", error)
+                .unset("owner")
+                .unset("lockedUntil")
+                .set("updatedAt", now)
+                .set("finishedAt", now);
+
+        mongoTemplate.updateFirst(ownedBy(job), update, DeleteJobEntity.class);
+    }
+
+    // on shutdown, so that the next node to poll resumes the job right away instead of waiting for the lease
+    public void release(DeleteJobEntity job) {
+        Update update = new Update()
+                .unset("owner")
+                .unset("lockedUntil")
+                .set("updatedAt", Instant.now());
+
+        mongoTemplate.updateFirst(ownedBy(job), update, DeleteJobEntity.class);
+    }
+
+    // the last _id of the next chunk of an inventory, null when nothing is left
+    public String findChunkEnd(String name, String afterId, String maxId, int chunkSize) {
+        Query query = Query.query(idRange(name, afterId, maxId))
+                .with(Sort.by("_id"))
+                .skip(chunkSize - 1)
+                .limit(1);
+        query.fields().include("_id");
+
+        InventoryEntity last = mongoTemplate.findOne(query, InventoryEntity.class);
+
+        if (last != null)
+            return last.getId();
+
+        // a last chunk smaller than chunkSize
+        query = Query.query(idRange(name, afterId, maxId))
+                .with(Sort.by(Sort.Direction.DESC, "_id"))
+                .limit(1);
+        query.fields().include("_id");
+        last = mongoTemplate.findOne(query, InventoryEntity.class);
+
+        return last == null ? null : last.getId();
+    }
+
+    public long deleteRange(String name, String afterId, String toId) {
+        return delete(idRange(name, afterId, toId));
+    }
+
+    public long deleteKeys(List<ItemKey> keys) {
+        Criteria[] matches = keys.stream()
+                .map(key -> Criteria.where("name").is(key.getName())
+                        .and("category").is(key.getCategory())
+                        .and("subcategory").is(key.getSubcategory()))
+                .toArray(Criteria[]::new);
+
+        return delete(new Criteria().orOperator(matches));
+    }
+
+    private long delete(Criteria chunk) {
+        // A remove returns no pre-images: the items are read first, and removed only if unchanged since, so the
+        // summaries get exact $inc deltas for each chunk. If a write raced with the chunk, whatever is left of it
+        // is removed anyway and the summaries of its inventories are recomputed
+        Query query = Query.query(chunk);
+        query.fields().include("name", "category", "quantity", "version");
+
+        List<InventoryEntity> items = chunkMongoTemplate.find(query, InventoryEntity.class);
+
+        if (items.isEmpty())
+            return 0;
+
+        Criteria[] unchanged = items.stream()
+                .map(item -> Criteria.where("_id").is(new ObjectId(item.getId())).and("version").is(item.getVersion()))
+                .toArray(Criteria[]::new);
+
+        long deleted = chunkMongoTemplate.remove(Query.query(new Criteria().orOperator(unchanged)),
+                InventoryEntity.class).getDeletedCount();
+
+        if (deleted == items.size()) {
+            Map<String, Map<String, InventorySummaryEntity.CategorySummary>> deltas = new HashMap<>();
+
+            for (InventoryEntity item : items) {
+                InventorySummaryEntity.CategorySummary delta = deltas
+                        .computeIfAbsent(item.getName(), name -> new HashMap<>())
+                        .computeIfAbsent(item.getCategory(), category -> new InventorySummaryEntity.CategorySummary());
+                delta.setItems(delta.getItems() - 1);
+                delta.setQuantity(delta.getQuantity() - (item.getQuantity() == null ? 0 : item.getQuantity()));
+            }
+
+            deltas.forEach(inventorySummaryRepository::apply);
+            return deleted;
+        }
+
+        deleted += chunkMongoTemplate.remove(Query.query(chunk), InventoryEntity.class).getDeletedCount();
+
+        items.stream()
+                .map(InventoryEntity::getName)
+                .distinct()
+                .forEach(inventorySummaryRepository::rebuild);
+
+        return deleted;
+    }
+
+    private static Criteria idRange(String name, String afterId, String toId) {
+        // bounded on both ends, walks the items_by_id_per_inventory index
+        Criteria criteria = Criteria.where("name").is(name)
+                .and("_id").lte(new ObjectId(toId));
+
+        return afterId == null ? criteria : criteria.gt(new ObjectId(afterId));
+    }
+
+    private static Query ownedBy(DeleteJobEntity job) {
+        return Query.query(Criteria.where("_id").is(job.getId())
+                .and("owner").is(job.getOwner()));
+    }
+
+}
@@ -0,0 +1,325 @@
+package org.exercise.inventorymanager.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.exercise.inventorymanager.dto.Durability;
+import org.exercise.inventorymanager.dto.ItemKey;
+import org.exercise.inventorymanager.dto.ItemTag;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.entities.InventorySummaryEntity;
+import org.exercise.inventorymanager.metrics.Monitored;
+import org.exercise.inventorymanager.storage.InventoryStore;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// InventoryRepository without MongoDB, on top of InventoryStore: reads are map lookups in the process,
+// writes are acknowledged once in the write-ahead log. Same semantics as MongoInventoryRepository
+// (ids, versions, conditional writes), so the services and controllers do not see the difference
+@Repository
+@Profile("memory")
+@RequiredArgsConstructor
+public class InMemoryInventoryRepository implements InventoryRepository {
+
+    private final InventoryStore inventoryStore;
+
+    @Override
+    @Monitored("find-by-name")
+    public List<InventoryEntity> findByName(String name) {
+        InventoryStore.Inventory inventory = inventoryStore.find(name);
+
+        return inventory == null ? new ArrayList<>() : inventory.list(null);
+    }
+
+    @Override
+    @Monitored("find-by-category")
+    public List<InventoryEntity> findByNameAndCategory(String name, String category) {
+        InventoryStore.Inventory inventory = inventoryStore.find(name);
+
+        return inventory == null ? new ArrayList<>() : inventory.list(category, null);
+    }
+
+    @Override
+    @Monitored("find-by-name")
+    public List<InventoryEntity> findByName(String name, Set<String> fields) {
+        // only the selected fields are copied out of the store
+        InventoryStore.Inventory inventory = inventoryStore.find(name);
+
+        return inventory == null ? new ArrayList<>() : inventory.list(fields);
+    }
+
+    @Override
+    @Monitored("find-by-category")
+    public List<InventoryEntity> findByNameAndCategory(String name, String category, Set<String> fields) {
+        InventoryStore.Inventory inventory = inventoryStore.find(name);
+
+        return inventory == null ? new ArrayList<>() : inventory.list(category, fields);
+    }
+
+    @Override
+    @Monitored("find-one")
+    public InventoryEntity findByNameAndCategoryAndSubcategory(String name, String category, String subcategory) {
+        InventoryStore.Inventory inventory = inventoryStore.find(name);
+
+        return inventory == null ? null : inventory.get(category, subcategory);
+    }
+
+    @Override
+    @Monitored("find-by-names")
+    public Map<String, List<InventoryEntity>> findByNames(Collection<String> names, String category,
+                                                          String subcategory) {
+        Map<String, List<InventoryEntity>> inventories = new LinkedHashMap<>();
+
+        for (String name : names) {
+            List<InventoryEntity> items = category == null
+                    ? findByName(name)
+                    : findByNameAndCategory(name, category);
+
+            if (subcategory != null)
+                items.removeIf(item -> !subcategory.equals(item.getSubcategory()));
+
+            inventories.put(name, items);
+        }
+
+        return inventories;
+    }
+
+    @Override
+    @Monitored("find-by-keys")
+    public Map<ItemKey, InventoryEntity> findByKeys(Collection<ItemKey> keys) {
+        Map<ItemKey, InventoryEntity> items = new HashMap<>();
+
+        for (ItemKey key : keys) {
+            InventoryEntity item = findByNameAndCategoryAndSubcategory(key.getName(), key.getCategory(),
+                    key.getSubcategory());
+
+            if (item != null)
+                items.put(key, item);
+        }
+
+        return items;
+    }
+
+    @Override
+    public CloseableIterator<InventoryEntity> streamByName(String name) {
+        InventoryStore.Inventory inventory = inventoryStore.find(name);
+        Iterator<InventoryEntity> items = inventory == null
+                ? Collections.emptyIterator()
+                : inventory.iterator();
+
+        return new CloseableIterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return items.hasNext();
+            }
+
+            @Override
+            public InventoryEntity next() {
+                return items.next();
+            }
+
+            @Override
+            public void close() {
+                // nothing to release, the items are copied out of the store chunk by chunk
+            }
+
+        };
+    }
+
+    @Override
+    @Monitored("find-page")
+    public List<InventoryEntity> findPageByName(String name, String afterCategory, String afterSubcategory, int limit) {
+        InventoryStore.Inventory inventory = inventoryStore.find(name);
+
+        return inventory == null ? new ArrayList<>() : inventory.page(afterCategory, afterSubcategory, limit);
+    }
+
+    @Override
+    public InventorySummaryEntity findVersionByName(String name) {
+        InventoryStore.Inventory inventory = inventoryStore.find(name);
+
+        if (inventory == null)
+            return null;
+
+        return InventorySummaryEntity.builder()
+                .name(name)
+                .version(inventory.getVersion())
+                .updatedAt(Instant.ofEpochMilli(inventory.getUpdatedAt()))
+                .build();
+    }
+
+    @Override
+    @Monitored("upsert")
+    public InventoryEntity updateQuantity(String name, String category, String subcategory, Integer quantity) {
+        return updateQuantity(name, category, subcategory, quantity, null);
+    }
+
+    @Override
+    @Monitored("upsert")
+    public InventoryEntity updateQuantity(String name, String category, String subcategory, Integer quantity,
+                                          Durability durability) {
+        InventoryStore.Change change = inventoryStore.update(name, category, subcategory,
+                previous -> updated(previous, name, category, subcategory, quantity));
+
+        await(change.getPosition(), durability);
+
+        return change.getCurrent();
+    }
+
+    @Override
+    @Monitored("upsert-if-match")
+    public InventoryEntity updateQuantityIfMatch(String name, String category, String subcategory, Integer quantity,
+                                                 ItemTag expected) {
+        InventoryStore.Change change = inventoryStore.update(name, category, subcategory,
+                previous -> matches(previous, expected)
+                        ? updated(previous, name, category, subcategory, quantity)
+                        : previous);
+
+        // nothing written means nothing matched
+        if (change.getPosition() == 0)
+            return null;
+
+        inventoryStore.await(change.getPosition());
+
+        return change.getCurrent();
+    }
+
+    @Override
+    @Monitored("adjust")
+    public InventoryEntity incrementQuantity(String name, String category, String subcategory, int delta,
+                                             boolean allowNegative) {
+        // same rules as MongoInventoryRepository: an increment can create the item, a decrement
+        // only applies to an existing item with enough quantity left, unless allowed
+        InventoryStore.Change change = inventoryStore.update(name, category, subcategory, previous -> {
+            if (previous == null)
+                return delta < 0 ? null : updated(null, name, category, subcategory, delta);
+
+            // as long: neither -delta nor the result may overflow
+            long quantity = (long) previous.getQuantity() + delta;
+
+            if (delta < 0 && !allowNegative && quantity < 0
+                    || quantity < Integer.MIN_VALUE || quantity > Integer.MAX_VALUE)
+                return previous;
+
+            return updated(previous, name, category, subcategory, (int) quantity);
+        });
+
+        if (change.getCurrent() == null || change.getPosition() == 0)
+            return null;
+
+        inventoryStore.await(change.getPosition());
+
+        return change.getCurrent();
+    }
+
+    @Override
+    @Monitored("bulk-upsert")
+    public List<QuantityUpdateResult> bulkUpdateQuantity(List<QuantityUpdate> items) {
+        // each item is applied on its own, and all of them are acknowledged with a single wait on the log
+        List<QuantityUpdateResult> results = new ArrayList<>(items.size());
+        long position = 0;
+
+        for (QuantityUpdate item : items) {
+            try {
+                InventoryStore.Change change = inventoryStore.update(item.getName(), item.getCategory(),
+                        item.getSubcategory(), previous -> updated(previous, item.getName(), item.getCategory(),
+                                item.getSubcategory(), item.getQuantity()));
+
+                position = Math.max(position, change.getPosition());
+                results.add(QuantityUpdateResult.of(item, change.getPrevious() == null
+                        ? QuantityUpdateResult.Status.INSERTED
+                        : QuantityUpdateResult.Status.UPDATED));
+            } catch (RuntimeException e) {
+                results.add(QuantityUpdateResult.of(item, QuantityUpdateResult.Status.FAILED, e.getMessage()));
+            }
+        }
+
+        inventoryStore.await(position);
+
+        return results;
+    }
+
+    @Override
+    @Monitored("delete-inventory")
+    public void deleteByName(String name) {
+        deleteByName(name, null);
+    }
+
+    @Override
+    @Monitored("delete-inventory")
+    public void deleteByName(String name, Durability durability) {
+        await(inventoryStore.delete(name), durability);
+    }
+
+    @Override
+    @Monitored("delete-item")
+    public void deleteByNameAndCategoryAndSubcategory(String name, String category, String subcategory) {
+        deleteByNameAndCategoryAndSubcategory(name, category, subcategory, null);
+    }
+
+    @Override
+    @Monitored("delete-item")
+    public void deleteByNameAndCategoryAndSubcategory(String name, String category, String subcategory,
+                                                      Durability durability) {
+        await(inventoryStore.update(name, category, subcategory, previous -> null).getPosition(), durability);
+    }
+
+    @Override
+    @Monitored("delete-item-if-match")
+    public boolean deleteByNameAndCategoryAndSubcategoryIfMatch(String name, String category, String subcategory,
+                                                                ItemTag expected) {
+        InventoryStore.Change change = inventoryStore.update(name, category, subcategory,
+                previous -> matches(previous, expected) ? null : previous);
+
+        if (change.getPosition() == 0)
+            return false;
+
+        inventoryStore.await(change.getPosition());
+
+        return true;
+    }
+
+    private void await(long position, Durability durability) {
+        // there is a single copy, on the local disk: acknowledged means applied in memory (and appended
+        // to the log), the stronger levels and the default wait for the fsync of the log
+        if (durability == Durability.ACCEPTED || durability == Durability.ACKNOWLEDGED)
+            return;
+
+        inventoryStore.await(position);
+    }
+
+    private static boolean matches(InventoryEntity item, ItemTag expected) {
+        if (item == null)
+            return false;
+
+        return expected.isAny()
+                || (item.getId().equals(expected.getId()) && item.getVersion() == expected.getVersion());
+    }
+
+    private static InventoryEntity updated(InventoryEntity previous, String name, String category, String subcategory,
+                                           int quantity) {
+        return InventoryEntity.builder()
+                .id(previous == null ? new ObjectId().toHexString() : previous.getId())
+                .name(name)
+                .category(category)
+                .subcategory(subcategory)
+                .quantity(quantity)
+                .version(previous == null ? 1 : previous.getVersion() + 1)
+                .build();
+    }
+
+}
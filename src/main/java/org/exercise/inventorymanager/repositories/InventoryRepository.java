@@ -1,73 +1,79 @@
 package org.exercise.inventorymanager.repositories;
 
-import lombok.RequiredArgsConstructor;
+import org.exercise.inventorymanager.dto.Durability;
+import org.exercise.inventorymanager.dto.ItemKey;
+import org.exercise.inventorymanager.dto.ItemTag;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
 import org.exercise.inventorymanager.entities.InventoryEntity;
-import org.springframework.data.mongodb.core.FindAndModifyOptions;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.core.query.Update;
-import org.springframework.stereotype.Repository;
+import org.exercise.inventorymanager.entities.InventorySummaryEntity;
+import org.springframework.data.util.CloseableIterator;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-@Repository
-@RequiredArgsConstructor
-public class InventoryRepository {
+// Storage of the inventory items. MongoInventoryRepository by default, InMemoryInventoryRepository
+// with the memory profile. Items are unique per (name, category, subcategory), and listed in
+// (category, subcategory) order wherever an order is needed (pages, streams).
+public interface InventoryRepository {
 
-    private final MongoTemplate mongoTemplate;
+    List<InventoryEntity> findByName(String name);
 
-    public List<InventoryEntity> findByName(String name) {
-        Query query = Query.query(Criteria.where("name").is(name));
+    List<InventoryEntity> findByNameAndCategory(String name, String category);
 
-        return mongoTemplate.find(query, InventoryEntity.class);
-    }
+    // only the given fields are set on the returned items, see InventoryService.FIELDS
+    List<InventoryEntity> findByName(String name, Set<String> fields);
 
-    public List<InventoryEntity> findByNameAndCategory(String name, String category) {
-        Query query = Query.query(Criteria.where("name").is(name)
-                .and("category").is(category));
+    List<InventoryEntity> findByNameAndCategory(String name, String category, Set<String> fields);
 
-        return mongoTemplate.find(query, InventoryEntity.class);
+    InventoryEntity findByNameAndCategoryAndSubcategory(String name, String category, String subcategory);
 
-    }
+    // the items of each inventory, in the order of the names, optionally filtered on category / subcategory
+    Map<String, List<InventoryEntity>> findByNames(Collection<String> names, String category, String subcategory);
 
-    public InventoryEntity findByNameAndCategoryAndSubcategory(String name, String category, String subcategory) {
-        Query query = Query.query(Criteria.where("name").is(name)
-                .and("category").is(category)
-                .and("subcategory").is(subcategory));
+    // the existing items among the keys
+    Map<ItemKey, InventoryEntity> findByKeys(Collection<ItemKey> keys);
 
-        return mongoTemplate.findOne(query, InventoryEntity.class);
-    }
+    // must be closed by the caller
+    CloseableIterator<InventoryEntity> streamByName(String name);
 
-    public InventoryEntity updateQuantity(String name, String category, String subcategory, Integer quantity) {
-        // we take advantage of the unique index on this collection (see InventoryEntity class)
-        // that was we can easily update but also create if it does not exist, using upsert
+    // the items following (afterCategory, afterSubcategory), or the first ones if null
+    List<InventoryEntity> findPageByName(String name, String afterCategory, String afterSubcategory, int limit);
 
-        Query query = Query.query(Criteria.where("name").is(name)
-                .and("category").is(category)
-                .and("subcategory").is(subcategory));
+    // version and update time of an inventory, changing on every write of its items. Null when unknown
+    InventorySummaryEntity findVersionByName(String name);
 
-        Update update = Update.update("quantity", quantity);
+    // creates the item if needed, returns it as written
+    InventoryEntity updateQuantity(String name, String category, String subcategory, Integer quantity);
 
-        FindAndModifyOptions options = FindAndModifyOptions.options()
-                .upsert(true)
-                .returnNew(true);
+    // the same, acknowledged at the given durability instead of the default one, see Durability
+    InventoryEntity updateQuantity(String name, String category, String subcategory, Integer quantity,
+                                   Durability durability);
 
-        return mongoTemplate.findAndModify(query, update, options, InventoryEntity.class);
-    }
+    // null if the item was modified since the expected tag, or does not exist
+    InventoryEntity updateQuantityIfMatch(String name, String category, String subcategory, Integer quantity,
+                                          ItemTag expected);
 
-    public void deleteByName(String name) {
-        Query query = Query.query(Criteria.where("name").is(name));
+    // null if a decrement was refused: the item does not exist, or the quantity would become negative
+    InventoryEntity incrementQuantity(String name, String category, String subcategory, int delta,
+                                      boolean allowNegative);
 
-        mongoTemplate.remove(query, InventoryEntity.class);
-    }
+    // one result per item, in the same order
+    List<QuantityUpdateResult> bulkUpdateQuantity(List<QuantityUpdate> items);
 
-    public void deleteByNameAndCategoryAndSubcategory(String name, String category, String subcategory) {
-        Query query = Query.query(Criteria.where("name").is(name)
-                .and("category").is(category)
-                .and("subcategory").is(subcategory));
+    void deleteByName(String name);
 
-        mongoTemplate.remove(query, InventoryEntity.class);
-    }
+    void deleteByName(String name, Durability durability);
+
+    void deleteByNameAndCategoryAndSubcategory(String name, String category, String subcategory);
+
+    void deleteByNameAndCategoryAndSubcategory(String name, String category, String subcategory,
+                                               Durability durability);
+
+    // false if the item was modified since the expected tag, or does not exist
+    boolean deleteByNameAndCategoryAndSubcategoryIfMatch(String name, String category, String subcategory,
+                                                         ItemTag expected);
 
 }
@@ -0,0 +1,132 @@
+package org.exercise.inventorymanager.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.exercise.inventorymanager.config.MongoConfig;
+import org.exercise.inventorymanager.dto.QuantityTotal;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.metrics.Monitored;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+// Read-only rollups of the inventories, computed by the database so only the results go over the wire
+@Repository
+@Profile("!memory")
+@RequiredArgsConstructor
+public class InventoryStatsRepository {
+
+    // same order as the unique_item_per_inventory index, see InventoryEntity.
+    // Sorting on it after a match on the name lets the database walk the index instead of sorting in memory
+    private static final Sort INDEX_ORDER = Sort.by("name", "category", "subcategory");
+
+    // the largest rollups (across all inventories) may not fit the 100MB limit of a stage
+    private static final AggregationOptions OPTIONS = AggregationOptions.builder().allowDiskUse(true).build();
+
+    private final MongoTemplate mongoTemplate;
+
+    // dashboards can read from secondaries, see MongoConfig
+    @Qualifier(MongoConfig.READ_TEMPLATE)
+    private final MongoTemplate readMongoTemplate;
+
+    @Monitored("totals")
+    public List<QuantityTotal> totals(String name, QuantityTotal.GroupBy groupBy) {
+        return totals(readMongoTemplate, name, groupBy);
+    }
+
+    public List<QuantityTotal> totalsFromPrimary(String name, QuantityTotal.GroupBy groupBy) {
+        // up to date, to rebuild what is derived from the items
+        return totals(mongoTemplate, name, groupBy);
+    }
+
+    private static List<QuantityTotal> totals(MongoTemplate template, String name, QuantityTotal.GroupBy groupBy) {
+        String[] keys = keys(name != null, groupBy);
+
+        List<AggregationOperation> operations = new ArrayList<>();
+
+        // without a name, no index bounds the sort: it would order the whole collection only to group it
+        if (name != null) {
+            operations.add(match(Criteria.where("name").is(name)));
+            operations.add(sort(INDEX_ORDER));
+        }
+
+        operations.add(group(keys).sum("quantity").as("quantity").count().as("items"));
+        operations.add(sort(Sort.by("_id")));
+
+        return template.aggregate(newAggregation(operations).withOptions(OPTIONS),
+                        InventoryEntity.class, Document.class)
+                .getMappedResults().stream()
+                .map(document -> toTotal(document, keys))
+                .collect(Collectors.toList());
+    }
+
+    @Monitored("top-items")
+    public List<InventoryEntity> topItems(String name, int limit) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        if (name != null)
+            operations.add(match(Criteria.where("name").is(name)));
+
+        // sort followed by limit only keeps the top items in memory
+        operations.add(sort(Sort.by(Sort.Direction.DESC, "quantity").and(INDEX_ORDER)));
+        operations.add(limit(limit));
+
+        return readMongoTemplate.aggregate(newAggregation(operations).withOptions(OPTIONS),
+                InventoryEntity.class, InventoryEntity.class).getMappedResults();
+    }
+
+    @Monitored("low-stock")
+    public List<InventoryEntity> lowStockItems(String name, int threshold, int limit) {
+        Criteria criteria = Criteria.where("quantity").lt(threshold);
+        if (name != null)
+            criteria = Criteria.where("name").is(name).and("quantity").lt(threshold);
+
+        Aggregation aggregation = newAggregation(
+                match(criteria),
+                sort(Sort.by("quantity").and(INDEX_ORDER)),
+                limit(limit))
+                .withOptions(OPTIONS);
+
+        return readMongoTemplate.aggregate(aggregation, InventoryEntity.class, InventoryEntity.class)
+                .getMappedResults();
+    }
+
+    private static String[] keys(boolean oneInventory, QuantityTotal.GroupBy groupBy) {
+        switch (groupBy) {
+            case CATEGORY:
+                return oneInventory ? new String[]{"name", "category"} : new String[]{"category"};
+            case SUBCATEGORY:
+                return oneInventory
+                        ? new String[]{"name", "category", "subcategory"}
+                        : new String[]{"category", "subcategory"};
+            default:
+                return new String[]{"name"};
+        }
+    }
+
+    private static QuantityTotal toTotal(Document document, String[] keys) {
+        // grouped by one field, the _id is its value, otherwise a document of the fields
+        Object id = document.get("_id");
+        Document fields = id instanceof Document ? (Document) id : new Document(keys[0], id);
+
+        return QuantityTotal.builder()
+                .name(fields.getString("name"))
+                .category(fields.getString("category"))
+                .subcategory(fields.getString("subcategory"))
+                .quantity(((Number) document.get("quantity")).longValue())
+                .items(((Number) document.get("items")).longValue())
+                .build();
+    }
+
+}
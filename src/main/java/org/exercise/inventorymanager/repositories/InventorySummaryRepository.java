@@ -0,0 +1,302 @@
+package org.exercise.inventorymanager.repositories;
+
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.exercise.inventorymanager.config.MongoConfig;
+import org.exercise.inventorymanager.dto.ItemKey;
+import org.exercise.inventorymanager.dto.QuantityTotal;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.entities.InventorySummaryEntity;
+import org.exercise.inventorymanager.metrics.Monitored;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Slf4j
+@Repository
+@Profile("!memory")
+@RequiredArgsConstructor
+public class InventorySummaryRepository {
+
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    private final MongoConfig mongoConfig;
+    private final MongoTemplate mongoTemplate;
+    private final InventoryStatsRepository inventoryStatsRepository;
+
+    @Monitored("find-summary")
+    public InventorySummaryEntity findByName(String name) {
+        InventorySummaryEntity summary = mongoTemplate.findById(name, InventorySummaryEntity.class);
+
+        if (summary != null && summary.getCategories() != null) {
+            Map<String, InventorySummaryEntity.CategorySummary> categories = new LinkedHashMap<>();
+            summary.getCategories().forEach((key, category) -> categories.put(decode(key), category));
+            summary.setCategories(categories);
+        }
+
+        return summary;
+    }
+
+    public InventorySummaryEntity findVersionByName(String name) {
+        // when items are read from secondaries, a version read from the primary can be newer than the items
+        // sent with it, and the client would keep old items until the next change. No version, no entity tag
+        if (!mongoConfig.isReadFromPrimary())
+            return null;
+
+        // only what an entity tag needs, not the category subtotals
+        Query query = queryByName(name);
+        query.fields().include("version", "updatedAt");
+
+        return mongoTemplate.findOne(query, InventorySummaryEntity.class);
+    }
+
+    public void apply(String name, String category, long items, long quantity) {
+        Update update = increment(category, items, quantity);
+
+        if (update != null)
+            mongoTemplate.upsert(queryByName(name), update, InventorySummaryEntity.class);
+    }
+
+    // the deltas of several categories of an inventory at once, see apply
+    public void apply(String name, Map<String, InventorySummaryEntity.CategorySummary> categories) {
+        Update update = increment(categories);
+
+        if (update != null)
+            mongoTemplate.upsert(queryByName(name), update, InventorySummaryEntity.class);
+    }
+
+    public void deleteByName(String name) {
+        mongoTemplate.remove(queryByName(name), InventorySummaryEntity.class);
+    }
+
+    // once its items were removed with deltas, the summary of an inventory that has none left
+    public void deleteIfEmpty(String name) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(name).and("items").lte(0)),
+                InventorySummaryEntity.class);
+    }
+
+    @Monitored("rebuild-summary")
+    public void rebuild(String name) {
+        // Recomputed from the items, repairs any drift of the incremental updates. Every $inc bumps the version,
+        // so the totals are only written if the version read before the aggregation did not change meanwhile:
+        // a write landing in between is retried instead of being overwritten. A write whose $inc is still on its
+        // way once its item was aggregated is counted twice until the next rebuild, so it is a repair, run on the
+        // rebuild interval and by the rebuild endpoints, never on the write path
+        for (int attempt = 1; attempt <= REBUILD_ATTEMPTS; attempt++) {
+            if (rebuild(name, findVersionFromPrimary(name)))
+                return;
+        }
+
+        log.warn("Summary of {} kept changing, left to the next rebuild", name);
+    }
+
+    // false if the summary changed since its version was read
+    private boolean rebuild(String name, Long version) {
+        List<QuantityTotal> totals = inventoryStatsRepository.totalsFromPrimary(name, QuantityTotal.GroupBy.CATEGORY);
+        Criteria unchanged = Criteria.where("_id").is(name).and("version");
+        Query query = Query.query(version == null ? unchanged.exists(false) : unchanged.is(version));
+
+        if (totals.isEmpty())
+            return version == null || mongoTemplate.remove(query, InventorySummaryEntity.class).getDeletedCount() > 0;
+
+        Document categories = new Document();
+        long items = 0;
+        long quantity = 0;
+
+        for (QuantityTotal total : totals) {
+            categories.put(encode(total.getCategory()), new Document("items", total.getItems())
+                    .append("quantity", total.getQuantity()));
+            items += total.getItems();
+            quantity += total.getQuantity();
+        }
+
+        Update update = Update.update("items", items)
+                .set("quantity", quantity)
+                .set("categories", categories)
+                .inc("version", 1)
+                .currentDate("updatedAt");
+
+        try {
+            UpdateResult result = mongoTemplate.upsert(query, update, InventorySummaryEntity.class);
+            return result.getMatchedCount() > 0 || result.getUpsertedId() != null;
+        } catch (DuplicateKeyException e) {
+            // no match on the version, the upsert collided with the summary of the same name
+            return false;
+        }
+    }
+
+    // null when there is no summary yet, read from the primary like the totals
+    private Long findVersionFromPrimary(String name) {
+        Query query = queryByName(name);
+        query.fields().include("version");
+
+        InventorySummaryEntity summary = mongoTemplate.findOne(query, InventorySummaryEntity.class);
+        return summary == null ? null : summary.getVersion();
+    }
+
+    @Monitored("rebuild-summaries")
+    public int rebuildAll() {
+        Set<String> names = new HashSet<>(
+                mongoTemplate.findDistinct(new Query(), "name", InventoryEntity.class, String.class));
+
+        for (String name : names)
+            rebuild(name);
+
+        // summaries of inventories deleted behind our back
+        List<String> orphans = new ArrayList<>();
+        Query query = new Query();
+        query.fields().include("_id");
+
+        try (Stream<InventorySummaryEntity> summaries = mongoTemplate.stream(query, InventorySummaryEntity.class)) {
+            summaries.forEach(summary -> {
+                if (!names.contains(summary.getName()))
+                    orphans.add(summary.getName());
+            });
+        }
+
+        if (!orphans.isEmpty())
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(orphans)), InventorySummaryEntity.class);
+
+        return names.size();
+    }
+
+    // $inc deltas, so concurrent writes to the same inventory add up without reading the summary. Null when
+    // nothing changes. Shared with ReactiveInventoryRepository, which applies them with the reactive template
+    static Update increment(String category, long items, long quantity) {
+        if (items == 0 && quantity == 0)
+            return null;
+
+        return increment(Map.of(category, new InventorySummaryEntity.CategorySummary(items, quantity)));
+    }
+
+    static Update increment(Map<String, InventorySummaryEntity.CategorySummary> categories) {
+        Update update = new Update();
+        long items = 0;
+        long quantity = 0;
+
+        for (Map.Entry<String, InventorySummaryEntity.CategorySummary> category : categories.entrySet()) {
+            InventorySummaryEntity.CategorySummary delta = category.getValue();
+
+            if (delta.getItems() == 0 && delta.getQuantity() == 0)
+                continue;
+
+            update.inc("categories." + encode(category.getKey()) + ".items", delta.getItems())
+                    .inc("categories." + encode(category.getKey()) + ".quantity", delta.getQuantity());
+            items += delta.getItems();
+            quantity += delta.getQuantity();
+        }
+
+        if (update.getUpdateObject().isEmpty())
+            return null;
+
+        return update.inc("items", items)
+                .inc("quantity", quantity)
+                .inc("version", 1)
+                .currentDate("updatedAt");
+    }
+
+    // the deltas of a bulk write per inventory and category, from the items read before it. An item given twice
+    // counts from its first write to its last, in the order of the results: see BulkResults.lastPerItem
+    static Map<String, Map<String, InventorySummaryEntity.CategorySummary>> deltas(
+            List<QuantityUpdateResult> results, Map<ItemKey, InventoryEntity> previous) {
+        Map<String, Map<String, InventorySummaryEntity.CategorySummary>> deltas = new HashMap<>();
+
+        for (QuantityUpdateResult result : results) {
+            if (result.getStatus() == QuantityUpdateResult.Status.FAILED)
+                continue;
+
+            QuantityUpdate item = result.getItem();
+            ItemKey key = new ItemKey(item.getName(), item.getCategory(), item.getSubcategory());
+            InventoryEntity current = InventoryEntity.builder()
+                    .name(item.getName())
+                    .category(item.getCategory())
+                    .subcategory(item.getSubcategory())
+                    .quantity(item.getQuantity())
+                    .build();
+            InventoryEntity before = previous.put(key, current);
+
+            InventorySummaryEntity.CategorySummary delta = deltas
+                    .computeIfAbsent(item.getName(), name -> new HashMap<>())
+                    .computeIfAbsent(item.getCategory(), category -> new InventorySummaryEntity.CategorySummary());
+            delta.setItems(delta.getItems() + (before == null ? 1 : 0));
+            delta.setQuantity(delta.getQuantity() + quantityOf(current) - quantityOf(before));
+        }
+
+        return deltas;
+    }
+
+    static long quantityOf(InventoryEntity entity) {
+        return entity == null || entity.getQuantity() == null ? 0 : entity.getQuantity();
+    }
+
+    // Categories are keys of the categories subdocument, and part of the paths of the $inc: a "." would nest
+    // the document and a leading "$" fail the update, after the write of the item. Both are escaped, like %
+    static String encode(String category) {
+        StringBuilder key = null;
+
+        for (int i = 0; i < category.length(); i++) {
+            char c = category.charAt(i);
+
+            if (c != '%' && c != '.' && c != '$') {
+                if (key != null)
+                    key.append(c);
+                continue;
+            }
+
+            if (key == null)
+                key = new StringBuilder(category.length() + 8).append(category, 0, i);
+
+            key.append(c == '%' ? "%25" : c == '.' ? "%2E" : "%24");
+        }
+
+        return key == null ? category : key.toString();
+    }
+
+    static String decode(String key) {
+        if (key.indexOf('%') < 0)
+            return key;
+
+        StringBuilder category = new StringBuilder(key.length());
+
+        for (int i = 0; i < key.length(); i++) {
+            String escape = key.startsWith("%", i) && i + 3 <= key.length() ? key.substring(i, i + 3) : null;
+
+            if ("%25".equals(escape))
+                category.append('%');
+            else if ("%2E".equals(escape))
+                category.append('.');
+            else if ("%24".equals(escape))
+                category.append('$');
+            else {
+                category.append(key.charAt(i));
+                continue;
+            }
+
+            i += 2;
+        }
+
+        return category.toString();
+    }
+
+    static Query queryByName(String name) {
+        return Query.query(Criteria.where("_id").is(name));
+    }
+
+}
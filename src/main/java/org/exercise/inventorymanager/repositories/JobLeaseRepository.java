@@ -0,0 +1,48 @@
+package org.exercise.inventorymanager.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.exercise.inventorymanager.entities.JobLeaseEntity;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Periodic jobs run by a single node, like the delete jobs (see DeleteJobRepository.claim): the lease is taken
+// when it is free or expired, and renewed by its owner. Another node takes over once the owner stopped renewing it
+@Repository
+@Profile("!memory")
+@RequiredArgsConstructor
+public class JobLeaseRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    // false if another node holds the lease
+    public boolean acquire(String job, String owner, Duration lease) {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("_id").is(job)
+                .orOperator(Criteria.where("owner").is(owner),
+                        Criteria.where("lockedUntil").is(null),
+                        Criteria.where("lockedUntil").lt(now)));
+
+        Update update = Update.update("owner", owner)
+                .set("lockedUntil", now.plus(lease))
+                .set("updatedAt", now);
+
+        try {
+            // the first node creates the lease
+            return mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), JobLeaseEntity.class) != null;
+        } catch (DuplicateKeyException e) {
+            // the lease exists, and is held by another node
+            return false;
+        }
+    }
+
+}
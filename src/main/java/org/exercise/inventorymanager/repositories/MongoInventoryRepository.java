@@ -0,0 +1,567 @@
+package org.exercise.inventorymanager.repositories;
+
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.exercise.inventorymanager.cache.InventoryCache;
+import org.exercise.inventorymanager.config.MongoConfig;
+import org.exercise.inventorymanager.dto.Durability;
+import org.exercise.inventorymanager.dto.ItemKey;
+import org.exercise.inventorymanager.dto.ItemTag;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.entities.InventorySummaryEntity;
+import org.exercise.inventorymanager.metrics.Monitored;
+import org.exercise.inventorymanager.storage.ItemTable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Repository
+@Profile("!memory")
+@RequiredArgsConstructor
+public class MongoInventoryRepository implements InventoryRepository {
+
+    // same order as the unique_item_per_inventory index, see InventoryEntity
+    private static final Sort INDEX_ORDER = Sort.by("category", "subcategory");
+
+    private final MongoTemplate mongoTemplate;
+
+    // reads that are not cached, they may go to secondaries, see MongoConfig
+    @Qualifier(MongoConfig.READ_TEMPLATE)
+    private final MongoTemplate readMongoTemplate;
+
+    @Qualifier(MongoConfig.BULK_TEMPLATE)
+    private final MongoTemplate bulkMongoTemplate;
+    private final InventoryCache inventoryCache;
+    private final InventorySummaryRepository inventorySummaryRepository;
+
+    // one template per durability asked for, created on first use, see template
+    private final Map<Durability, MongoTemplate> durableTemplates = new ConcurrentHashMap<>();
+
+    @Override
+    @Monitored("find-by-name")
+    public List<InventoryEntity> findByName(String name) {
+        if (inventoryCache.isEnabled())
+            return inventoryCache.get(name, this::queryByName).list(name, null);
+
+        return queryByName(name);
+    }
+
+    @Override
+    @Monitored("find-by-category")
+    public List<InventoryEntity> findByNameAndCategory(String name, String category) {
+        // with the cache, the whole inventory is loaded once and filtered in memory
+        if (inventoryCache.isEnabled())
+            return inventoryCache.get(name, this::queryByName).list(name, category, null);
+
+        Query query = Query.query(Criteria.where("name").is(name)
+                .and("category").is(category));
+
+        return readMongoTemplate.find(query, InventoryEntity.class);
+
+    }
+
+    @Override
+    @Monitored("find-by-name")
+    public List<InventoryEntity> findByName(String name, Set<String> fields) {
+        // only the selected fields are read from the database, and decoded
+        if (inventoryCache.isEnabled())
+            return inventoryCache.get(name, this::queryByName).list(name, fields);
+
+        return readMongoTemplate.find(project(Query.query(Criteria.where("name").is(name)), fields),
+                InventoryEntity.class);
+    }
+
+    @Override
+    @Monitored("find-by-category")
+    public List<InventoryEntity> findByNameAndCategory(String name, String category, Set<String> fields) {
+        if (inventoryCache.isEnabled())
+            return inventoryCache.get(name, this::queryByName).list(name, category, fields);
+
+        Query query = Query.query(Criteria.where("name").is(name)
+                .and("category").is(category));
+
+        return readMongoTemplate.find(project(query, fields), InventoryEntity.class);
+    }
+
+    @Override
+    @Monitored("find-one")
+    public InventoryEntity findByNameAndCategoryAndSubcategory(String name, String category, String subcategory) {
+        if (inventoryCache.isEnabled())
+            return inventoryCache.get(name, this::queryByName).get(name, category, subcategory);
+
+        Query query = Query.query(Criteria.where("name").is(name)
+                .and("category").is(category)
+                .and("subcategory").is(subcategory));
+
+        return readMongoTemplate.findOne(query, InventoryEntity.class);
+    }
+
+    @Override
+    @Monitored("find-by-names")
+    public Map<String, List<InventoryEntity>> findByNames(Collection<String> names, String category,
+                                                          String subcategory) {
+        // the items of several inventories, in the order of the names, optionally filtered on category / subcategory
+        Map<String, List<InventoryEntity>> inventories = new LinkedHashMap<>();
+        names.forEach(name -> inventories.put(name, new ArrayList<>()));
+
+        // cached inventories are filtered in memory, all the others are read with a single $in query
+        Map<String, ItemTable> cached = inventoryCache.getAllPresent(names);
+        cached.forEach((name, items) -> (category == null ? items.list(name, null) : items.list(name, category, null))
+                .stream()
+                .filter(item -> subcategory == null || subcategory.equals(item.getSubcategory()))
+                .forEach(inventories.get(name)::add));
+
+        List<String> missing = names.stream()
+                .filter(name -> !cached.containsKey(name))
+                .collect(Collectors.toList());
+
+        if (missing.isEmpty())
+            return inventories;
+
+        Criteria criteria = Criteria.where("name").in(missing);
+        if (category != null)
+            criteria.and("category").is(category);
+        if (subcategory != null)
+            criteria.and("subcategory").is(subcategory);
+
+        Query query = Query.query(criteria)
+                .with(Sort.by("name").and(INDEX_ORDER));
+
+        for (InventoryEntity item : readMongoTemplate.find(query, InventoryEntity.class))
+            inventories.get(item.getName()).add(item);
+
+        return inventories;
+    }
+
+    @Override
+    @Monitored("find-by-keys")
+    public Map<ItemKey, InventoryEntity> findByKeys(Collection<ItemKey> keys) {
+        // N point lookups in one round trip: a $or of exact keys, each branch is an equality match on the index
+        Map<ItemKey, InventoryEntity> items = new HashMap<>();
+        Map<String, ItemTable> cached = inventoryCache.getAllPresent(keys.stream()
+                .map(ItemKey::getName)
+                .collect(Collectors.toSet()));
+
+        List<Criteria> missing = new ArrayList<>();
+
+        for (ItemKey key : keys) {
+            ItemTable inventory = cached.get(key.getName());
+
+            if (inventory == null) {
+                missing.add(Criteria.where("name").is(key.getName())
+                        .and("category").is(key.getCategory())
+                        .and("subcategory").is(key.getSubcategory()));
+                continue;
+            }
+
+            InventoryEntity item = inventory.get(key.getName(), key.getCategory(), key.getSubcategory());
+
+            if (item != null)
+                items.put(key, item);
+        }
+
+        if (missing.isEmpty())
+            return items;
+
+        Query query = Query.query(new Criteria().orOperator(missing.toArray(new Criteria[0])));
+
+        for (InventoryEntity item : readMongoTemplate.find(query, InventoryEntity.class))
+            items.put(new ItemKey(item.getName(), item.getCategory(), item.getSubcategory()), item);
+
+        return items;
+    }
+
+    @Override
+    public CloseableIterator<InventoryEntity> streamByName(String name) {
+        // reads through a cursor instead of building a list, bypassing the cache on purpose
+        Query query = Query.query(Criteria.where("name").is(name))
+                .with(INDEX_ORDER);
+
+        Stream<InventoryEntity> items = readMongoTemplate.stream(query, InventoryEntity.class);
+        Iterator<InventoryEntity> iterator = items.iterator();
+
+        // closing it closes the cursor
+        return new CloseableIterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public InventoryEntity next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+                items.close();
+            }
+        };
+    }
+
+    @Override
+    @Monitored("find-page")
+    public List<InventoryEntity> findPageByName(String name, String afterCategory, String afterSubcategory, int limit) {
+        // keyset pagination: resumes right after the last (category, subcategory) returned,
+        // which is a range scan on the unique index, whatever the page number
+        Criteria criteria = Criteria.where("name").is(name);
+
+        if (afterCategory != null)
+            criteria.orOperator(
+                    Criteria.where("category").gt(afterCategory),
+                    Criteria.where("category").is(afterCategory).and("subcategory").gt(afterSubcategory));
+
+        Query query = Query.query(criteria)
+                .with(INDEX_ORDER)
+                .limit(limit);
+
+        return readMongoTemplate.find(query, InventoryEntity.class);
+    }
+
+    @Override
+    public InventorySummaryEntity findVersionByName(String name) {
+        return inventorySummaryRepository.findVersionByName(name);
+    }
+
+    @Override
+    @Monitored("upsert")
+    public InventoryEntity updateQuantity(String name, String category, String subcategory, Integer quantity) {
+        return updateQuantity(name, category, subcategory, quantity, null);
+    }
+
+    @Override
+    @Monitored("upsert")
+    public InventoryEntity updateQuantity(String name, String category, String subcategory, Integer quantity,
+                                          Durability durability) {
+        // we take advantage of the unique index on this collection (see InventoryEntity class)
+        // that was we can easily update but also create if it does not exist, using upsert
+
+        Query query = Query.query(Criteria.where("name").is(name)
+                .and("category").is(category)
+                .and("subcategory").is(subcategory));
+
+        return setQuantity(template(durability), query, name, category, subcategory, quantity, true);
+    }
+
+    @Override
+    @Monitored("upsert-if-match")
+    public InventoryEntity updateQuantityIfMatch(String name, String category, String subcategory, Integer quantity,
+                                                 ItemTag expected) {
+        // optimistic concurrency: only updates the item if it was not modified since the client read it,
+        // checked in the filter so atomically. Returns null if it was (or does not exist)
+        return setQuantity(mongoTemplate, Query.query(matching(name, category, subcategory, expected)),
+                name, category, subcategory, quantity, false);
+    }
+
+    @Override
+    @Monitored("adjust")
+    public InventoryEntity incrementQuantity(String name, String category, String subcategory, int delta,
+                                             boolean allowNegative) {
+        // atomic $inc on the server, no read-modify-write on the client.
+        // An increment can create the item (upsert), a decrement only applies to an existing item,
+        // and unless allowed, only if there is enough quantity left (checked in the filter, so atomically)
+        Criteria criteria = Criteria.where("name").is(name)
+                .and("category").is(category)
+                .and("subcategory").is(subcategory);
+
+        // compared as long: -delta overflows for Integer.MIN_VALUE. The result must stay an int, the server would
+        // silently turn the field into a long
+        if (delta < 0 && !allowNegative)
+            criteria.and("quantity").gte(-(long) delta);
+        else if (delta < 0)
+            criteria.and("quantity").gte(Integer.MIN_VALUE - delta);
+        else
+            criteria.and("quantity").lte(Integer.MAX_VALUE - delta);
+
+        ObjectId id = new ObjectId();
+        Update update = new Update().inc("quantity", delta)
+                .inc("version", 1)
+                .setOnInsert("_id", id);
+
+        FindAndModifyOptions options = FindAndModifyOptions.options()
+                .upsert(delta >= 0)
+                .returnNew(false);
+
+        InventoryEntity previous;
+        boolean upserted;
+
+        try {
+            previous = mongoTemplate.findAndModify(Query.query(criteria), update, options, InventoryEntity.class);
+            upserted = previous == null && delta >= 0;
+        } catch (DuplicateKeyException e) {
+            // two upserts of a new item raced on the unique index, or the item exists but the increment would
+            // overflow its quantity: either way, only a plain update is left to try
+            previous = mongoTemplate.findAndModify(Query.query(criteria), update,
+                    FindAndModifyOptions.options().returnNew(false), InventoryEntity.class);
+            upserted = false;
+        }
+
+        inventoryCache.invalidate(name);
+
+        // without upsert, no pre-image means nothing matched, so nothing changed
+        if (previous == null && !upserted)
+            return null;
+
+        int quantity = (previous == null || previous.getQuantity() == null ? 0 : previous.getQuantity()) + delta;
+        InventoryEntity entity = updated(previous, id, name, category, subcategory, quantity);
+        summarize(previous, entity);
+
+        return entity;
+    }
+
+    @Override
+    @Monitored("bulk-upsert")
+    public List<QuantityUpdateResult> bulkUpdateQuantity(List<QuantityUpdate> items) {
+        // same upsert as updateQuantity, but sent in a single unordered bulkWrite:
+        // one round trip for the whole list, and a failing entry does not stop the others
+        if (items.isEmpty())
+            return List.of();
+
+        // a bulkWrite returns no pre-images: the items are read beforehand, in one query, so that the summaries
+        // get $inc deltas like single writes do. A write landing in between skews them until the next rebuild
+        Map<ItemKey, InventoryEntity> previous = preImages(items);
+
+        List<QuantityUpdate> writes = BulkResults.lastPerItem(items);
+        BulkOperations bulkOperations = bulkMongoTemplate
+                .bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryEntity.class);
+
+        for (QuantityUpdate item : writes) {
+            Query query = Query.query(Criteria.where("name").is(item.getName())
+                    .and("category").is(item.getCategory())
+                    .and("subcategory").is(item.getSubcategory()));
+
+            bulkOperations.upsert(query, Update.update("quantity", item.getQuantity()).inc("version", 1));
+        }
+
+        BulkWriteResult result;
+        List<BulkWriteError> errors = List.of();
+
+        try {
+            result = bulkOperations.execute();
+        } catch (BulkOperationException e) {
+            result = e.getResult();
+            errors = e.getErrors();
+        } finally {
+            inventoryCache.invalidateAll(items.stream()
+                    .map(QuantityUpdate::getName)
+                    .collect(Collectors.toSet()));
+        }
+
+        List<QuantityUpdateResult> results = BulkResults.of(writes, result.getUpserts(), errors);
+
+        // one $inc per inventory for the whole chunk, each item was written once
+        InventorySummaryRepository.deltas(results, previous).forEach(inventorySummaryRepository::apply);
+
+        return BulkResults.perItem(items, results);
+    }
+
+    @Override
+    @Monitored("delete-inventory")
+    public void deleteByName(String name) {
+        deleteByName(name, null);
+    }
+
+    @Override
+    @Monitored("delete-inventory")
+    public void deleteByName(String name, Durability durability) {
+        Query query = Query.query(Criteria.where("name").is(name));
+
+        template(durability).remove(query, InventoryEntity.class);
+        inventoryCache.invalidate(name);
+        inventorySummaryRepository.deleteByName(name);
+    }
+
+    @Override
+    @Monitored("delete-item")
+    public void deleteByNameAndCategoryAndSubcategory(String name, String category, String subcategory) {
+        deleteByNameAndCategoryAndSubcategory(name, category, subcategory, null);
+    }
+
+    @Override
+    @Monitored("delete-item")
+    public void deleteByNameAndCategoryAndSubcategory(String name, String category, String subcategory,
+                                                      Durability durability) {
+        Query query = Query.query(Criteria.where("name").is(name)
+                .and("category").is(category)
+                .and("subcategory").is(subcategory));
+
+        InventoryEntity previous = template(durability).findAndRemove(query, InventoryEntity.class);
+        inventoryCache.invalidate(name);
+        summarize(previous, null);
+    }
+
+    @Override
+    @Monitored("delete-item-if-match")
+    public boolean deleteByNameAndCategoryAndSubcategoryIfMatch(String name, String category, String subcategory,
+                                                                ItemTag expected) {
+        InventoryEntity previous = mongoTemplate.findAndRemove(
+                Query.query(matching(name, category, subcategory, expected)), InventoryEntity.class);
+
+        if (previous == null)
+            return false;
+
+        inventoryCache.invalidate(name);
+        summarize(previous, null);
+
+        return true;
+    }
+
+    private InventoryEntity setQuantity(MongoTemplate template, Query query, String name, String category,
+                                        String subcategory, Integer quantity, boolean upsert) {
+        // the id is chosen here, so we know it even though the pre-image is returned
+        ObjectId id = new ObjectId();
+        Update update = Update.update("quantity", quantity)
+                .inc("version", 1)
+                .setOnInsert("_id", id);
+
+        // returns the pre-image, the summary of the inventory is updated from the difference
+        FindAndModifyOptions options = FindAndModifyOptions.options()
+                .upsert(upsert)
+                .returnNew(false);
+
+        InventoryEntity previous = template.findAndModify(query, update, options, InventoryEntity.class);
+
+        // without upsert, no pre-image means nothing matched, so nothing changed
+        if (previous == null && !upsert)
+            return null;
+
+        inventoryCache.invalidate(name);
+
+        InventoryEntity entity = updated(previous, id, name, category, subcategory, quantity);
+        summarize(previous, entity);
+
+        return entity;
+    }
+
+    private MongoTemplate template(Durability durability) {
+        // without durability, the default write concern of the client, see MongoConfig
+        if (durability == null)
+            return mongoTemplate;
+
+        return durableTemplates.computeIfAbsent(durability, key -> {
+            MongoTemplate template = new MongoTemplate(mongoTemplate.getMongoDatabaseFactory(),
+                    mongoTemplate.getConverter());
+            template.setWriteConcern(writeConcern(key));
+            return template;
+        });
+    }
+
+    private static WriteConcern writeConcern(Durability durability) {
+        switch (durability) {
+            case MAJORITY:
+                return WriteConcern.MAJORITY;
+            case JOURNALED:
+                return WriteConcern.JOURNALED;
+            default:
+                // an accepted write is written later by AsyncWriteQueue, which still wants to know if it failed
+                return WriteConcern.ACKNOWLEDGED;
+        }
+    }
+
+    private static Criteria matching(String name, String category, String subcategory, ItemTag expected) {
+        Criteria criteria = Criteria.where("name").is(name)
+                .and("category").is(category)
+                .and("subcategory").is(subcategory);
+
+        if (expected.isAny())
+            return criteria;
+
+        // items written before versions existed have none, their tag has version 0
+        return criteria.and("id").is(expected.getId())
+                .and("version").in(expected.getVersion() == 0
+                        ? Arrays.asList(0L, null)
+                        : List.of(expected.getVersion()));
+    }
+
+    private static Query project(Query query, Set<String> fields) {
+        // the id is never serialized, no need to read it either
+        query.fields()
+                .include(fields.toArray(new String[0]))
+                .exclude("_id");
+
+        return query;
+    }
+
+    static InventoryEntity updated(InventoryEntity previous, ObjectId id, String name, String category,
+                                           String subcategory, Integer quantity) {
+        return InventoryEntity.builder()
+                .id(previous == null ? id.toHexString() : previous.getId())
+                .name(name)
+                .category(category)
+                .subcategory(subcategory)
+                .quantity(quantity)
+                .version(previous == null || previous.getVersion() == null ? 1 : previous.getVersion() + 1)
+                .build();
+    }
+
+    private void summarize(InventoryEntity previous, InventoryEntity current) {
+        // $inc deltas between the pre-image and the new state of an item, see InventorySummaryRepository
+        InventoryEntity item = current != null ? current : previous;
+
+        if (item == null)
+            return;
+
+        long items = (current != null ? 1 : 0) - (previous != null ? 1 : 0);
+        long quantity = InventorySummaryRepository.quantityOf(current)
+                - InventorySummaryRepository.quantityOf(previous);
+
+        inventorySummaryRepository.apply(item.getName(), item.getCategory(), items, quantity);
+    }
+
+    private Map<ItemKey, InventoryEntity> preImages(List<QuantityUpdate> items) {
+        // from the primary, only what the summaries need
+        Criteria[] keys = items.stream()
+                .map(item -> Criteria.where("name").is(item.getName())
+                        .and("category").is(item.getCategory())
+                        .and("subcategory").is(item.getSubcategory()))
+                .toArray(Criteria[]::new);
+
+        Query query = Query.query(new Criteria().orOperator(keys));
+        query.fields().include("name", "category", "subcategory", "quantity");
+
+        Map<ItemKey, InventoryEntity> previous = new HashMap<>();
+        for (InventoryEntity item : mongoTemplate.find(query, InventoryEntity.class))
+            previous.put(new ItemKey(item.getName(), item.getCategory(), item.getSubcategory()), item);
+
+        return previous;
+    }
+
+    private List<InventoryEntity> queryByName(String name) {
+        Query query = Query.query(Criteria.where("name").is(name));
+
+        // the cache is loaded from the primary: right after a write invalidated it, a lagging
+        // secondary would put the previous items back in the cache until they expire
+        MongoTemplate template = inventoryCache.isEnabled() ? mongoTemplate : readMongoTemplate;
+
+        return template.find(query, InventoryEntity.class);
+    }
+
+}
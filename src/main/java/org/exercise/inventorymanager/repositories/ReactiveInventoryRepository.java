@@ -0,0 +1,196 @@
+package org.exercise.inventorymanager.repositories;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.exercise.inventorymanager.dto.ItemKey;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.entities.InventorySummaryEntity;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Profile("reactive")
+@Repository
+@RequiredArgsConstructor
+public class ReactiveInventoryRepository {
+
+    // same order as the unique_item_per_inventory index, see InventoryEntity
+    private static final Sort INDEX_ORDER = Sort.by("category", "subcategory");
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public Flux<InventoryEntity> findByName(String name) {
+        Query query = Query.query(Criteria.where("name").is(name));
+
+        return reactiveMongoTemplate.find(query, InventoryEntity.class);
+    }
+
+    public Flux<InventoryEntity> findByNameAndCategory(String name, String category) {
+        Query query = Query.query(Criteria.where("name").is(name)
+                .and("category").is(category));
+
+        return reactiveMongoTemplate.find(query, InventoryEntity.class);
+    }
+
+    public Mono<InventoryEntity> findByNameAndCategoryAndSubcategory(String name, String category, String subcategory) {
+        Query query = Query.query(Criteria.where("name").is(name)
+                .and("category").is(category)
+                .and("subcategory").is(subcategory));
+
+        return reactiveMongoTemplate.findOne(query, InventoryEntity.class);
+    }
+
+    public Flux<InventoryEntity> findPageByName(String name, String afterCategory, String afterSubcategory, int limit) {
+        // see InventoryRepository.findPageByName
+        Criteria criteria = Criteria.where("name").is(name);
+
+        if (afterCategory != null)
+            criteria.orOperator(
+                    Criteria.where("category").gt(afterCategory),
+                    Criteria.where("category").is(afterCategory).and("subcategory").gt(afterSubcategory));
+
+        Query query = Query.query(criteria)
+                .with(INDEX_ORDER)
+                .limit(limit);
+
+        return reactiveMongoTemplate.find(query, InventoryEntity.class);
+    }
+
+    public Mono<InventoryEntity> updateQuantity(String name, String category, String subcategory, Integer quantity) {
+        // upsert relying on the unique index, see InventoryRepository.updateQuantity. Like MongoInventoryRepository,
+        // the pre-image is returned and the summary of the inventory updated from the difference
+        Query query = Query.query(Criteria.where("name").is(name)
+                .and("category").is(category)
+                .and("subcategory").is(subcategory));
+
+        ObjectId id = new ObjectId();
+        Update update = Update.update("quantity", quantity)
+                .inc("version", 1)
+                .setOnInsert("_id", id);
+
+        FindAndModifyOptions options = FindAndModifyOptions.options()
+                .upsert(true)
+                .returnNew(false);
+
+        return reactiveMongoTemplate.findAndModify(query, update, options, InventoryEntity.class)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(previous -> {
+                    InventoryEntity entity = MongoInventoryRepository.updated(previous.orElse(null), id, name,
+                            category, subcategory, quantity);
+
+                    return summarize(previous.orElse(null), entity).thenReturn(entity);
+                });
+    }
+
+    public Mono<List<QuantityUpdateResult>> bulkUpdateQuantity(List<QuantityUpdate> items) {
+        // the reactive template has no BulkOperations, so the bulkWrite goes through the driver directly
+        if (items.isEmpty())
+            return Mono.just(List.of());
+
+        List<QuantityUpdate> lastPerItem = BulkResults.lastPerItem(items);
+        List<WriteModel<Document>> writes = new ArrayList<>(lastPerItem.size());
+        for (QuantityUpdate item : lastPerItem)
+            writes.add(new UpdateOneModel<>(
+                    Filters.and(
+                            Filters.eq("name", item.getName()),
+                            Filters.eq("category", item.getCategory()),
+                            Filters.eq("subcategory", item.getSubcategory())),
+                    Updates.combine(
+                            Updates.set("quantity", item.getQuantity()),
+                            Updates.inc("version", 1)),
+                    new UpdateOptions().upsert(true)));
+
+        // the items are read first, for the summary deltas, see MongoInventoryRepository.bulkUpdateQuantity
+        return preImages(items).flatMap(previous -> reactiveMongoTemplate
+                .getCollection(reactiveMongoTemplate.getCollectionName(InventoryEntity.class))
+                .flatMap(collection -> Mono.from(collection.bulkWrite(writes, new BulkWriteOptions().ordered(false))))
+                .map(result -> BulkResults.of(lastPerItem, result.getUpserts(), List.of()))
+                .onErrorResume(MongoBulkWriteException.class, e -> Mono.just(
+                        BulkResults.of(lastPerItem, e.getWriteResult().getUpserts(), e.getWriteErrors())))
+                .flatMap(results -> Flux.fromIterable(InventorySummaryRepository.deltas(results, previous).entrySet())
+                        .concatMap(delta -> apply(delta.getKey(),
+                                InventorySummaryRepository.increment(delta.getValue())))
+                        .then(Mono.fromSupplier(() -> BulkResults.perItem(items, results)))));
+    }
+
+    public Mono<Void> deleteByName(String name) {
+        Query query = Query.query(Criteria.where("name").is(name));
+
+        return reactiveMongoTemplate.remove(query, InventoryEntity.class)
+                .then(reactiveMongoTemplate.remove(InventorySummaryRepository.queryByName(name),
+                        InventorySummaryEntity.class))
+                .then();
+    }
+
+    public Mono<Void> deleteByNameAndCategoryAndSubcategory(String name, String category, String subcategory) {
+        Query query = Query.query(Criteria.where("name").is(name)
+                .and("category").is(category)
+                .and("subcategory").is(subcategory));
+
+        return reactiveMongoTemplate.findAndRemove(query, InventoryEntity.class)
+                .flatMap(previous -> summarize(previous, null));
+    }
+
+    private Mono<Map<ItemKey, InventoryEntity>> preImages(List<QuantityUpdate> items) {
+        // from the primary, only what the summaries need
+        Criteria[] keys = items.stream()
+                .map(item -> Criteria.where("name").is(item.getName())
+                        .and("category").is(item.getCategory())
+                        .and("subcategory").is(item.getSubcategory()))
+                .toArray(Criteria[]::new);
+
+        Query query = Query.query(new Criteria().orOperator(keys));
+        query.fields().include("name", "category", "subcategory", "quantity");
+
+        return reactiveMongoTemplate.find(query, InventoryEntity.class)
+                .collectMap(item -> new ItemKey(item.getName(), item.getCategory(), item.getSubcategory()),
+                        item -> item, HashMap::new);
+    }
+
+    private Mono<Void> summarize(InventoryEntity previous, InventoryEntity current) {
+        // $inc deltas between the pre-image and the new state of an item, see InventorySummaryRepository
+        InventoryEntity item = current != null ? current : previous;
+
+        if (item == null)
+            return Mono.empty();
+
+        long items = (current != null ? 1 : 0) - (previous != null ? 1 : 0);
+        long quantity = InventorySummaryRepository.quantityOf(current)
+                - InventorySummaryRepository.quantityOf(previous);
+
+        return apply(item.getName(), InventorySummaryRepository.increment(item.getCategory(), items, quantity));
+    }
+
+    private Mono<Void> apply(String name, Update update) {
+        if (update == null)
+            return Mono.empty();
+
+        return reactiveMongoTemplate.upsert(InventorySummaryRepository.queryByName(name), update,
+                InventorySummaryEntity.class).then();
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.exercise.inventorymanager.services;
+
+import lombok.RequiredArgsConstructor;
+import org.exercise.inventorymanager.config.AppConfig;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Map;
+import java.util.Set;
+
+// Immutable lookup table of the allowed (category, subcategory) pairs, built once and swapped
+// atomically on refresh. Lookups are case-insensitive and do not allocate: no lowercasing,
+// no concatenated key, just a hash combined from both strings and an open-addressing probe.
+@Component
+@RequiredArgsConstructor
+public class AllowedItemsIndex {
+
+    private final AppConfig appConfig;
+
+    private volatile Table table = Table.EMPTY;
+
+    @PostConstruct
+    public void refresh() {
+        refresh(appConfig.getAllowedItems());
+    }
+
+    public void refresh(Map<String, Set<String>> allowedItems) {
+        table = Table.of(allowedItems);
+    }
+
+    public boolean isAllowed(String category, String subcategory) {
+        return table.contains(category, subcategory);
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    static final class Table {
+
+        static final Table EMPTY = new Table(new String[1], new String[1], 0);
+
+        // parallel arrays, a slot is empty when its category is null
+        private final String[] categories;
+        private final String[] subcategories;
+        private final int mask;
+        private final int size;
+
+        private Table(String[] categories, String[] subcategories, int size) {
+            this.categories = categories;
+            this.subcategories = subcategories;
+            this.mask = categories.length - 1;
+            this.size = size;
+        }
+
+        static Table of(Map<String, Set<String>> allowedItems) {
+            if (allowedItems == null || allowedItems.isEmpty())
+                return EMPTY;
+
+            int pairs = allowedItems.values().stream()
+                    .mapToInt(subcategories -> subcategories == null ? 0 : subcategories.size())
+                    .sum();
+
+            // power of two, at most half full so probes stay short
+            int capacity = Integer.highestOneBit(Math.max(2, pairs) * 2 - 1) << 1;
+            String[] categories = new String[capacity];
+            String[] subcategories = new String[capacity];
+            int size = 0;
+
+            for (Map.Entry<String, Set<String>> entry : allowedItems.entrySet()) {
+                if (entry.getValue() == null)
+                    continue;
+
+                String category = entry.getKey().toLowerCase().intern();
+
+                for (String value : entry.getValue()) {
+                    String subcategory = value.toLowerCase().intern();
+                    int slot = hash(category, subcategory) & (capacity - 1);
+
+                    while (categories[slot] != null) {
+                        if (categories[slot].equals(category) && subcategories[slot].equals(subcategory))
+                            break;
+
+                        slot = (slot + 1) & (capacity - 1);
+                    }
+
+                    if (categories[slot] == null)
+                        size++;
+
+                    categories[slot] = category;
+                    subcategories[slot] = subcategory;
+                }
+            }
+
+            return new Table(categories, subcategories, size);
+        }
+
+        boolean contains(String category, String subcategory) {
+            if (category == null || subcategory == null)
+                return false;
+
+            // fast path: parameters are normally already lower case (see InventoryController.paramFormatter),
+            // String caches its hash code, so this is a couple of array reads and equals
+            int slot = mix(category.hashCode(), subcategory.hashCode()) & mask;
+
+            while (categories[slot] != null) {
+                if (categories[slot].equals(category) && subcategories[slot].equals(subcategory))
+                    return true;
+
+                slot = (slot + 1) & mask;
+            }
+
+            if (isLowerCase(category) && isLowerCase(subcategory))
+                return false;
+
+            // another casing: same hash as the lower case strings, computed without allocating them
+            slot = mix(lowerCaseHash(category), lowerCaseHash(subcategory)) & mask;
+
+            while (categories[slot] != null) {
+                if (categories[slot].equalsIgnoreCase(category) && subcategories[slot].equalsIgnoreCase(subcategory))
+                    return true;
+
+                slot = (slot + 1) & mask;
+            }
+
+            return false;
+        }
+
+        private static int hash(String category, String subcategory) {
+            // stored strings are lower case
+            return mix(category.hashCode(), subcategory.hashCode());
+        }
+
+        private static int mix(int categoryHash, int subcategoryHash) {
+            int hash = 31 * categoryHash + subcategoryHash;
+
+            // scatter the bits (murmur3 finalizer): similar strings have close hash codes,
+            // which would build long runs in a linear probing table indexed with the low bits
+            hash ^= hash >>> 16;
+            hash *= 0x85ebca6b;
+            hash ^= hash >>> 13;
+            hash *= 0xc2b2ae35;
+
+            return hash ^ (hash >>> 16);
+        }
+
+        // String.hashCode() of the lower case version of the given string
+        private static int lowerCaseHash(String str) {
+            int hash = 0;
+
+            for (int i = 0; i < str.length(); i++)
+                hash = 31 * hash + Character.toLowerCase(str.charAt(i));
+
+            return hash;
+        }
+
+        private static boolean isLowerCase(String str) {
+            for (int i = 0; i < str.length(); i++)
+                if (Character.toLowerCase(str.charAt(i)) != str.charAt(i))
+                    return false;
+
+            return true;
+        }
+
+    }
+
+}
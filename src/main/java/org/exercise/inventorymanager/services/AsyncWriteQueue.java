@@ -0,0 +1,246 @@
+package org.exercise.inventorymanager.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.errors.WriteQueueFullError;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Writes accepted with durability=accepted: the request is answered with 202 as soon as its write is queued,
+// and a worker thread writes it afterwards. The writes of an inventory always go to the same worker, so they
+// are applied in the order they were accepted. Bounded: when the queue of a worker is full, the request waits
+// up to app.async-writes.offer-timeout, then is refused with 503 (backpressure), nothing is dropped silently.
+// A synchronous write of an inventory first waits for the accepted writes of that inventory, see awaitPending
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AsyncWriteQueue implements MeterBinder {
+
+    // tells a worker to stop, once everything queued before it is written
+    private static final Write STOP = new Write(null, () -> {
+    }, 0, true);
+
+    private final AppConfig appConfig;
+
+    private final AtomicLong acceptedWrites = new AtomicLong();
+    private final AtomicLong rejectedWrites = new AtomicLong();
+    private final AtomicLong writtenWrites = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+
+    private final List<BlockingQueue<Write>> queues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    // the writes of each inventory queued and not written yet, no entry when there is none
+    private final Map<String, Integer> pending = new ConcurrentHashMap<>();
+
+    // held to queue a write, and exclusively to stop: no write can be queued behind STOP, answered with 202,
+    // and never written
+    private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+    private boolean stopping;
+
+    // time from acceptance to written, only once bound to a registry
+    private volatile Timer lag;
+
+    @PostConstruct
+    public void start() {
+        AppConfig.AsyncWrites config = appConfig.getAsyncWrites();
+        int count = Math.max(1, config.getWorkers());
+        int capacity = Math.max(1, config.getCapacity() / count);
+
+        for (int i = 0; i < count; i++) {
+            BlockingQueue<Write> queue = new ArrayBlockingQueue<>(capacity);
+
+            Thread worker = new Thread(() -> run(queue), "async-write-" + i);
+            worker.setDaemon(true);
+            worker.start();
+
+            queues.add(queue);
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // the writes already accepted are written before shutting down
+        stopLock.writeLock().lock();
+        try {
+            stopping = true;
+        } finally {
+            stopLock.writeLock().unlock();
+        }
+
+        for (BlockingQueue<Write> queue : queues)
+            queue.put(STOP);
+
+        for (Thread worker : workers)
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+
+        log.info("Async write queue stopped: {} writes accepted, {} rejected, {} written, {} failed",
+                acceptedWrites.get(), rejectedWrites.get(), writtenWrites.get(), failedWrites.get());
+    }
+
+    public void submit(String name, Runnable write) {
+        enqueue(new Write(name, write, System.nanoTime(), false));
+        acceptedWrites.incrementAndGet();
+    }
+
+    // Returns once the writes of the inventory accepted so far are written. A synchronous write calls it first:
+    // a 202 answered earlier must not be applied after it, an upsert would bring back an item deleted since
+    public void awaitPending(String name) {
+        if (!pending.containsKey(name))
+            return;
+
+        // behind the writes of the inventory on its worker, which completes it in turn
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        enqueue(new Write(name, () -> written.complete(null), System.nanoTime(), true));
+        written.join();
+    }
+
+    private void enqueue(Write queued) {
+        stopLock.readLock().lock();
+        try {
+            offer(queued);
+        } finally {
+            stopLock.readLock().unlock();
+        }
+    }
+
+    private void offer(Write queued) {
+        if (stopping)
+            throw new WriteQueueFullError("Shutting down, writes are not accepted anymore!");
+
+        String name = queued.getName();
+        BlockingQueue<Write> queue = queues.get(Math.floorMod(name.hashCode(), queues.size()));
+        long timeout = appConfig.getAsyncWrites().getOfferTimeout().toNanos();
+        boolean offered;
+
+        pending.merge(name, 1, Integer::sum);
+
+        try {
+            offered = timeout <= 0
+                    ? queue.offer(queued)
+                    : queue.offer(queued, timeout, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            offered = false;
+        }
+
+        if (!offered) {
+            written(name);
+            if (!queued.isBarrier())
+                rejectedWrites.incrementAndGet();
+            throw new WriteQueueFullError("Too many pending writes, retry later!");
+        }
+    }
+
+    private void written(String name) {
+        pending.computeIfPresent(name, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    public int getPendingCount() {
+        return queues.stream()
+                .mapToInt(BlockingQueue::size)
+                .sum();
+    }
+
+    public long getAcceptedWrites() {
+        return acceptedWrites.get();
+    }
+
+    public long getRejectedWrites() {
+        return rejectedWrites.get();
+    }
+
+    public long getWrittenWrites() {
+        return writtenWrites.get();
+    }
+
+    public long getFailedWrites() {
+        return failedWrites.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.async-writes.pending", this, AsyncWriteQueue::getPendingCount)
+                .register(registry);
+        FunctionCounter.builder("inventory.async-writes.accepted", this, AsyncWriteQueue::getAcceptedWrites)
+                .register(registry);
+        FunctionCounter.builder("inventory.async-writes.rejected", this, AsyncWriteQueue::getRejectedWrites)
+                .register(registry);
+        FunctionCounter.builder("inventory.async-writes.written", this, AsyncWriteQueue::getWrittenWrites)
+                .register(registry);
+        FunctionCounter.builder("inventory.async-writes.failed", this, AsyncWriteQueue::getFailedWrites)
+                .register(registry);
+
+        lag = Timer.builder("inventory.async-writes.lag")
+                .description("Time from the acceptance of a write to its completion")
+                .register(registry);
+    }
+
+    private void run(BlockingQueue<Write> queue) {
+        while (true) {
+            Write write;
+
+            try {
+                write = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (write == STOP)
+                return;
+
+            if (write.isBarrier()) {
+                written(write.getName());
+                write.getWrite().run();
+                continue;
+            }
+
+            try {
+                write.getWrite().run();
+                writtenWrites.incrementAndGet();
+            } catch (RuntimeException e) {
+                // the client already got its 202, the failure can only be logged and counted
+                failedWrites.incrementAndGet();
+                log.warn("Accepted write failed", e);
+            } finally {
+                written(write.getName());
+            }
+
+            Timer timer = lag;
+            if (timer != null)
+                timer.record(System.nanoTime() - write.getAcceptedAt(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Value
+    private static class Write {
+        String name;
+        Runnable write;
+        long acceptedAt;
+        // not a write, only waited for by awaitPending
+        boolean barrier;
+    }
+
+}
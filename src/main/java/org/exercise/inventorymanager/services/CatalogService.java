@@ -0,0 +1,195 @@
+package org.exercise.inventorymanager.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.entities.CatalogItemEntity;
+import org.exercise.inventorymanager.repositories.CatalogRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Keeps the allowed items in the catalog collection, so they can change without a restart.
+// Every node holds a local snapshot, polled incrementally by update time and published to
+// AllowedItemsIndex, validation itself never touches the database.
+@Slf4j
+@Service
+@Profile("!memory")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.catalog", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CatalogService {
+
+    private final AppConfig appConfig;
+    private final AllowedItemsIndex allowedItemsIndex;
+    private final CatalogRepository catalogRepository;
+
+    // copy on write, only touched while holding the monitor
+    private Map<String, Set<String>> snapshot = Collections.emptyMap();
+    private Instant lastUpdate = Instant.EPOCH;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        seed();
+        reload();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = Math.max(1, appConfig.getCatalog().getRefreshInterval().toMillis());
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    public synchronized Map<String, Set<String>> getCatalog() {
+        return snapshot;
+    }
+
+    public void addItem(String category, String subcategory) {
+        if (!StringUtils.hasText(category) || !StringUtils.hasText(subcategory))
+            throw new IllegalArgumentException("Category and subcategory are required!");
+
+        // they end up in field paths of the summaries, see InventorySummaryRepository.encode
+        if (!isPlain(category) || !isPlain(subcategory))
+            throw new IllegalArgumentException("Category and subcategory can not contain '.' or '$'!");
+
+        catalogRepository.save(category.toLowerCase(), subcategory.toLowerCase());
+        // visible on this node right away, the others pick it up on their next refresh
+        refresh();
+    }
+
+    private static boolean isPlain(String value) {
+        return value.indexOf('.') < 0 && value.indexOf('$') < 0;
+    }
+
+    public boolean removeItem(String category, String subcategory) {
+        boolean removed = catalogRepository.delete(category.toLowerCase(), subcategory.toLowerCase());
+        refresh();
+        return removed;
+    }
+
+    public boolean removeCategory(String category) {
+        boolean removed = catalogRepository.deleteCategory(category.toLowerCase()) > 0;
+        refresh();
+        return removed;
+    }
+
+    // full reload, also drops anything the incremental refresh could have missed
+    public synchronized void reload() {
+        Map<String, Set<String>> catalog = new HashMap<>();
+        Instant latest = Instant.EPOCH;
+
+        for (CatalogItemEntity item : catalogRepository.findAll()) {
+            if (!item.isDeleted())
+                catalog.computeIfAbsent(item.getCategory(), key -> new HashSet<>()).add(item.getSubcategory());
+
+            if (item.getUpdatedAt() != null && item.getUpdatedAt().isAfter(latest))
+                latest = item.getUpdatedAt();
+        }
+
+        publish(catalog, latest);
+    }
+
+    public synchronized void refresh() {
+        // read again a bit of the past, applying an update twice does no harm
+        Instant since = lastUpdate.minus(appConfig.getCatalog().getClockSkew());
+        List<CatalogItemEntity> updates = catalogRepository.findUpdatedSince(since);
+
+        if (updates.isEmpty())
+            return;
+
+        Map<String, Set<String>> catalog = new HashMap<>();
+        snapshot.forEach((category, subcategories) -> catalog.put(category, new HashSet<>(subcategories)));
+        Instant latest = lastUpdate;
+
+        for (CatalogItemEntity item : updates) {
+            if (item.isDeleted()) {
+                Set<String> subcategories = catalog.get(item.getCategory());
+
+                if (subcategories != null && subcategories.remove(item.getSubcategory()) && subcategories.isEmpty())
+                    catalog.remove(item.getCategory());
+            } else {
+                catalog.computeIfAbsent(item.getCategory(), key -> new HashSet<>()).add(item.getSubcategory());
+            }
+
+            if (item.getUpdatedAt().isAfter(latest))
+                latest = item.getUpdatedAt();
+        }
+
+        publish(catalog, latest);
+    }
+
+    private void publish(Map<String, Set<String>> catalog, Instant latest) {
+        Map<String, Set<String>> published = new TreeMap<>();
+        catalog.forEach((category, subcategories) ->
+                published.put(category, Collections.unmodifiableSet(new TreeSet<>(subcategories))));
+
+        snapshot = Collections.unmodifiableMap(published);
+        lastUpdate = latest;
+        allowedItemsIndex.refresh(snapshot);
+    }
+
+    private void seed() {
+        if (catalogRepository.count() > 0 || appConfig.getAllowedItems() == null)
+            return;
+
+        Instant now = Instant.now();
+        List<CatalogItemEntity> items = new ArrayList<>();
+
+        appConfig.getAllowedItems().forEach((category, subcategories) -> {
+            if (subcategories == null)
+                return;
+
+            for (String subcategory : subcategories)
+                items.add(CatalogItemEntity.builder()
+                        .category(category.toLowerCase())
+                        .subcategory(subcategory.toLowerCase())
+                        .updatedAt(now)
+                        .build());
+        });
+
+        try {
+            catalogRepository.insertAll(items);
+            log.info("Catalog seeded with {} items from app.allowed-items", items.size());
+        } catch (RuntimeException e) {
+            // another node seeded it in the meantime, its items are loaded below anyway
+            log.warn("Could not seed catalog: {}", e.getMessage());
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // the last snapshot stays in use until the database is reachable again
+            log.warn("Catalog refresh failed: {}", e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,236 @@
+package org.exercise.inventorymanager.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.exercise.inventorymanager.cache.InventoryCache;
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.dto.ItemKey;
+import org.exercise.inventorymanager.entities.DeleteJobEntity;
+import org.exercise.inventorymanager.metrics.Monitored;
+import org.exercise.inventorymanager.repositories.DeleteJobRepository;
+import org.exercise.inventorymanager.repositories.InventorySummaryRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Bulk deletes, run in the background instead of one unbounded remove per inventory: the items are removed
+// in bounded _id ranges of app.delete-jobs.chunk-size, with a pause in between, so deleting a huge inventory
+// does not hold a request thread nor slow down the other inventories. Jobs are kept in the delete_jobs
+// collection with their progress: each node polls for jobs to run, and resumes the ones left by a node that
+// stopped, see DeleteJobRepository.claim
+@Slf4j
+@Service
+@Profile("!memory")
+@RequiredArgsConstructor
+public class DeleteJobService {
+
+    private final AppConfig appConfig;
+    private final DeleteJobRepository deleteJobRepository;
+    private final InventorySummaryRepository inventorySummaryRepository;
+    private final InventoryCache inventoryCache;
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final AsyncWriteQueue asyncWriteQueue;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        // a single thread: a node runs one job at a time, the others wait for their turn
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "delete-jobs");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = Math.max(1, appConfig.getDeleteJobs().getPollInterval().toMillis());
+        scheduler.scheduleWithFixedDelay(this::runQuietly, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    @Monitored("bulk-delete")
+    public DeleteJobEntity submit(List<String> names, List<ItemKey> keys) {
+        Set<String> distinctNames = new LinkedHashSet<>();
+        Set<ItemKey> distinctKeys = new LinkedHashSet<>();
+
+        if (names != null)
+            for (String name : names) {
+                if (!StringUtils.hasText(name))
+                    throw new IllegalArgumentException("name must be a valid string!");
+
+                distinctNames.add(name);
+            }
+
+        if (keys != null)
+            for (ItemKey key : keys) {
+                if (key == null || !StringUtils.hasText(key.getName()))
+                    throw new IllegalArgumentException("name must be a valid string!");
+
+                if (!StringUtils.hasText(key.getCategory()) || !StringUtils.hasText(key.getSubcategory()))
+                    throw new IllegalArgumentException("Item must have a valid category and subcategory!");
+
+                // the items of an inventory deleted by the same job are deleted anyway
+                if (!distinctNames.contains(key.getName()))
+                    distinctKeys.add(key);
+            }
+
+        if (distinctNames.isEmpty() && distinctKeys.isEmpty())
+            throw new IllegalArgumentException("At least one name or key is required!");
+
+        // buffered quantities must not bring the items back once deleted
+        if (writeBehindBuffer.isEnabled()) {
+            distinctNames.forEach(writeBehindBuffer::discard);
+            distinctKeys.forEach(key -> writeBehindBuffer.discard(key.getName(), key.getCategory(),
+                    key.getSubcategory()));
+        }
+
+        // nor the accepted writes still queued, once the job has started
+        distinctNames.forEach(asyncWriteQueue::awaitPending);
+        distinctKeys.stream()
+                .map(ItemKey::getName)
+                .distinct()
+                .forEach(asyncWriteQueue::awaitPending);
+
+        DeleteJobEntity job = deleteJobRepository.create(new ArrayList<>(distinctNames),
+                new ArrayList<>(distinctKeys));
+
+        // started right away if this node is idle, otherwise on its next poll
+        scheduler.execute(this::runQuietly);
+
+        return job;
+    }
+
+    public DeleteJobEntity findById(String id) {
+        return deleteJobRepository.findById(id);
+    }
+
+    private void runQuietly() {
+        try {
+            DeleteJobEntity job;
+
+            while (!Thread.currentThread().isInterrupted()
+                    && (job = deleteJobRepository.claim(owner, lease())) != null)
+                run(job);
+        } catch (RuntimeException e) {
+            log.warn("Delete jobs poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void run(DeleteJobEntity job) {
+        long start = System.nanoTime();
+
+        try {
+            if (!runChunks(job))
+                return;
+        } catch (InterruptedException e) {
+            // shutting down, the job is resumed by the next node to poll
+            Thread.currentThread().interrupt();
+            deleteJobRepository.release(job);
+            return;
+        } catch (RuntimeException e) {
+            // the driver reports an interrupt during a command as an exception of its own
+            if (Thread.currentThread().isInterrupted()) {
+                deleteJobRepository.release(job);
+                return;
+            }
+
+            log.warn("Delete job {} failed", job.getId(), e);
+            deleteJobRepository.finish(job, DeleteJobEntity.Status.FAILED, e.getMessage());
+            return;
+        }
+
+        deleteJobRepository.finish(job, DeleteJobEntity.Status.DONE, null);
+
+        log.info("Delete job {} done: {} inventories and {} items in {} ms", job.getId(), job.getNames().size(),
+                job.getKeys().size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // false if the job was taken over by another node
+    private boolean runChunks(DeleteJobEntity job) throws InterruptedException {
+        AppConfig.DeleteJobs config = appConfig.getDeleteJobs();
+        int chunkSize = Math.max(1, config.getChunkSize());
+        List<String> names = job.getNames();
+        List<ItemKey> keys = job.getKeys();
+
+        while (job.getPosition() < names.size()) {
+            String name = names.get(job.getPosition());
+            String maxId = job.getMaxIds().get(job.getPosition());
+            String end = maxId == null ? null
+                    : deleteJobRepository.findChunkEnd(name, job.getLastId(), maxId, chunkSize);
+            long deleted = 0;
+
+            if (end == null) {
+                // the inventory is gone, or only holds items written after the job was created
+                inventoryCache.invalidate(name);
+                inventorySummaryRepository.deleteIfEmpty(name);
+                job.setPosition(job.getPosition() + 1);
+                job.setLastId(null);
+            } else {
+                deleted = deleteJobRepository.deleteRange(name, job.getLastId(), end);
+                inventoryCache.invalidate(name);
+                job.setLastId(end);
+            }
+
+            if (!deleteJobRepository.saveProgress(job, deleted, lease()))
+                return false;
+
+            if (end != null)
+                pause();
+        }
+
+        while (job.getPosition() - names.size() < keys.size()) {
+            int from = job.getPosition() - names.size();
+            List<ItemKey> chunk = keys.subList(from, Math.min(keys.size(), from + chunkSize));
+            long deleted = deleteJobRepository.deleteKeys(chunk);
+
+            Set<String> chunkNames = chunk.stream()
+                    .map(ItemKey::getName)
+                    .collect(Collectors.toSet());
+
+            inventoryCache.invalidateAll(chunkNames);
+            chunkNames.forEach(inventorySummaryRepository::deleteIfEmpty);
+
+            job.setPosition(job.getPosition() + chunk.size());
+
+            if (!deleteJobRepository.saveProgress(job, deleted, lease()))
+                return false;
+
+            pause();
+        }
+
+        return true;
+    }
+
+    private void pause() throws InterruptedException {
+        long pause = appConfig.getDeleteJobs().getPause().toMillis();
+
+        if (pause > 0)
+            Thread.sleep(pause);
+        else if (Thread.currentThread().isInterrupted())
+            throw new InterruptedException();
+    }
+
+    private Duration lease() {
+        return appConfig.getDeleteJobs().getLease();
+    }
+
+}
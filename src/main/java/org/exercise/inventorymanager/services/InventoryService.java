@@ -3,37 +3,207 @@ package org.exercise.inventorymanager.services;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.dto.CompactInventory;
+import org.exercise.inventorymanager.dto.Durability;
+import org.exercise.inventorymanager.dto.InventoryPage;
+import org.exercise.inventorymanager.dto.ItemKey;
+import org.exercise.inventorymanager.dto.ItemTag;
+import org.exercise.inventorymanager.dto.PageToken;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
 import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.entities.InventorySummaryEntity;
+import org.exercise.inventorymanager.errors.InsufficientQuantityError;
 import org.exercise.inventorymanager.errors.ItemNotFoundError;
+import org.exercise.inventorymanager.errors.PreconditionFailedError;
+import org.exercise.inventorymanager.metrics.Monitored;
 import org.exercise.inventorymanager.repositories.InventoryRepository;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class InventoryService {
 
+    // fields of the items that can be selected on reads
+    public static final Set<String> FIELDS = Set.of("name", "category", "subcategory", "quantity");
+
+    private static final Set<String> COMPACT_FIELDS = Set.of("category", "subcategory", "quantity");
+
     private final AppConfig appConfig;
+    private final AllowedItemsIndex allowedItemsIndex;
     private final InventoryRepository inventoryRepository;
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final AsyncWriteQueue asyncWriteQueue;
 
+    @Monitored("find-by-name")
     public List<InventoryEntity> findAllItemsByName(String name) {
         return inventoryRepository.findByName(name);
     }
 
+    @Monitored("find-by-category")
     public List<InventoryEntity> findAllItemsByNameAndCategory(String name, String category) {
         return inventoryRepository.findByNameAndCategory(name, category);
     }
 
+    @Monitored("find-by-name")
+    public List<InventoryEntity> findAllItemsByName(String name, Set<String> fields) {
+        return inventoryRepository.findByName(name, checkFields(fields));
+    }
+
+    @Monitored("find-by-category")
+    public List<InventoryEntity> findAllItemsByNameAndCategory(String name, String category, Set<String> fields) {
+        return inventoryRepository.findByNameAndCategory(name, category, checkFields(fields));
+    }
+
+    @Monitored("find-by-names")
+    public Map<String, List<InventoryEntity>> findAllItemsByNames(Collection<String> names, String category,
+                                                                  String subcategory) {
+        if (names == null || names.isEmpty())
+            throw new IllegalArgumentException("names must not be empty!");
+
+        if (names.stream().anyMatch(name -> !StringUtils.hasText(name)))
+            throw new IllegalArgumentException("name must be a valid string!");
+
+        return inventoryRepository.findByNames(new LinkedHashSet<>(names), category, subcategory);
+    }
+
+    @Monitored("find-by-keys")
+    public List<InventoryEntity> findItemsByKeys(List<ItemKey> keys) {
+        // in the same order as the keys, null for the items that do not exist
+        if (keys == null || keys.isEmpty())
+            throw new IllegalArgumentException("keys must not be empty!");
+
+        for (ItemKey key : keys)
+            if (key == null || !StringUtils.hasText(key.getName()))
+                throw new IllegalArgumentException("name must be a valid string!");
+
+        Map<ItemKey, InventoryEntity> items = inventoryRepository.findByKeys(new HashSet<>(keys));
+
+        return keys.stream()
+                .map(items::get)
+                .collect(Collectors.toList());
+    }
+
+    @Monitored("find-compact")
+    public CompactInventory findCompactInventoryByName(String name, Set<String> fields) {
+        // the name is given once for the whole inventory, so it is never read for the items
+        Set<String> itemFields = new HashSet<>(fields == null ? COMPACT_FIELDS : checkFields(fields));
+        itemFields.remove("name");
+
+        if (itemFields.isEmpty())
+            throw new IllegalArgumentException("fields must contain at least one item field!");
+
+        return new CompactInventory(name, inventoryRepository.findByName(name, itemFields));
+    }
+
+    public CloseableIterator<InventoryEntity> streamAllItemsByName(String name) {
+        return inventoryRepository.streamByName(name);
+    }
+
+    @Monitored("find-page")
+    public InventoryPage findPageOfItemsByName(String name, String token, int limit) {
+        if (limit <= 0)
+            throw new IllegalArgumentException("limit must be strictly positive!");
+
+        PageToken after = token == null
+                ? null
+                : PageToken.decode(token);
+
+        List<InventoryEntity> items = after == null
+                ? inventoryRepository.findPageByName(name, null, null, limit)
+                : inventoryRepository.findPageByName(name, after.getCategory(), after.getSubcategory(), limit);
+
+        // a full page means there may be more, the client finds out with one more call
+        String next = null;
+        if (items.size() == limit) {
+            InventoryEntity last = items.get(items.size() - 1);
+            next = new PageToken(last.getCategory(), last.getSubcategory()).encode();
+        }
+
+        return new InventoryPage(items, next);
+    }
+
+    @Monitored("find-tag")
+    public String findInventoryTag(String name) {
+        // changes whenever an item of the inventory does, without reading the items: the version of its summary,
+        // and its update time since the version starts over if the inventory is deleted and created again
+        InventorySummaryEntity summary = inventoryRepository.findVersionByName(name);
+
+        if (summary == null || summary.getUpdatedAt() == null)
+            return null;
+
+        return Long.toHexString(summary.getVersion()) + '-' + Long.toHexString(summary.getUpdatedAt().toEpochMilli());
+    }
+
+    @Monitored("find-one")
     public InventoryEntity findSpecificItemInInventory(String name, String category, String subcategory) {
         return inventoryRepository.findByNameAndCategoryAndSubcategory(name, category, subcategory);
     }
 
+    @Monitored("upsert")
     public InventoryEntity updateItemQuantity(String name, String category, String subcategory, Integer quantity) {
+        return updateItemQuantity(name, category, subcategory, quantity, (Durability) null);
+    }
+
+    // Returns the updated entity. Without id for a write not done yet: durability=accepted, or write-behind
+    @Monitored("upsert")
+    public InventoryEntity updateItemQuantity(String name, String category, String subcategory, Integer quantity,
+                                              Durability durability) {
+        if (!StringUtils.hasText(name))
+            throw new IllegalArgumentException("name must be a valid string!");
+
+        if (quantity < 0)
+            throw new IllegalArgumentException("quantity must be positive!");
+
+        if (!isAllowedItem(category, subcategory))
+            throw new ItemNotFoundError("Item does not exist, create it first!");
+
+        boolean buffered = writeBehindBuffer.isEnabled()
+                && (durability == null || durability == Durability.ACCEPTED);
+
+        if (buffered) {
+            // the write happens later, in bulk
+            writeBehindBuffer.offer(new QuantityUpdate(name, category, subcategory, quantity));
+        } else if (durability == Durability.ACCEPTED) {
+            asyncWriteQueue.submit(name, () -> inventoryRepository
+                    .updateQuantity(name, category, subcategory, quantity, Durability.ACCEPTED));
+        } else {
+            // an explicit durability is only honored by writing now, and a buffered quantity must not
+            // overwrite this one later
+            if (writeBehindBuffer.isEnabled())
+                writeBehindBuffer.discard(name, category, subcategory);
+
+            asyncWriteQueue.awaitPending(name);
+
+            return inventoryRepository
+                    .updateQuantity(name, category, subcategory, quantity, durability);
+        }
+
+        // there is no stored entity (nor id) to return yet
+        return InventoryEntity.builder()
+                .name(name)
+                .category(category)
+                .subcategory(subcategory)
+                .quantity(quantity)
+                .build();
+    }
+
+    @Monitored("upsert-if-match")
+    public InventoryEntity updateItemQuantity(String name, String category, String subcategory, Integer quantity,
+                                              ItemTag expected) {
         if (!StringUtils.hasText(name))
             throw new IllegalArgumentException("name must be a valid string!");
 
@@ -43,27 +213,193 @@ public class InventoryService {
         if (!isAllowedItem(category, subcategory))
             throw new ItemNotFoundError("Item does not exist, create it first!");
 
-        // returns the updated entity
-        return inventoryRepository
-                .updateQuantity(name, category, subcategory, quantity);
+        // a buffered quantity is a change the client may not have seen, it must be compared too
+        if (writeBehindBuffer.isEnabled())
+            writeBehindBuffer.flush(name, category, subcategory);
+
+        asyncWriteQueue.awaitPending(name);
+
+        InventoryEntity entity = inventoryRepository
+                .updateQuantityIfMatch(name, category, subcategory, quantity, expected);
+
+        if (entity == null)
+            throw new PreconditionFailedError("Item was modified, or does not exist!");
+
+        return entity;
+    }
+
+    @Monitored("adjust")
+    public InventoryEntity adjustItemQuantity(String name, String category, String subcategory, int delta,
+                                              boolean allowNegative) {
+        if (!StringUtils.hasText(name))
+            throw new IllegalArgumentException("name must be a valid string!");
+
+        if (!isAllowedItem(category, subcategory))
+            throw new ItemNotFoundError("Item does not exist, create it first!");
+
+        // a buffered absolute quantity must be written before the delta is applied on top of it
+        if (writeBehindBuffer.isEnabled())
+            writeBehindBuffer.flush(name, category, subcategory);
+
+        asyncWriteQueue.awaitPending(name);
+
+        InventoryEntity entity = inventoryRepository
+                .incrementQuantity(name, category, subcategory, delta, allowNegative);
+
+        if (entity != null)
+            return entity;
+
+        // find out why the change was refused
+        InventoryEntity existing = inventoryRepository.findByNameAndCategoryAndSubcategory(name, category, subcategory);
+
+        if (existing == null)
+            throw new ItemNotFoundError("Item is not in this inventory!");
+
+        long quantity = (long) existing.getQuantity() + delta;
+
+        if (quantity < Integer.MIN_VALUE || quantity > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("quantity would be out of range!");
+
+        throw new InsufficientQuantityError("quantity would become negative!");
     }
 
+    @Monitored("bulk-upsert")
+    public List<QuantityUpdateResult> bulkUpdateItemQuantity(List<QuantityUpdate> items) {
+        // results are returned in the same order as the given items
+        QuantityUpdateResult[] results = new QuantityUpdateResult[items.size()];
+
+        List<QuantityUpdate> chunk = new ArrayList<>();
+        List<Integer> chunkIndexes = new ArrayList<>();
+        int chunkSize = Math.max(1, appConfig.getBulkChunkSize());
+
+        for (int i = 0; i < items.size(); i++) {
+            QuantityUpdate item = items.get(i);
+            String rejection = validateQuantityUpdate(item);
+
+            if (rejection != null) {
+                results[i] = QuantityUpdateResult.of(item, QuantityUpdateResult.Status.REJECTED, rejection);
+                continue;
+            }
+
+            chunk.add(item);
+            chunkIndexes.add(i);
+
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, chunkIndexes, results);
+                chunk.clear();
+                chunkIndexes.clear();
+            }
+        }
+
+        writeChunk(chunk, chunkIndexes, results);
+
+        return Arrays.asList(results);
+    }
+
+    private void writeChunk(List<QuantityUpdate> chunk, List<Integer> chunkIndexes, QuantityUpdateResult[] results) {
+        if (chunk.isEmpty())
+            return;
+
+        // an older buffered quantity must not overwrite these ones later
+        if (writeBehindBuffer.isEnabled())
+            chunk.forEach(item -> writeBehindBuffer.discard(item.getName(), item.getCategory(), item.getSubcategory()));
+
+        chunk.stream()
+                .map(QuantityUpdate::getName)
+                .distinct()
+                .forEach(asyncWriteQueue::awaitPending);
+
+        List<QuantityUpdateResult> chunkResults = inventoryRepository.bulkUpdateQuantity(chunk);
+
+        for (int i = 0; i < chunkResults.size(); i++)
+            results[chunkIndexes.get(i)] = chunkResults.get(i);
+    }
+
+    public String validateQuantityUpdate(QuantityUpdate item) {
+        // same rules as updateItemQuantity, but reported per item instead of thrown
+        if (item == null)
+            return "item must not be null!";
+
+        if (!StringUtils.hasText(item.getName()))
+            return "name must be a valid string!";
+
+        if (item.getQuantity() == null || item.getQuantity() < 0)
+            return "quantity must be positive!";
+
+        if (!StringUtils.hasText(item.getCategory()) || !StringUtils.hasText(item.getSubcategory()))
+            return "Item must have a valid category and subcategory!";
+
+        if (!isAllowedItem(item.getCategory(), item.getSubcategory()))
+            return "Item does not exist, create it first!";
+
+        return null;
+    }
+
+    @Monitored("delete-inventory")
     public void deleteInventory(String name) {
-        inventoryRepository.deleteByName(name);
+        deleteInventory(name, null);
+    }
+
+    @Monitored("delete-inventory")
+    public void deleteInventory(String name, Durability durability) {
+        if (writeBehindBuffer.isEnabled())
+            writeBehindBuffer.discard(name);
+
+        if (durability == Durability.ACCEPTED) {
+            asyncWriteQueue.submit(name, () -> inventoryRepository.deleteByName(name, durability));
+        } else {
+            asyncWriteQueue.awaitPending(name);
+            inventoryRepository.deleteByName(name, durability);
+        }
     }
 
+    @Monitored("delete-item")
     public void deleteItemInInventory(String name, String category, String subcategory) {
-        inventoryRepository.deleteByNameAndCategoryAndSubcategory(name, category, subcategory);
+        deleteItemInInventory(name, category, subcategory, (Durability) null);
+    }
+
+    @Monitored("delete-item")
+    public void deleteItemInInventory(String name, String category, String subcategory, Durability durability) {
+        if (writeBehindBuffer.isEnabled())
+            writeBehindBuffer.discard(name, category, subcategory);
+
+        if (durability == Durability.ACCEPTED) {
+            asyncWriteQueue.submit(name, () -> inventoryRepository
+                    .deleteByNameAndCategoryAndSubcategory(name, category, subcategory, durability));
+        } else {
+            asyncWriteQueue.awaitPending(name);
+            inventoryRepository.deleteByNameAndCategoryAndSubcategory(name, category, subcategory, durability);
+        }
     }
 
+    @Monitored("delete-item-if-match")
+    public void deleteItemInInventory(String name, String category, String subcategory, ItemTag expected) {
+        if (writeBehindBuffer.isEnabled())
+            writeBehindBuffer.flush(name, category, subcategory);
+
+        asyncWriteQueue.awaitPending(name);
+
+        if (!inventoryRepository.deleteByNameAndCategoryAndSubcategoryIfMatch(name, category, subcategory, expected))
+            throw new PreconditionFailedError("Item was modified, or does not exist!");
+    }
+
+    private static Set<String> checkFields(Set<String> fields) {
+        if (fields == null || fields.isEmpty())
+            throw new IllegalArgumentException("fields must not be empty!");
+
+        for (String field : fields)
+            if (!FIELDS.contains(field))
+                throw new IllegalArgumentException("Unknown field " + field + ", expected one of " + FIELDS + "!");
+
+        return fields;
+    }
+
+    @Monitored("allowed-item")
     public boolean isAllowedItem(String category, String subcategory) {
         if (!StringUtils.hasText(category) || !StringUtils.hasText(subcategory))
             throw new IllegalArgumentException("Item must have a valid category and subcategory!");
 
-        Map<String, Set<String>> allowedCategories = appConfig.getAllowedItems();
-
-        return allowedCategories.containsKey(category)
-                && allowedCategories.get(category).contains(subcategory);
+        return allowedItemsIndex.isAllowed(category, subcategory);
     }
 
 }
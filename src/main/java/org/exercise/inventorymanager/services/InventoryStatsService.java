@@ -0,0 +1,80 @@
+package org.exercise.inventorymanager.services;
+
+import lombok.RequiredArgsConstructor;
+import org.exercise.inventorymanager.dto.QuantityTotal;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.entities.InventorySummaryEntity;
+import org.exercise.inventorymanager.metrics.Monitored;
+import org.exercise.inventorymanager.repositories.InventoryStatsRepository;
+import org.exercise.inventorymanager.repositories.InventorySummaryRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+@Service
+@Profile("!memory")
+@RequiredArgsConstructor
+public class InventoryStatsService {
+
+    private final InventoryStatsRepository inventoryStatsRepository;
+    private final InventorySummaryRepository inventorySummaryRepository;
+
+    @Monitored("find-summary")
+    public InventorySummaryEntity findSummaryByName(String name) {
+        if (!StringUtils.hasText(name))
+            throw new IllegalArgumentException("name must be a valid string!");
+
+        InventorySummaryEntity summary = inventorySummaryRepository.findByName(name);
+
+        // categories emptied by deletes stay with zero totals until the next rebuild
+        if (summary != null && summary.getCategories() != null)
+            summary.getCategories().values().removeIf(category -> category.getItems() <= 0);
+
+        return summary;
+    }
+
+    @Monitored("rebuild-summary")
+    public void rebuildSummary(String name) {
+        if (!StringUtils.hasText(name))
+            throw new IllegalArgumentException("name must be a valid string!");
+
+        inventorySummaryRepository.rebuild(name);
+    }
+
+    @Monitored("rebuild-summaries")
+    public int rebuildSummaries() {
+        return inventorySummaryRepository.rebuildAll();
+    }
+
+    @Monitored("totals")
+    public List<QuantityTotal> totalsByName(String name, QuantityTotal.GroupBy groupBy) {
+        if (!StringUtils.hasText(name))
+            throw new IllegalArgumentException("name must be a valid string!");
+
+        return inventoryStatsRepository.totals(name, groupBy);
+    }
+
+    @Monitored("totals")
+    public List<QuantityTotal> totals(QuantityTotal.GroupBy groupBy) {
+        return inventoryStatsRepository.totals(null, groupBy);
+    }
+
+    @Monitored("top-items")
+    public List<InventoryEntity> topItems(String name, int limit) {
+        if (limit <= 0)
+            throw new IllegalArgumentException("limit must be strictly positive!");
+
+        return inventoryStatsRepository.topItems(StringUtils.hasText(name) ? name : null, limit);
+    }
+
+    @Monitored("low-stock")
+    public List<InventoryEntity> lowStockItems(String name, int threshold, int limit) {
+        if (limit <= 0)
+            throw new IllegalArgumentException("limit must be strictly positive!");
+
+        return inventoryStatsRepository.lowStockItems(StringUtils.hasText(name) ? name : null, threshold, limit);
+    }
+
+}
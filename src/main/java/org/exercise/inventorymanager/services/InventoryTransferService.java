@@ -0,0 +1,377 @@
+package org.exercise.inventorymanager.services;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.dto.ImportResult;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
+import org.exercise.inventorymanager.dto.TransferFormat;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.metrics.Monitored;
+import org.exercise.inventorymanager.repositories.InventoryRepository;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Import and export of whole inventories, as CSV or NDJSON. Both are streamed: an export is written while the
+// items are read from the database, an import is parsed row by row while the previous rows are written, in bulk
+// upserts of app.bulk-chunk-size items. Only a few chunks are held in memory, whatever the size of the file
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventoryTransferService {
+
+    // rejected rows are all counted, only the first ones are reported with their reason
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            // the name, id and version of the items are not exported
+            .enable(JsonGenerator.Feature.IGNORE_UNKNOWN)
+            .build();
+
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+            .addColumn("category")
+            .addColumn("subcategory")
+            .addNumberColumn("quantity")
+            .build()
+            .withHeader();
+
+    private final AppConfig appConfig;
+    private final InventoryService inventoryService;
+    private final InventoryRepository inventoryRepository;
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final AsyncWriteQueue asyncWriteQueue;
+    private final ObjectMapper objectMapper;
+
+    private ObjectWriter ndjsonWriter;
+    private ExecutorService writers;
+
+    @PostConstruct
+    public void start() {
+        // like the CSV columns: the file can be imported into any inventory
+        ndjsonWriter = objectMapper.copy()
+                .addMixIn(InventoryEntity.class, WithoutName.class)
+                .writer()
+                .withRootValueSeparator("\n");
+
+        AtomicInteger count = new AtomicInteger();
+
+        writers = Executors.newFixedThreadPool(Math.max(1, appConfig.getImports().getWriters()), runnable -> {
+            Thread thread = new Thread(runnable, "import-writer-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writers != null)
+            writers.shutdownNow();
+    }
+
+    @Monitored("export")
+    public void exportItems(CloseableIterator<InventoryEntity> items, TransferFormat format,
+                            OutputStream outputStream) throws IOException {
+        // closes the items once written
+        try (items; SequenceWriter writer = format == TransferFormat.CSV
+                ? CSV_MAPPER.writer(CSV_SCHEMA).writeValues(outputStream)
+                : ndjsonWriter.writeValues(outputStream)) {
+            while (items.hasNext())
+                writer.write(items.next());
+        }
+    }
+
+    @Monitored("import")
+    public ImportResult importItems(String name, TransferFormat format, InputStream inputStream) throws IOException {
+        // rows are validated like POST /inventory/bulk, and written into the given inventory
+        if (!StringUtils.hasText(name))
+            throw new IllegalArgumentException("name must be a valid string!");
+
+        // the imported rows are written after the accepted writes still queued
+        asyncWriteQueue.awaitPending(name);
+
+        Import items = new Import(name);
+
+        try {
+            if (format == TransferFormat.CSV)
+                readCsv(items, inputStream);
+            else
+                readNdjson(items, inputStream);
+        } finally {
+            // what was read is written, even if the rest of the file could not be
+            items.finish();
+        }
+
+        return items.result();
+    }
+
+    private void readCsv(Import items, InputStream inputStream) throws IOException {
+        try (MappingIterator<String[]> rows = CSV_MAPPER.readerFor(String[].class)
+                .with(CsvParser.Feature.WRAP_AS_ARRAY)
+                .readValues(inputStream)) {
+            if (!rows.hasNextValue())
+                return;
+
+            List<String> header = Arrays.asList(rows.nextValue());
+            int name = header.indexOf("name");
+            int category = header.indexOf("category");
+            int subcategory = header.indexOf("subcategory");
+            int quantity = header.indexOf("quantity");
+
+            if (category < 0 || subcategory < 0 || quantity < 0)
+                throw new IllegalArgumentException("The CSV header must name the category, subcategory and "
+                        + "quantity columns, found " + header + "!");
+
+            long line = 1;
+
+            try {
+                while (rows.hasNextValue()) {
+                    String[] row = rows.nextValue();
+                    line++;
+
+                    // empty lines are skipped
+                    if (row.length == 1 && row[0].isEmpty())
+                        continue;
+
+                    Integer parsedQuantity;
+
+                    try {
+                        String value = column(row, quantity);
+                        parsedQuantity = value == null || value.isBlank() ? null : Integer.valueOf(value.trim());
+                    } catch (NumberFormatException e) {
+                        items.invalid(line, "quantity must be an integer!");
+                        continue;
+                    }
+
+                    items.add(line, column(row, name), column(row, category), column(row, subcategory),
+                            parsedQuantity);
+                }
+            } catch (JsonProcessingException e) {
+                // the parser can not find the next row after a broken one (unbalanced quotes...)
+                items.abort(line + 1, "Malformed CSV, the import stopped here: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readNdjson(Import items, InputStream inputStream) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(QuantityUpdate.class);
+
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8), 1 << 16)) {
+            String text;
+            long line = 0;
+
+            while ((text = lines.readLine()) != null) {
+                line++;
+
+                if (text.isBlank())
+                    continue;
+
+                QuantityUpdate row;
+
+                try {
+                    row = reader.readValue(text);
+                } catch (JsonProcessingException e) {
+                    // each line stands on its own, a broken one does not prevent reading the next ones
+                    items.invalid(line, "Invalid row: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                items.add(line, row.getName(), row.getCategory(), row.getSubcategory(), row.getQuantity());
+            }
+        }
+    }
+
+    private static String column(String[] row, int index) {
+        return index < 0 || index >= row.length ? null : row[index];
+    }
+
+    private static String lowerCase(String value) {
+        // formatted like the path parameters of the other endpoints
+        return value == null ? null : value.toLowerCase();
+    }
+
+    @JsonIgnoreProperties("name")
+    private interface WithoutName {
+    }
+
+    // One import: the rows are spread over lanes by item, each lane writes its chunks one after the other on the
+    // writers. The writes of a chunk are unordered, only the last row of an item in a chunk is written (see
+    // BulkResults.lastPerItem), so the last row of an item in the file wins
+    private final class Import {
+
+        private final String name;
+        private final int chunkSize;
+        private final Lane[] lanes;
+
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final List<ImportResult.RowError> errors = new ArrayList<>();
+
+        private boolean complete = true;
+
+        Import(String name) {
+            this.name = name;
+            this.chunkSize = Math.max(1, appConfig.getBulkChunkSize());
+            this.lanes = new Lane[Math.max(1, appConfig.getImports().getWriters())];
+
+            for (int i = 0; i < lanes.length; i++)
+                lanes[i] = new Lane();
+        }
+
+        void add(long line, String rowName, String category, String subcategory, Integer quantity) {
+            rows.incrementAndGet();
+
+            if (rowName != null && !rowName.isEmpty() && !rowName.equals(name)) {
+                reject(line, "Row of another inventory: " + rowName + "!");
+                return;
+            }
+
+            QuantityUpdate item = new QuantityUpdate(name, lowerCase(category), lowerCase(subcategory), quantity);
+            String rejection = inventoryService.validateQuantityUpdate(item);
+
+            if (rejection != null) {
+                reject(line, rejection);
+                return;
+            }
+
+            int lane = Math.floorMod(31 * item.getCategory().hashCode() + item.getSubcategory().hashCode(),
+                    lanes.length);
+            lanes[lane].add(line, item);
+        }
+
+        // a row that could not even be parsed
+        void invalid(long line, String error) {
+            rows.incrementAndGet();
+            reject(line, error);
+        }
+
+        void reject(long line, String error) {
+            rejected.incrementAndGet();
+
+            synchronized (errors) {
+                if (errors.size() < MAX_REPORTED_ERRORS)
+                    errors.add(new ImportResult.RowError(line, error));
+            }
+        }
+
+        // a fatal error, not tied to a row
+        void abort(long line, String error) {
+            complete = false;
+
+            synchronized (errors) {
+                errors.add(new ImportResult.RowError(line, error));
+            }
+        }
+
+        void finish() {
+            for (Lane lane : lanes)
+                lane.flush();
+
+            for (Lane lane : lanes)
+                lane.pending.join();
+        }
+
+        ImportResult result() {
+            synchronized (errors) {
+                return ImportResult.builder()
+                        .rows(rows.get())
+                        .imported(imported.get())
+                        .rejected(rejected.get())
+                        .complete(complete)
+                        .errors(new ArrayList<>(errors))
+                        .build();
+            }
+        }
+
+        private void write(List<QuantityUpdate> chunk, long[] lines) {
+            // an older buffered quantity must not overwrite the imported ones later
+            if (writeBehindBuffer.isEnabled())
+                chunk.forEach(item -> writeBehindBuffer.discard(name, item.getCategory(), item.getSubcategory()));
+
+            try {
+                List<QuantityUpdateResult> results = inventoryRepository.bulkUpdateQuantity(chunk);
+
+                for (int i = 0; i < results.size(); i++) {
+                    QuantityUpdateResult result = results.get(i);
+
+                    if (result.getStatus() == QuantityUpdateResult.Status.FAILED
+                            || result.getStatus() == QuantityUpdateResult.Status.REJECTED)
+                        reject(lines[i], result.getMessage());
+                    else
+                        imported.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Import of {} rows into {} failed", chunk.size(), name, e);
+
+                for (int i = 0; i < chunk.size(); i++)
+                    reject(lines[i], "Write failed: " + e.getMessage());
+            }
+        }
+
+        private final class Lane {
+
+            private List<QuantityUpdate> items = new ArrayList<>(chunkSize);
+            private long[] lines = new long[chunkSize];
+
+            // the chunk being written
+            private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+
+            void add(long line, QuantityUpdate item) {
+                lines[items.size()] = line;
+                items.add(item);
+
+                if (items.size() == chunkSize)
+                    flush();
+            }
+
+            void flush() {
+                if (items.isEmpty())
+                    return;
+
+                List<QuantityUpdate> chunk = items;
+                long[] chunkLines = lines;
+                items = new ArrayList<>(chunkSize);
+                lines = new long[chunkSize];
+
+                // one chunk written per lane while the next one is read: the memory stays bounded, and a slow
+                // database slows down the reading of the file instead of piling up chunks
+                pending.join();
+                pending = CompletableFuture.runAsync(() -> write(chunk, chunkLines), writers);
+            }
+
+        }
+
+    }
+
+}
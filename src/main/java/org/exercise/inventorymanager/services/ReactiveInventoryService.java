@@ -0,0 +1,141 @@
+package org.exercise.inventorymanager.services;
+
+import lombok.RequiredArgsConstructor;
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.dto.InventoryPage;
+import org.exercise.inventorymanager.dto.PageToken;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.errors.ItemNotFoundError;
+import org.exercise.inventorymanager.repositories.ReactiveInventoryRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Profile("reactive")
+@Service
+@RequiredArgsConstructor
+public class ReactiveInventoryService {
+
+    private final AppConfig appConfig;
+    private final ReactiveInventoryRepository reactiveInventoryRepository;
+
+    // validation rules are shared with the blocking stack, they never touch the database
+    private final InventoryService inventoryService;
+
+    public Flux<InventoryEntity> findAllItemsByName(String name) {
+        return reactiveInventoryRepository.findByName(name);
+    }
+
+    public Flux<InventoryEntity> findAllItemsByNameAndCategory(String name, String category) {
+        return reactiveInventoryRepository.findByNameAndCategory(name, category);
+    }
+
+    public Mono<InventoryEntity> findSpecificItemInInventory(String name, String category, String subcategory) {
+        return reactiveInventoryRepository.findByNameAndCategoryAndSubcategory(name, category, subcategory);
+    }
+
+    public Mono<InventoryPage> findPageOfItemsByName(String name, String token, int limit) {
+        if (limit <= 0)
+            return Mono.error(new IllegalArgumentException("limit must be strictly positive!"));
+
+        PageToken after;
+
+        try {
+            after = token == null
+                    ? null
+                    : PageToken.decode(token);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+
+        Flux<InventoryEntity> items = after == null
+                ? reactiveInventoryRepository.findPageByName(name, null, null, limit)
+                : reactiveInventoryRepository.findPageByName(name, after.getCategory(), after.getSubcategory(), limit);
+
+        return items.collectList().map(page -> {
+            String next = null;
+            if (page.size() == limit) {
+                InventoryEntity last = page.get(page.size() - 1);
+                next = new PageToken(last.getCategory(), last.getSubcategory()).encode();
+            }
+
+            return new InventoryPage(page, next);
+        });
+    }
+
+    public Mono<InventoryEntity> updateItemQuantity(String name, String category, String subcategory, Integer quantity) {
+        if (!StringUtils.hasText(name))
+            return Mono.error(new IllegalArgumentException("name must be a valid string!"));
+
+        if (quantity < 0)
+            return Mono.error(new IllegalArgumentException("quantity must be positive!"));
+
+        if (!isAllowedItem(category, subcategory))
+            return Mono.error(new ItemNotFoundError("Item does not exist, create it first!"));
+
+        // returns the updated entity
+        return reactiveInventoryRepository
+                .updateQuantity(name, category, subcategory, quantity);
+    }
+
+    public Mono<List<QuantityUpdateResult>> bulkUpdateItemQuantity(List<QuantityUpdate> items) {
+        // same as InventoryService.bulkUpdateItemQuantity, chunks are written one after the other
+        QuantityUpdateResult[] results = new QuantityUpdateResult[items.size()];
+        List<List<Integer>> chunks = new ArrayList<>();
+        int chunkSize = Math.max(1, appConfig.getBulkChunkSize());
+
+        List<Integer> chunk = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            String rejection = inventoryService.validateQuantityUpdate(items.get(i));
+
+            if (rejection != null) {
+                results[i] = QuantityUpdateResult.of(items.get(i), QuantityUpdateResult.Status.REJECTED, rejection);
+                continue;
+            }
+
+            chunk.add(i);
+
+            if (chunk.size() == chunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+
+        if (!chunk.isEmpty())
+            chunks.add(chunk);
+
+        return Flux.fromIterable(chunks)
+                .concatMap(indexes -> {
+                    List<QuantityUpdate> chunkItems = new ArrayList<>(indexes.size());
+                    indexes.forEach(index -> chunkItems.add(items.get(index)));
+
+                    return reactiveInventoryRepository.bulkUpdateQuantity(chunkItems)
+                            .doOnNext(chunkResults -> {
+                                for (int i = 0; i < chunkResults.size(); i++)
+                                    results[indexes.get(i)] = chunkResults.get(i);
+                            });
+                })
+                .then(Mono.fromSupplier(() -> Arrays.asList(results)));
+    }
+
+    public Mono<Void> deleteInventory(String name) {
+        return reactiveInventoryRepository.deleteByName(name);
+    }
+
+    public Mono<Void> deleteItemInInventory(String name, String category, String subcategory) {
+        return reactiveInventoryRepository.deleteByNameAndCategoryAndSubcategory(name, category, subcategory);
+    }
+
+    public boolean isAllowedItem(String category, String subcategory) {
+        return inventoryService.isAllowedItem(category, subcategory);
+    }
+
+}
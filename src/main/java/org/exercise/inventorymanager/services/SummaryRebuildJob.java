@@ -0,0 +1,75 @@
+package org.exercise.inventorymanager.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.repositories.InventorySummaryRepository;
+import org.exercise.inventorymanager.repositories.JobLeaseRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// periodically recomputes all inventory summaries from the items, see InventorySummaryRepository. Run by the node
+// holding the lease of the job only, the others skip their turn
+@Slf4j
+@Component
+@Profile("!memory")
+@RequiredArgsConstructor
+public class SummaryRebuildJob {
+
+    private static final String JOB = "summary-rebuild";
+
+    private final AppConfig appConfig;
+    private final InventorySummaryRepository inventorySummaryRepository;
+    private final JobLeaseRepository jobLeaseRepository;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        long interval = appConfig.getSummary().getRebuildInterval().toMillis();
+
+        if (interval <= 0)
+            return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "summary-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::rebuildQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    private void rebuildQuietly() {
+        try {
+            // held for two intervals, so its owner renews it on its next turn even after a long rebuild, and
+            // another node takes over once the owner stopped
+            if (!jobLeaseRepository.acquire(JOB, owner, appConfig.getSummary().getRebuildInterval().multipliedBy(2)))
+                return;
+
+            long start = System.nanoTime();
+            int inventories = inventorySummaryRepository.rebuildAll();
+
+            log.info("Rebuilt the summaries of {} inventories in {} ms",
+                    inventories, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            log.warn("Summary rebuild failed: {}", e.getMessage());
+        }
+    }
+
+}
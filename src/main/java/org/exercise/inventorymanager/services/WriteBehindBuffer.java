@@ -0,0 +1,258 @@
+package org.exercise.inventorymanager.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
+import org.exercise.inventorymanager.repositories.InventoryRepository;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WriteBehindBuffer implements MeterBinder {
+
+    private final AppConfig appConfig;
+    private final InventoryRepository inventoryRepository;
+
+    // last write wins: a newer quantity for the same item replaces the pending one
+    private final Map<ItemKey, QuantityUpdate> pending = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong receivedUpdates = new AtomicLong();
+    private final AtomicLong writtenUpdates = new AtomicLong();
+    private final AtomicLong failedUpdates = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+
+    // held to buffer an update, and exclusively to stop: once stopping, updates are written right away instead of
+    // being left behind the final flush, or handed to a scheduler that no longer runs anything
+    private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+    private boolean stopping;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled())
+            return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = Math.max(1, appConfig.getWriteBehind().getFlushIntervalMs());
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduler == null)
+            return;
+
+        stopLock.writeLock().lock();
+        try {
+            stopping = true;
+        } finally {
+            stopLock.writeLock().unlock();
+        }
+
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+
+        // nothing buffered must be lost on a clean shutdown
+        flush();
+        log.info("Write-behind buffer stopped: {} updates received, {} written, coalescing ratio {}",
+                receivedUpdates.get(), writtenUpdates.get(), getCoalescingRatio());
+    }
+
+    public boolean isEnabled() {
+        return appConfig.getWriteBehind().isEnabled();
+    }
+
+    public void offer(QuantityUpdate update) {
+        stopLock.readLock().lock();
+        try {
+            if (stopping)
+                writeThrough(update);
+            else
+                buffer(update);
+        } finally {
+            stopLock.readLock().unlock();
+        }
+    }
+
+    private void buffer(QuantityUpdate update) {
+        ItemKey key = ItemKey.of(update.getName(), update.getCategory(), update.getSubcategory());
+        AppConfig.WriteBehind config = appConfig.getWriteBehind();
+
+        // bounded: when full, the writer pays for the flush instead of growing the map forever
+        if (pending.size() >= config.getMaxPending() && !pending.containsKey(key))
+            flush();
+
+        pending.put(key, update);
+        receivedUpdates.incrementAndGet();
+
+        if (pending.size() >= config.getFlushSize() && flushRequested.compareAndSet(false, true))
+            scheduler.execute(this::flushQuietly);
+    }
+
+    public synchronized void flush() {
+        flushRequested.set(false);
+
+        if (pending.isEmpty())
+            return;
+
+        int chunkSize = Math.max(1, appConfig.getBulkChunkSize());
+        List<QuantityUpdate> chunk = new ArrayList<>(Math.min(chunkSize, pending.size()));
+
+        for (ItemKey key : pending.keySet()) {
+            // remove() returns the latest value, anything written after that goes to the next flush
+            QuantityUpdate update = pending.remove(key);
+
+            if (update == null)
+                continue;
+
+            chunk.add(update);
+
+            if (chunk.size() == chunkSize) {
+                write(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+
+        write(chunk);
+        flushes.incrementAndGet();
+    }
+
+    private synchronized void writeThrough(QuantityUpdate update) {
+        // newer than anything buffered for the item
+        pending.remove(ItemKey.of(update.getName(), update.getCategory(), update.getSubcategory()));
+        receivedUpdates.incrementAndGet();
+        write(List.of(update));
+    }
+
+    public synchronized void discard(String name) {
+        // synchronized with flush, so a pending update cannot be written after the delete
+        pending.keySet().removeIf(key -> key.getName().equals(name));
+    }
+
+    public synchronized void discard(String name, String category, String subcategory) {
+        pending.remove(ItemKey.of(name, category, subcategory));
+    }
+
+    public synchronized void flush(String name, String category, String subcategory) {
+        QuantityUpdate update = pending.remove(ItemKey.of(name, category, subcategory));
+
+        if (update != null)
+            write(List.of(update));
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getReceivedUpdates() {
+        return receivedUpdates.get();
+    }
+
+    public long getWrittenUpdates() {
+        return writtenUpdates.get();
+    }
+
+    public long getFailedUpdates() {
+        return failedUpdates.get();
+    }
+
+    public long getFlushes() {
+        return flushes.get();
+    }
+
+    public double getCoalescingRatio() {
+        // how many received updates were needed for one write to MongoDB
+        long written = writtenUpdates.get();
+
+        return written == 0
+                ? 0
+                : (double) receivedUpdates.get() / written;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("inventory.write-behind.pending", this, WriteBehindBuffer::getPendingCount)
+                .register(registry);
+        Gauge.builder("inventory.write-behind.coalescing-ratio", this, WriteBehindBuffer::getCoalescingRatio)
+                .register(registry);
+        FunctionCounter.builder("inventory.write-behind.received", this, WriteBehindBuffer::getReceivedUpdates)
+                .register(registry);
+        FunctionCounter.builder("inventory.write-behind.written", this, WriteBehindBuffer::getWrittenUpdates)
+                .register(registry);
+        FunctionCounter.builder("inventory.write-behind.failed", this, WriteBehindBuffer::getFailedUpdates)
+                .register(registry);
+        FunctionCounter.builder("inventory.write-behind.flushes", this, WriteBehindBuffer::getFlushes)
+                .register(registry);
+    }
+
+    private void write(List<QuantityUpdate> chunk) {
+        if (chunk.isEmpty())
+            return;
+
+        List<QuantityUpdateResult> results;
+
+        try {
+            results = inventoryRepository.bulkUpdateQuantity(chunk);
+        } catch (RuntimeException e) {
+            // put the updates back, unless a newer value arrived in the meantime
+            for (QuantityUpdate update : chunk)
+                pending.putIfAbsent(ItemKey.of(update.getName(), update.getCategory(), update.getSubcategory()), update);
+
+            throw e;
+        }
+
+        for (QuantityUpdateResult result : results) {
+            if (result.getStatus() == QuantityUpdateResult.Status.FAILED) {
+                failedUpdates.incrementAndGet();
+                log.warn("Write-behind update failed for {}: {}", result.getItem(), result.getMessage());
+            } else {
+                writtenUpdates.incrementAndGet();
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed, will retry on next flush", e);
+        }
+    }
+
+    @Value(staticConstructor = "of")
+    static class ItemKey {
+        String name;
+        String category;
+        String subcategory;
+    }
+
+}
@@ -0,0 +1,431 @@
+package org.exercise.inventorymanager.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// All the inventories in memory: name -> items in an ItemTable, for the memory profile.
+// Every change is appended to the write-ahead log, then applied to the tables, while holding the lock
+// of its inventory, so the log has the same order as the tables, then acknowledged once on disk.
+// A change the log refuses is not applied.
+// Reads only share the read lock of the table they read. A snapshot of all the items is written periodically (and on
+// shutdown), so startup maps the last snapshot and only replays the log written after it.
+@Slf4j
+@Component
+@Profile("memory")
+@RequiredArgsConstructor
+public class InventoryStore {
+
+    private static final int SNAPSHOT_MAGIC = 0x494e5653;
+    private static final int SNAPSHOT_FORMAT = 1;
+
+    // snapshots are mapped this much at a time, a single mapping can not go past 2 GB
+    private static final long SNAPSHOT_WINDOW = 1L << 30;
+
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.bin");
+    private static final Pattern SEGMENT_FILE = Pattern.compile("wal-(\\d+)\\.log");
+
+    private final AppConfig appConfig;
+
+    private final Map<String, Inventory> inventories = new ConcurrentHashMap<>();
+
+    // categories and subcategories of all the inventories
+    private final StringTable strings = new StringTable();
+
+    private Path directory;
+    private WriteAheadLog writeAheadLog;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() throws IOException {
+        AppConfig.Memory config = appConfig.getMemory();
+
+        directory = Path.of(config.getDirectory());
+        Files.createDirectories(directory);
+
+        long segment = recover();
+        writeAheadLog = new WriteAheadLog(directory, segment, config.isFsync(), config.getSegmentSize().toBytes());
+
+        long interval = config.getSnapshotInterval().toMillis();
+
+        if (interval <= 0)
+            return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (writeAheadLog == null)
+            return;
+
+        if (scheduler != null) {
+            scheduler.shutdown();
+
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // the next start reads this snapshot instead of replaying the log
+        snapshot();
+        writeAheadLog.close();
+    }
+
+    public Inventory find(String name) {
+        return inventories.get(name);
+    }
+
+    // Changes an item atomically: the function gets the current item (null if none) and returns the new one,
+    // with the same name, category and subcategory, null to delete it, or the same instance to leave it
+    // unchanged. The change is visible right away, and durable once await(change.getPosition()) returns
+    public Change update(String name, String category, String subcategory,
+                         UnaryOperator<InventoryEntity> function) {
+        Change[] change = new Change[1];
+
+        inventories.compute(name, (key, inventory) -> {
+            InventoryEntity previous = inventory == null ? null : inventory.get(category, subcategory);
+            InventoryEntity current = function.apply(previous);
+
+            if (current == previous) {
+                change[0] = new Change(previous, current, 0);
+                return inventory;
+            }
+
+            byte[] record = current == null
+                    ? LogRecords.deleteItem(name, category, subcategory)
+                    : LogRecords.put(current);
+            long position = writeAheadLog.append(List.of(record));
+
+            if (current == null) {
+                inventory.remove(category, subcategory);
+            } else {
+                if (inventory == null)
+                    inventory = new Inventory(name, strings);
+
+                inventory.put(current);
+            }
+
+            change[0] = new Change(previous, current, position);
+
+            // an inventory exists as long as it has items
+            return inventory.isEmpty() ? null : inventory;
+        });
+
+        return change[0];
+    }
+
+    // returns the position to await, 0 if there was no such inventory
+    public long delete(String name) {
+        long[] position = new long[1];
+
+        inventories.computeIfPresent(name, (key, inventory) -> {
+            position[0] = writeAheadLog.append(List.of(LogRecords.deleteInventory(name)));
+            return null;
+        });
+
+        return position[0];
+    }
+
+    public void await(long position) {
+        if (position > 0)
+            writeAheadLog.await(position);
+    }
+
+    public synchronized void snapshot() throws IOException {
+        long started = System.nanoTime();
+
+        // everything in the previous segments is in the tables by now, the snapshot may also contain
+        // some changes of the new segment, replaying them again gives the same state
+        long segment = writeAheadLog.rotate();
+
+        Path temporary = directory.resolve("snapshot-" + segment + ".tmp");
+        long items = 0;
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream output = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+
+            output.writeInt(SNAPSHOT_MAGIC);
+            output.writeInt(SNAPSHOT_FORMAT);
+
+            for (Inventory inventory : inventories.values()) {
+                for (Iterator<InventoryEntity> iterator = inventory.iterator(); iterator.hasNext(); items++)
+                    output.write(LogRecords.put(iterator.next()));
+            }
+
+            output.writeByte(LogRecords.END);
+            output.writeInt((int) crc.getValue());
+            output.flush();
+
+            channel.force(true);
+        }
+
+        // a snapshot file is always complete, then the log it replaces can go
+        Files.move(temporary, snapshotPath(segment), StandardCopyOption.ATOMIC_MOVE);
+        WriteAheadLog.forceDirectory(directory);
+
+        for (Map.Entry<Long, Path> file : files(SNAPSHOT_FILE).headMap(segment, false).entrySet())
+            Files.deleteIfExists(file.getValue());
+        for (Map.Entry<Long, Path> file : files(SEGMENT_FILE).headMap(segment, false).entrySet())
+            Files.deleteIfExists(file.getValue());
+
+        log.info("Snapshot of {} inventories ({} items) written in {} ms", inventories.size(), items,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.error("Inventory snapshot failed, the write-ahead log keeps growing", e);
+        }
+    }
+
+    private long recover() throws IOException {
+        long started = System.nanoTime();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator)
+                if (file.getFileName().toString().endsWith(".tmp"))
+                    Files.delete(file);
+        }
+
+        NavigableMap<Long, Path> snapshots = files(SNAPSHOT_FILE);
+        NavigableMap<Long, Path> segments = files(SEGMENT_FILE);
+
+        LogRecords.Handler handler = new Replay();
+        long base = 0;
+
+        if (!snapshots.isEmpty()) {
+            base = snapshots.lastKey();
+            readSnapshot(snapshots.lastEntry().getValue(), handler, SNAPSHOT_WINDOW);
+        }
+
+        // the segments before the snapshot are in it, they were about to be deleted
+        NavigableMap<Long, Path> replayed = segments.tailMap(base, true);
+
+        for (Map.Entry<Long, Path> segment : replayed.entrySet())
+            WriteAheadLog.replay(segment.getValue(), segment.getKey().equals(replayed.lastKey()), handler);
+
+        log.info("Recovered {} inventories from {} (snapshot {}, {} log segments) in {} ms", inventories.size(),
+                directory, base, replayed.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        // never appends to an existing segment, its end may have been cut off
+        return Math.max(base, segments.isEmpty() ? 0 : segments.lastKey()) + 1;
+    }
+
+    // the records of a snapshot are read window by window: one cut by the end of a window is read again from the
+    // start of the next one
+    static void readSnapshot(Path path, LogRecords.Handler handler, long window) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long end = channel.size() - Integer.BYTES;
+
+            if (end < 2 * Integer.BYTES)
+                throw new IllegalStateException("Snapshot " + path + " is corrupted!");
+
+            CRC32 crc = new CRC32();
+            for (long position = 0; position < end; position += window)
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(window, end - position)));
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 2 * Integer.BYTES);
+            MappedByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, end, Integer.BYTES);
+
+            if (footer.getInt(0) != (int) crc.getValue() || header.getInt(0) != SNAPSHOT_MAGIC)
+                throw new IllegalStateException("Snapshot " + path + " is corrupted!");
+
+            if (header.getInt(Integer.BYTES) != SNAPSHOT_FORMAT)
+                throw new IllegalStateException("Snapshot " + path + " has an unknown format!");
+
+            long position = 2 * Integer.BYTES;
+
+            while (true) {
+                long length = Math.min(window, end - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int start = 0;
+
+                try {
+                    do {
+                        start = buffer.position();
+                    } while (LogRecords.read(buffer, handler));
+
+                    // the end marker
+                    return;
+                } catch (BufferUnderflowException e) {
+                    // a record is only applied once read whole, the last one of the file must be complete
+                    if (position + length == end || start == 0)
+                        throw new IllegalStateException("Snapshot " + path + " is corrupted at "
+                                + (position + start) + "!");
+                }
+
+                position += start;
+            }
+        }
+    }
+
+    private NavigableMap<Long, Path> files(Pattern pattern) throws IOException {
+        NavigableMap<Long, Path> files = new TreeMap<>();
+
+        try (Stream<Path> list = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) list::iterator) {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+
+                if (matcher.matches())
+                    files.put(Long.parseLong(matcher.group(1)), file);
+            }
+        }
+
+        return files;
+    }
+
+    private Path snapshotPath(long segment) {
+        return directory.resolve("snapshot-" + segment + ".bin");
+    }
+
+    // applies the records read at startup, nothing is logged again
+    private class Replay implements LogRecords.Handler {
+
+        @Override
+        public void put(InventoryEntity item) {
+            inventories.computeIfAbsent(item.getName(), name -> new Inventory(name, strings)).put(item);
+        }
+
+        @Override
+        public void deleteItem(String name, String category, String subcategory) {
+            inventories.computeIfPresent(name, (key, inventory) -> {
+                inventory.remove(category, subcategory);
+                return inventory.isEmpty() ? null : inventory;
+            });
+        }
+
+        @Override
+        public void deleteInventory(String name) {
+            inventories.remove(name);
+        }
+
+    }
+
+    @Value
+    public static class Change {
+
+        InventoryEntity previous;
+        InventoryEntity current;
+
+        // in the write-ahead log, 0 if nothing changed
+        long position;
+
+    }
+
+    // the items of one inventory, sorted like the unique_item_per_inventory index of MongoDB
+    public static final class Inventory {
+
+        private final String name;
+        private final ItemTable items;
+
+        // changes on every write of an item, see InventoryRepository.findVersionByName
+        private volatile long version;
+        private volatile long updatedAt;
+
+        private Inventory(String name, StringTable strings) {
+            this.name = name;
+            this.items = new ItemTable(strings);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public long getUpdatedAt() {
+            return updatedAt;
+        }
+
+        public InventoryEntity get(String category, String subcategory) {
+            return items.get(name, category, subcategory);
+        }
+
+        // fields null for all of them, see ItemTable
+        public List<InventoryEntity> list(Set<String> fields) {
+            return items.list(name, fields);
+        }
+
+        public List<InventoryEntity> list(String category, Set<String> fields) {
+            return items.list(name, category, fields);
+        }
+
+        // in (category, subcategory) order, starting right after the given item if any
+        public List<InventoryEntity> page(String afterCategory, String afterSubcategory, int limit) {
+            return items.page(name, afterCategory, afterSubcategory, limit);
+        }
+
+        public Iterator<InventoryEntity> iterator() {
+            return items.iterator(name);
+        }
+
+        // the writes below only happen while holding the lock of the inventory, see update
+
+        private void put(InventoryEntity item) {
+            items.put(item);
+            touch();
+        }
+
+        private void remove(String category, String subcategory) {
+            if (items.remove(category, subcategory))
+                touch();
+        }
+
+        private boolean isEmpty() {
+            return items.size() == 0;
+        }
+
+        private void touch() {
+            version++;
+            updatedAt = System.currentTimeMillis();
+        }
+
+    }
+
+}
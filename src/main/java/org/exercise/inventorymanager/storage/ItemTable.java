@@ -0,0 +1,539 @@
+package org.exercise.inventorymanager.storage;
+
+import org.bson.types.ObjectId;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+
+// The items of one inventory, stored column by column in primitive arrays instead of one InventoryEntity
+// (and its strings, Integer and Long) per item: category and subcategory are ids in a dictionary shared
+// by all the tables of its owner (the cache, or the store), ObjectIds are stored as their 12 bytes. Entities are only created by the reads,
+// for the items they return. Rows are found by (category, subcategory) through an open-addressing index,
+// and listed in (category, subcategory) order, like the unique_item_per_inventory index of MongoDB.
+// Reads share a read lock, writes take the write lock of the table.
+public final class ItemTable {
+
+    // items read one chunk at a time by iterator, each chunk under the read lock
+    private static final int CHUNK = 1024;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // what the columns do not hold for a row
+    private static final byte NO_QUANTITY = 1;
+    private static final byte NO_VERSION = 2;
+    private static final byte NO_ID = 4;
+    // an id which is not an ObjectId, in otherIds
+    private static final byte OTHER_ID = 8;
+
+    private final StringTable strings;
+
+    private final StampedLock lock = new StampedLock();
+
+    private int size;
+
+    private int[] categories;
+    private int[] subcategories;
+    private int[] quantities;
+    private long[] versions;
+    private long[] idHighs;
+    private int[] idLows;
+    private byte[] flags;
+
+    // only allocated for documents written outside the application, with ids of their own
+    private String[] otherIds;
+
+    // row + 1 by hash of (category, subcategory), 0 for a free slot, linear probing
+    private int[] slots;
+
+    // rows in (category, subcategory) order, null once rows were added or removed
+    private volatile int[] order;
+
+    public ItemTable(StringTable strings) {
+        this(strings, 8);
+    }
+
+    public ItemTable(StringTable strings, int capacity) {
+        this.strings = strings;
+        allocate(Math.max(8, capacity));
+        slots = new int[slotsFor(Math.max(8, capacity))];
+    }
+
+    public static ItemTable of(StringTable strings, List<InventoryEntity> items) {
+        ItemTable table = new ItemTable(strings, items.size());
+
+        for (InventoryEntity item : items)
+            table.put(item);
+
+        return table;
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public InventoryEntity get(String name, String category, String subcategory) {
+        int categoryId = strings.find(category);
+        int subcategoryId = strings.find(subcategory);
+
+        if (categoryId < 0 || subcategoryId < 0)
+            return null;
+
+        long stamp = lock.readLock();
+
+        try {
+            int row = slots[slotOf(categoryId, subcategoryId)] - 1;
+
+            return row < 0 ? null : entity(name, row, null);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // fields null for all of them, a selection of fields leaves out the id and version,
+    // like a MongoDB projection
+    public List<InventoryEntity> list(String name, Set<String> fields) {
+        long stamp = lock.readLock();
+
+        try {
+            int[] sorted = order();
+            List<InventoryEntity> items = new ArrayList<>(size);
+
+            for (int position = 0; position < size; position++)
+                items.add(entity(name, sorted[position], fields));
+
+            return items;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public List<InventoryEntity> list(String name, String category, Set<String> fields) {
+        int categoryId = strings.find(category);
+
+        if (categoryId < 0)
+            return new ArrayList<>();
+
+        long stamp = lock.readLock();
+
+        try {
+            int[] sorted = order();
+            List<InventoryEntity> items = new ArrayList<>();
+
+            // the items of a category are next to each other in the order
+            for (int position = firstOf(sorted, category); position < size; position++) {
+                int row = sorted[position];
+
+                if (categories[row] != categoryId)
+                    break;
+
+                items.add(entity(name, row, fields));
+            }
+
+            return items;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // at most limit items, right after the given item if any, see InventoryRepository.findPageByName
+    public List<InventoryEntity> page(String name, String afterCategory, String afterSubcategory, int limit) {
+        long stamp = lock.readLock();
+
+        try {
+            int[] sorted = order();
+            int from = afterCategory == null ? 0 : firstAfter(sorted, afterCategory, afterSubcategory);
+            int to = (int) Math.min(size, (long) from + limit);
+
+            List<InventoryEntity> items = new ArrayList<>(Math.max(0, to - from));
+
+            for (int position = from; position < to; position++)
+                items.add(entity(name, sorted[position], null));
+
+            return items;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // all the items in order, read chunk by chunk: writes are not blocked for the whole iteration,
+    // and each chunk resumes after the last item returned, whatever was added or removed in between
+    public Iterator<InventoryEntity> iterator(String name) {
+        return new Iterator<>() {
+
+            private List<InventoryEntity> chunk = page(name, null, null, CHUNK);
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                if (position < chunk.size())
+                    return true;
+
+                if (chunk.size() < CHUNK)
+                    return false;
+
+                InventoryEntity last = chunk.get(chunk.size() - 1);
+                chunk = page(name, last.getCategory(), last.getSubcategory(), CHUNK);
+                position = 0;
+
+                return !chunk.isEmpty();
+            }
+
+            @Override
+            public InventoryEntity next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                return chunk.get(position++);
+            }
+
+        };
+    }
+
+    public List<String> ids() {
+        long stamp = lock.readLock();
+
+        try {
+            List<String> ids = new ArrayList<>(size);
+
+            for (int row = 0; row < size; row++)
+                if ((flags[row] & NO_ID) == 0)
+                    ids.add(id(row));
+
+            return ids;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // inserts or replaces the item with the same category and subcategory, the name is not stored
+    public void put(InventoryEntity item) {
+        int category = strings.id(item.getCategory());
+        int subcategory = strings.id(item.getSubcategory());
+
+        long stamp = lock.writeLock();
+
+        try {
+            int slot = slotOf(category, subcategory);
+            int row = slots[slot] - 1;
+
+            if (row < 0) {
+                if (size == categories.length)
+                    allocate(size + (size >> 1));
+
+                if (slotsFor(size + 1) > slots.length) {
+                    rehash(slotsFor(size + 1));
+                    slot = slotOf(category, subcategory);
+                }
+
+                row = size++;
+                categories[row] = category;
+                subcategories[row] = subcategory;
+                slots[slot] = row + 1;
+                order = null;
+            }
+
+            set(row, item);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(String category, String subcategory) {
+        int categoryId = strings.find(category);
+        int subcategoryId = strings.find(subcategory);
+
+        if (categoryId < 0 || subcategoryId < 0)
+            return false;
+
+        long stamp = lock.writeLock();
+
+        try {
+            int slot = slotOf(categoryId, subcategoryId);
+
+            if (slots[slot] == 0)
+                return false;
+
+            remove(slot);
+
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean removeById(String id) {
+        long stamp = lock.writeLock();
+
+        try {
+            for (int row = 0; row < size; row++) {
+                if ((flags[row] & NO_ID) == 0 && id.equals(id(row))) {
+                    remove(slotOf(categories[row], subcategories[row]));
+                    return true;
+                }
+            }
+
+            return false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void set(int row, InventoryEntity item) {
+        byte flag = 0;
+
+        if (item.getQuantity() == null)
+            flag |= NO_QUANTITY;
+        else
+            quantities[row] = item.getQuantity();
+
+        if (item.getVersion() == null)
+            flag |= NO_VERSION;
+        else
+            versions[row] = item.getVersion();
+
+        String id = item.getId();
+
+        if (id == null) {
+            flag |= NO_ID;
+        } else if (ObjectId.isValid(id) && id.equals(new ObjectId(id).toHexString())) {
+            ByteBuffer bytes = ByteBuffer.wrap(new ObjectId(id).toByteArray());
+            idHighs[row] = bytes.getLong();
+            idLows[row] = bytes.getInt();
+        } else {
+            // kept as is, "ABC..." would otherwise come back as "abc..."
+            flag |= OTHER_ID;
+
+            if (otherIds == null)
+                otherIds = new String[categories.length];
+            otherIds[row] = id;
+        }
+
+        if (otherIds != null && (flag & OTHER_ID) == 0)
+            otherIds[row] = null;
+
+        flags[row] = flag;
+    }
+
+    private InventoryEntity entity(String name, int row, Set<String> fields) {
+        boolean all = fields == null;
+        byte flag = flags[row];
+
+        return InventoryEntity.builder()
+                .id(all && (flag & NO_ID) == 0 ? id(row) : null)
+                .name(all || fields.contains("name") ? name : null)
+                .category(all || fields.contains("category") ? strings.get(categories[row]) : null)
+                .subcategory(all || fields.contains("subcategory") ? strings.get(subcategories[row]) : null)
+                .quantity((all || fields.contains("quantity")) && (flag & NO_QUANTITY) == 0 ? quantities[row] : null)
+                .version(all && (flag & NO_VERSION) == 0 ? versions[row] : null)
+                .build();
+    }
+
+    private String id(int row) {
+        if ((flags[row] & OTHER_ID) != 0)
+            return otherIds[row];
+
+        // same as ObjectId.toHexString, without the intermediate ObjectId and byte array
+        char[] hex = new char[24];
+        long high = idHighs[row];
+        int low = idLows[row];
+
+        for (int i = 0; i < 16; i++)
+            hex[i] = HEX[(int) (high >>> (60 - 4 * i)) & 0xf];
+        for (int i = 0; i < 8; i++)
+            hex[16 + i] = HEX[(low >>> (28 - 4 * i)) & 0xf];
+
+        return new String(hex);
+    }
+
+    // the slot holding the key, or the free slot where it would go
+    private int slotOf(int category, int subcategory) {
+        int mask = slots.length - 1;
+        int slot = hash(category, subcategory) & mask;
+
+        while (true) {
+            int row = slots[slot] - 1;
+
+            if (row < 0 || (categories[row] == category && subcategories[row] == subcategory))
+                return slot;
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void remove(int slot) {
+        int row = slots[slot] - 1;
+        int last = size - 1;
+
+        free(slot);
+
+        // the last row fills the hole, so the columns stay dense
+        if (row != last) {
+            slots[slotOf(categories[last], subcategories[last])] = row + 1;
+
+            categories[row] = categories[last];
+            subcategories[row] = subcategories[last];
+            quantities[row] = quantities[last];
+            versions[row] = versions[last];
+            idHighs[row] = idHighs[last];
+            idLows[row] = idLows[last];
+            flags[row] = flags[last];
+
+            if (otherIds != null)
+                otherIds[row] = otherIds[last];
+        }
+
+        if (otherIds != null)
+            otherIds[last] = null;
+
+        size--;
+        order = null;
+    }
+
+    private void free(int slot) {
+        // backward shift deletion: the keys probed past the freed slot move back into it,
+        // unless they would end up before their own home slot
+        int mask = slots.length - 1;
+        int hole = slot;
+
+        for (int next = (hole + 1) & mask; slots[next] != 0; next = (next + 1) & mask) {
+            int row = slots[next] - 1;
+            int home = hash(categories[row], subcategories[row]) & mask;
+
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+        }
+
+        slots[hole] = 0;
+    }
+
+    private void rehash(int length) {
+        slots = new int[length];
+
+        for (int row = 0; row < size; row++)
+            slots[slotOf(categories[row], subcategories[row])] = row + 1;
+    }
+
+    private void allocate(int capacity) {
+        categories = categories == null ? new int[capacity] : Arrays.copyOf(categories, capacity);
+        subcategories = subcategories == null ? new int[capacity] : Arrays.copyOf(subcategories, capacity);
+        quantities = quantities == null ? new int[capacity] : Arrays.copyOf(quantities, capacity);
+        versions = versions == null ? new long[capacity] : Arrays.copyOf(versions, capacity);
+        idHighs = idHighs == null ? new long[capacity] : Arrays.copyOf(idHighs, capacity);
+        idLows = idLows == null ? new int[capacity] : Arrays.copyOf(idLows, capacity);
+        flags = flags == null ? new byte[capacity] : Arrays.copyOf(flags, capacity);
+
+        if (otherIds != null)
+            otherIds = Arrays.copyOf(otherIds, capacity);
+    }
+
+    private int[] order() {
+        // computed under the read lock, concurrent readers may compute the same order twice
+        int[] current = order;
+
+        if (current != null)
+            return current;
+
+        // sorting the ranks of the strings sorts the items, keys are unique
+        int[] ranks = strings.ranks();
+        long[] keys = new long[size];
+
+        for (int row = 0; row < size; row++)
+            keys[row] = (long) ranks[categories[row]] << 32 | ranks[subcategories[row]];
+
+        Arrays.sort(keys);
+
+        int[] byRank = new int[ranks.length];
+        for (int id = 0; id < ranks.length; id++)
+            byRank[ranks[id]] = id;
+
+        int[] sorted = new int[size];
+        for (int position = 0; position < size; position++)
+            sorted[position] = slots[slotOf(byRank[(int) (keys[position] >>> 32)], byRank[(int) keys[position]])] - 1;
+
+        order = sorted;
+
+        return sorted;
+    }
+
+    // the first position whose category is not before the given one
+    private int firstOf(int[] sorted, String category) {
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (compare(strings.get(categories[sorted[middle]]), category) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    // the first position after the given item, which may not exist (anymore)
+    private int firstAfter(int[] sorted, String category, String subcategory) {
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int row = sorted[middle];
+            int comparison = compare(strings.get(categories[row]), category);
+
+            if (comparison == 0)
+                comparison = compare(strings.get(subcategories[row]), subcategory);
+
+            if (comparison <= 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    private static int compare(String left, String right) {
+        if (Objects.equals(left, right))
+            return 0;
+
+        if (left == null || right == null)
+            return left == null ? -1 : 1;
+
+        return left.compareTo(right);
+    }
+
+    private static int hash(int category, int subcategory) {
+        int hash = (category * 0x9e3779b9 + subcategory) * 0x85ebca6b;
+
+        return hash ^ (hash >>> 16);
+    }
+
+    // a power of two, at most three quarters full
+    private static int slotsFor(int rows) {
+        int length = 16;
+
+        while (length - (length >> 2) < rows)
+            length <<= 1;
+
+        return length;
+    }
+
+}
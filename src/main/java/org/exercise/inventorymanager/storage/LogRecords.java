@@ -0,0 +1,111 @@
+package org.exercise.inventorymanager.storage;
+
+import org.exercise.inventorymanager.entities.InventoryEntity;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Binary encoding of the changes, shared by the write-ahead log and the snapshots.
+// A record holds the state after the change, not the operation: replaying it twice gives
+// the same result, so a snapshot may contain changes that are also in the log after it.
+final class LogRecords {
+
+    static final byte PUT = 1;
+    static final byte DELETE_ITEM = 2;
+    static final byte DELETE_INVENTORY = 3;
+
+    // end of the items of a snapshot
+    static final byte END = 0;
+
+    interface Handler {
+
+        void put(InventoryEntity item);
+
+        void deleteItem(String name, String category, String subcategory);
+
+        void deleteInventory(String name);
+
+    }
+
+    private LogRecords() {
+    }
+
+    static byte[] put(InventoryEntity item) {
+        byte[][] strings = encode(item.getName(), item.getCategory(), item.getSubcategory(), item.getId());
+
+        return allocate(PUT, strings, Integer.BYTES + Long.BYTES)
+                .putInt(item.getQuantity())
+                .putLong(item.getVersion())
+                .array();
+    }
+
+    static byte[] deleteItem(String name, String category, String subcategory) {
+        return allocate(DELETE_ITEM, encode(name, category, subcategory), 0).array();
+    }
+
+    static byte[] deleteInventory(String name) {
+        return allocate(DELETE_INVENTORY, encode(name), 0).array();
+    }
+
+    // reads one record, returns false at the end of the items of a snapshot
+    static boolean read(ByteBuffer buffer, Handler handler) {
+        byte type = buffer.get();
+
+        switch (type) {
+            case END:
+                return false;
+            case PUT:
+                String name = readString(buffer);
+                String category = readString(buffer);
+                String subcategory = readString(buffer);
+
+                handler.put(InventoryEntity.builder()
+                        .name(name)
+                        .category(category)
+                        .subcategory(subcategory)
+                        .id(readString(buffer))
+                        .quantity(buffer.getInt())
+                        .version(buffer.getLong())
+                        .build());
+                return true;
+            case DELETE_ITEM:
+                handler.deleteItem(readString(buffer), readString(buffer), readString(buffer));
+                return true;
+            case DELETE_INVENTORY:
+                handler.deleteInventory(readString(buffer));
+                return true;
+            default:
+                throw new IllegalStateException("Unknown record type " + type + "!");
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] encode(String... strings) {
+        byte[][] encoded = new byte[strings.length][];
+
+        for (int i = 0; i < strings.length; i++)
+            encoded[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+
+        return encoded;
+    }
+
+    // the type and the strings (length + UTF-8 bytes) are written, the rest is left to the caller
+    private static ByteBuffer allocate(byte type, byte[][] strings, int remaining) {
+        int size = 1 + remaining;
+        for (byte[] string : strings)
+            size += Integer.BYTES + string.length;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).put(type);
+        for (byte[] string : strings)
+            buffer.putInt(string.length).put(string);
+
+        return buffer;
+    }
+
+}
@@ -0,0 +1,104 @@
+package org.exercise.inventorymanager.storage;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dictionary of the categories and subcategories: each distinct string gets a small int id, once,
+// and items only hold the ids. The catalog has a few hundred of them, whatever the number of items.
+// Ids are never reused: the table only grows, with the strings that were ever stored. Owned by the InventoryCache
+// or the InventoryStore, and shared by its tables: it goes away with its owner.
+public final class StringTable {
+
+    // id of null, so items without category (written outside the application) can still be held
+    static final int NULL = 0;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    // replaced when it grows, read without lock
+    private volatile String[] strings = new String[16];
+    private volatile int size = 1;
+
+    // rank of each id in the order of the strings, computed again when the table has grown
+    private volatile int[] ranks = new int[0];
+
+    int id(String string) {
+        if (string == null)
+            return NULL;
+
+        Integer id = ids.get(string);
+
+        return id != null ? id : add(string);
+    }
+
+    // -1 if the string was never stored
+    int find(String string) {
+        if (string == null)
+            return NULL;
+
+        Integer id = ids.get(string);
+
+        return id == null ? -1 : id;
+    }
+
+    String get(int id) {
+        return strings[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    // sorting the ranks sorts the strings, without comparing them
+    int[] ranks() {
+        int[] current = ranks;
+
+        if (current.length == size)
+            return current;
+
+        synchronized (this) {
+            int count = size;
+            String[] snapshot = strings;
+
+            Integer[] sorted = new Integer[count];
+            for (int id = 0; id < count; id++)
+                sorted[id] = id;
+
+            Arrays.sort(sorted, Comparator.comparing(id -> snapshot[id],
+                    Comparator.nullsFirst(Comparator.naturalOrder())));
+
+            int[] computed = new int[count];
+            for (int rank = 0; rank < count; rank++)
+                computed[sorted[rank]] = rank;
+
+            ranks = computed;
+
+            return computed;
+        }
+    }
+
+    private synchronized int add(String string) {
+        Integer existing = ids.get(string);
+
+        if (existing != null)
+            return existing;
+
+        int id = size;
+
+        // the string is published before its id, a reader given the id always finds it
+        String[] current = strings;
+        if (id == current.length)
+            current = Arrays.copyOf(current, current.length * 2);
+
+        // a copy, not the string of the request (or of the decoded document) it came with
+        current[id] = new String(string);
+        strings = current;
+        size = id + 1;
+
+        ids.put(current[id], id);
+
+        return id;
+    }
+
+}
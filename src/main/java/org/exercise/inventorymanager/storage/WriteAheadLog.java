@@ -0,0 +1,318 @@
+package org.exercise.inventorymanager.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Append-only log of the changes, split in segments: one per snapshot interval, and a new one whenever a segment
+// would grow past its maximum size, so that each can be mapped whole on replay.
+// Writers append their records to a shared buffer and wait, a single thread writes the buffer
+// and forces it to disk: all the records appended during a force are committed by the next one
+// (group commit), so concurrent writers share the cost of an fsync.
+// Each record is framed as: length, CRC32 of the payload, payload.
+@Slf4j
+class WriteAheadLog implements Closeable {
+
+    private static final int FRAME_HEADER = Integer.BYTES + Integer.BYTES;
+
+    // below the 2 GB a single mapping can hold
+    static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+    private final Path directory;
+    private final boolean fsync;
+    private final long segmentSize;
+
+    // guards the buffer, the counters and the current segment
+    private final Object lock = new Object();
+
+    // held while writing to a segment, so the segment is not switched in the middle of a write
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final Thread writer;
+
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appended;
+    private long durable;
+    private IOException failure;
+    private boolean closed;
+
+    private long segment;
+    private FileChannel channel;
+
+    // written to the current segment, only touched while holding writeLock
+    private long written;
+
+    WriteAheadLog(Path directory, long segment, boolean fsync, long segmentSize) throws IOException {
+        if (segmentSize <= 0 || segmentSize > MAX_SEGMENT_SIZE)
+            throw new IllegalArgumentException("Segment size must be between 1 byte and " + MAX_SEGMENT_SIZE
+                    + " bytes!");
+
+        this.directory = directory;
+        this.fsync = fsync;
+        this.segmentSize = segmentSize;
+        this.segment = segment;
+        this.channel = open(directory, segment);
+
+        writer = new Thread(this::run, "write-ahead-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    long getSegment() {
+        synchronized (lock) {
+            return segment;
+        }
+    }
+
+    // returns the position to wait for, see await. Records appended together are written together.
+    // Throws if the log is closed or failed, the change must then not be applied
+    long append(List<byte[]> records) {
+        synchronized (lock) {
+            if (closed)
+                throw new IllegalStateException("Write-ahead log is closed!");
+
+            if (failure != null)
+                throw new IllegalStateException("Write-ahead log failed!", failure);
+
+            CRC32 crc = new CRC32();
+
+            for (byte[] record : records) {
+                crc.reset();
+                crc.update(record);
+
+                pending.writeBytes(ByteBuffer.allocate(FRAME_HEADER)
+                        .putInt(record.length)
+                        .putInt((int) crc.getValue())
+                        .array());
+                pending.writeBytes(record);
+            }
+
+            lock.notifyAll();
+
+            return ++appended;
+        }
+    }
+
+    // blocks until the records appended at this position are on disk
+    void await(long position) {
+        synchronized (lock) {
+            boolean interrupted = false;
+
+            while (durable < position && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    // the change is already visible in memory, it has to be acknowledged or failed
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted)
+                Thread.currentThread().interrupt();
+
+            if (durable < position)
+                throw new IllegalStateException("Write-ahead log failed!", failure);
+        }
+    }
+
+    // starts a new segment, returns its number. Everything appended before is in the previous ones
+    long rotate() throws IOException {
+        writeLock.lock();
+
+        try {
+            // the records still pending go to the new segment, replaying them after the snapshot is harmless
+            return nextSegment();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // only while holding writeLock
+    private long nextSegment() throws IOException {
+        FileChannel previous;
+        long next;
+
+        synchronized (lock) {
+            previous = channel;
+            channel = open(directory, segment + 1);
+            next = ++segment;
+        }
+
+        written = 0;
+        previous.force(false);
+        previous.close();
+
+        return next;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (lock) {
+            channel.close();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            synchronized (lock) {
+                while (pending.size() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+
+                if (pending.size() == 0)
+                    return;
+            }
+
+            writeLock.lock();
+
+            try {
+                write();
+            } catch (IOException e) {
+                // writers fail from now on, rather than acknowledging changes that would be lost
+                log.error("Write-ahead log failed, writes are refused", e);
+
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void write() throws IOException {
+        ByteBuffer bytes;
+        long position;
+        FileChannel target;
+
+        synchronized (lock) {
+            bytes = ByteBuffer.wrap(pending.toByteArray());
+            pending = new ByteArrayOutputStream(Math.max(32, bytes.capacity()));
+            position = appended;
+        }
+
+        // records are never split between segments, only a single write larger than the size goes past it
+        if (written > 0 && written + bytes.remaining() > segmentSize)
+            nextSegment();
+
+        if (written + bytes.remaining() > MAX_SEGMENT_SIZE)
+            throw new IOException("Write of " + bytes.remaining() + " bytes is too large for a log segment!");
+
+        synchronized (lock) {
+            target = channel;
+        }
+
+        written += bytes.remaining();
+
+        while (bytes.hasRemaining())
+            target.write(bytes);
+
+        if (fsync)
+            target.force(false);
+
+        synchronized (lock) {
+            durable = position;
+            lock.notifyAll();
+        }
+    }
+
+    static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("wal-%019d.log", segment));
+    }
+
+    // replays a segment, a torn record at its end (crash in the middle of a write) is cut off
+    static void replay(Path path, boolean last, LogRecords.Handler handler) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = file.size();
+
+            if (size > Integer.MAX_VALUE)
+                throw new IllegalStateException("Write-ahead log segment " + path + " is too large!");
+
+            MappedByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+
+            while (buffer.remaining() > 0) {
+                int start = buffer.position();
+                int length = validLength(buffer, crc);
+
+                if (length < 0) {
+                    if (!last)
+                        throw new IllegalStateException("Write-ahead log segment " + path + " is corrupted at "
+                                + start + "!");
+
+                    log.warn("Cutting off a torn record at the end of {}, at {}", path, start);
+                    file.truncate(start);
+                    return;
+                }
+
+                LogRecords.read(buffer.slice(buffer.position(), length), handler);
+                buffer.position(buffer.position() + length);
+            }
+        }
+    }
+
+    private static int validLength(ByteBuffer buffer, CRC32 crc) {
+        // the length of the payload, right after the frame header, or -1 if the record is incomplete or damaged
+        if (buffer.remaining() < FRAME_HEADER)
+            return -1;
+
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+
+        if (length < 0 || length > buffer.remaining())
+            return -1;
+
+        crc.reset();
+        crc.update(buffer.slice(buffer.position(), length));
+
+        return (int) crc.getValue() == checksum ? length : -1;
+    }
+
+    private static FileChannel open(Path directory, long segment) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(directory, segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        // the new file must survive a crash too, not only its content
+        forceDirectory(directory);
+
+        return channel;
+    }
+
+    static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not supported on every platform
+            log.debug("Could not force directory {}", directory, e);
+        }
+    }
+
+}
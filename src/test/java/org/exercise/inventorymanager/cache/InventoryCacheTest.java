@@ -0,0 +1,57 @@
+package org.exercise.inventorymanager.cache;
+
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.services.InventoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class InventoryCacheTest {
+
+    private final InventoryService inventoryService;
+    private final InventoryCache inventoryCache;
+
+    @Autowired
+    InventoryCacheTest(InventoryService inventoryService, InventoryCache inventoryCache) {
+        this.inventoryService = inventoryService;
+        this.inventoryCache = inventoryCache;
+    }
+
+    @Test
+    void findAllItemsByName_ShouldHitCacheOnSecondRead() {
+        inventoryService.updateItemQuantity("findAllItemsByName_ShouldHitCache", "cat1", "subcat1", 8);
+
+        long hitsBefore = inventoryCache.getHitCount();
+        long missesBefore = inventoryCache.getMissCount();
+
+        inventoryService.findAllItemsByName("findAllItemsByName_ShouldHitCache");
+        inventoryService.findAllItemsByNameAndCategory("findAllItemsByName_ShouldHitCache", "cat1");
+        inventoryService.findSpecificItemInInventory("findAllItemsByName_ShouldHitCache", "cat1", "subcat1");
+
+        assertThat(inventoryCache.getMissCount() - missesBefore).isEqualTo(1);
+        assertThat(inventoryCache.getHitCount() - hitsBefore).isEqualTo(2);
+    }
+
+    @Test
+    void updateItemQuantity_ShouldInvalidateCachedInventory() {
+        inventoryService.updateItemQuantity("updateItemQuantity_ShouldInvalidate", "cat1", "subcat1", 8);
+        assertThat(inventoryService.findAllItemsByName("updateItemQuantity_ShouldInvalidate")).hasSize(1);
+
+        inventoryService.updateItemQuantity("updateItemQuantity_ShouldInvalidate", "cat1", "subcat2", 16);
+        assertThat(inventoryService.findAllItemsByName("updateItemQuantity_ShouldInvalidate")).hasSize(2);
+
+        InventoryEntity entity = inventoryService.findSpecificItemInInventory(
+                "updateItemQuantity_ShouldInvalidate", "cat1", "subcat2");
+        assertThat(entity.getQuantity()).isEqualTo(16);
+
+        inventoryService.deleteItemInInventory("updateItemQuantity_ShouldInvalidate", "cat1", "subcat2");
+        assertThat(inventoryService.findAllItemsByName("updateItemQuantity_ShouldInvalidate")).hasSize(1);
+
+        inventoryService.deleteInventory("updateItemQuantity_ShouldInvalidate");
+        assertThat(inventoryService.findAllItemsByName("updateItemQuantity_ShouldInvalidate")).isEmpty();
+    }
+
+}
@@ -0,0 +1,170 @@
+package org.exercise.inventorymanager.cache;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.entities.ResumeTokenEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.Message;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class InventoryChangeListenerTest {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    InventoryChangeListenerTest(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Test
+    void onMessage_ShouldPatchCachedInventory() {
+        String name = "onMessage_ShouldPatchCachedInventory";
+        String id1 = new ObjectId().toHexString();
+        String id2 = new ObjectId().toHexString();
+        InventoryCache inventoryCache = new InventoryCache(changeStreamConfig("onMessage_ShouldPatch"));
+        InventoryChangeListener listener = new InventoryChangeListener(changeStreamConfig("onMessage_ShouldPatch"),
+                mongoTemplate, inventoryCache);
+
+        inventoryCache.get(name, key -> List.of(item(id1, name, "subcat1", 1, 1)));
+
+        // an insert, then an update of the same item
+        listener.onMessage(message(OperationType.INSERT, id2, item(id2, name, "subcat2", 2, 1)));
+        listener.onMessage(message(OperationType.UPDATE, id1, item(id1, name, "subcat1", 3, 2)));
+
+        assertThat(cached(inventoryCache, name))
+                .extracting(InventoryEntity::getSubcategory, InventoryEntity::getQuantity)
+                .containsExactly(tuple("subcat1", 3), tuple("subcat2", 2));
+
+        // a change older than the cached item is ignored
+        listener.onMessage(message(OperationType.UPDATE, id1, item(id1, name, "subcat1", 1, 1)));
+        assertThat(cached(inventoryCache, name).get(0).getQuantity()).isEqualTo(3);
+
+        // a delete only carries the id of the document
+        listener.onMessage(message(OperationType.DELETE, id2, null));
+        assertThat(cached(inventoryCache, name))
+                .extracting(InventoryEntity::getSubcategory)
+                .containsExactly("subcat1");
+
+        // the document deleted before its full document could be looked up
+        listener.onMessage(message(OperationType.UPDATE, id1, null));
+        assertThat(cached(inventoryCache, name)).isEmpty();
+    }
+
+    @Test
+    void onMessage_ShouldInvalidateOnDrop() {
+        String name = "onMessage_ShouldInvalidateOnDrop";
+        InventoryCache inventoryCache = new InventoryCache(changeStreamConfig("onMessage_ShouldInvalidate"));
+        InventoryChangeListener listener = new InventoryChangeListener(
+                changeStreamConfig("onMessage_ShouldInvalidate"), mongoTemplate, inventoryCache);
+
+        String id = new ObjectId().toHexString();
+        inventoryCache.get(name, key -> List.of(item(id, name, "subcat1", 1, 1)));
+
+        listener.onMessage(message(OperationType.DROP, null, null));
+
+        assertThat(inventoryCache.getAllPresent(List.of(name))).isEmpty();
+    }
+
+    @Test
+    void start_ShouldResumeFromStoredToken() {
+        AppConfig appConfig = changeStreamConfig("start_ShouldResume");
+        String tokenId = "start_ShouldResume:" + mongoTemplate.getCollectionName(InventoryEntity.class);
+        BsonDocument stored = new BsonDocument("_data", new BsonString("stored"));
+
+        mongoTemplate.save(ResumeTokenEntity.builder()
+                .id(tokenId)
+                .token(stored.toJson())
+                .updatedAt(Instant.now())
+                .build());
+
+        InventoryChangeListener listener = new InventoryChangeListener(appConfig, mongoTemplate,
+                new InventoryCache(appConfig));
+        listener.start();
+
+        assertThat(listener.getSubscribedToken()).isEqualTo(stored);
+
+        // the token of the last change applied is saved on stop, the next start resumes after it
+        String id = new ObjectId().toHexString();
+        listener.onMessage(message(OperationType.DELETE, id, null, new BsonDocument("_data", new BsonString("last"))));
+        listener.stop();
+
+        InventoryChangeListener restarted = new InventoryChangeListener(appConfig, mongoTemplate,
+                new InventoryCache(appConfig));
+        restarted.start();
+
+        assertThat(restarted.getSubscribedToken()).isEqualTo(new BsonDocument("_data", new BsonString("last")));
+
+        restarted.stop();
+    }
+
+    private static AppConfig changeStreamConfig(String nodeId) {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getCache().getChangeStream().setEnabled(true);
+        appConfig.getCache().getChangeStream().setNodeId(nodeId);
+
+        return appConfig;
+    }
+
+    private static InventoryEntity item(String id, String name, String subcategory, int quantity, long version) {
+        return InventoryEntity.builder()
+                .id(id)
+                .name(name)
+                .category("cat1")
+                .subcategory(subcategory)
+                .quantity(quantity)
+                .version(version)
+                .build();
+    }
+
+    private static List<InventoryEntity> cached(InventoryCache inventoryCache, String name) {
+        return inventoryCache.getAllPresent(List.of(name)).get(name).list(name, null);
+    }
+
+    private static Message<ChangeStreamDocument<Document>, InventoryEntity> message(OperationType type, String id,
+                                                                                   InventoryEntity body) {
+        return message(type, id, body, new BsonDocument("_data", new BsonString(new ObjectId().toHexString())));
+    }
+
+    private static Message<ChangeStreamDocument<Document>, InventoryEntity> message(OperationType type, String id,
+                                                                                   InventoryEntity body,
+                                                                                   BsonDocument token) {
+        BsonDocument key = id == null ? null : new BsonDocument("_id", new BsonObjectId(new ObjectId(id)));
+        // only what the listener reads: the operation, the resume token and the key
+        ChangeStreamDocument<Document> change = new ChangeStreamDocument<>(type.getValue(), token, null, null, null,
+                null, key, null, null, null, null, null, null, null);
+
+        return new Message<>() {
+            @Override
+            public ChangeStreamDocument<Document> getRaw() {
+                return change;
+            }
+
+            @Override
+            public InventoryEntity getBody() {
+                return body;
+            }
+
+            @Override
+            public MessageProperties getProperties() {
+                return MessageProperties.empty();
+            }
+        };
+    }
+
+}
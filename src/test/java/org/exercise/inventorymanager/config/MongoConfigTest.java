@@ -0,0 +1,69 @@
+package org.exercise.inventorymanager.config;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MongoConfigTest {
+
+    @Test
+    void mongoClientSettingsCustomizer_ShouldApplyTypedSettings() {
+        MongoConfig mongoConfig = new MongoConfig();
+        mongoConfig.getPool().setMaxSize(250);
+        mongoConfig.getPool().setMaxWaitTime(Duration.ofMillis(500));
+        mongoConfig.setReadTimeout(Duration.ofSeconds(3));
+        mongoConfig.setReadPreference("secondaryPreferred");
+        mongoConfig.setWriteConcern("majority");
+
+        MongoClientSettings.Builder builder = MongoClientSettings.builder();
+        mongoConfig.mongoClientSettingsCustomizer().customize(builder);
+        MongoClientSettings settings = builder.build();
+
+        assertThat(settings.getConnectionPoolSettings().getMaxSize()).isEqualTo(250);
+        assertThat(settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS)).isEqualTo(500);
+        assertThat(settings.getSocketSettings().getReadTimeout(TimeUnit.MILLISECONDS)).isEqualTo(3000);
+        assertThat(settings.getWriteConcern()).isEqualTo(WriteConcern.MAJORITY);
+
+        // only the read template uses the configured read preference
+        assertThat(settings.getReadPreference()).isEqualTo(ReadPreference.primary());
+        assertThat(mongoConfig.isReadFromPrimary()).isFalse();
+    }
+
+    @Test
+    void mongoClientSettingsCustomizer_ShouldGiveWayToTheUri() {
+        MongoConfig mongoConfig = new MongoConfig();
+        mongoConfig.getPool().setMaxSize(250);
+        mongoConfig.getPool().setMinSize(5);
+        mongoConfig.setWriteConcern("majority");
+
+        // in the order of Spring Boot, which applies the URI after this customizer
+        MongoClientSettings.Builder builder = MongoClientSettings.builder();
+        mongoConfig.mongoClientSettingsCustomizer().customize(builder);
+        builder.applyConnectionString(new ConnectionString(
+                "mongodb://localhost/?maxPoolSize=20&w=1&readPreference=secondaryPreferred"));
+        MongoClientSettings settings = builder.build();
+
+        assertThat(settings.getConnectionPoolSettings().getMaxSize()).isEqualTo(20);
+        assertThat(settings.getConnectionPoolSettings().getMinSize()).isEqualTo(5);
+        assertThat(settings.getWriteConcern()).isEqualTo(WriteConcern.W1);
+        assertThat(settings.getReadPreference()).isEqualTo(ReadPreference.secondaryPreferred());
+    }
+
+    @Test
+    void mongoClientSettingsCustomizer_ShouldRejectUnknownWriteConcern() {
+        MongoConfig mongoConfig = new MongoConfig();
+        mongoConfig.setBulkWriteConcern("sometimes");
+
+        assertThatThrownBy(mongoConfig::mongoClientSettingsCustomizer)
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -1,17 +1,34 @@
 package org.exercise.inventorymanager.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.jayway.jsonpath.JsonPath;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+// metrics are not exported in tests by default since Spring Boot 3, prometheus_ShouldExposeOperationTimers reads them
+@AutoConfigureObservability
 class InventoryControllerTest {
 
     private final MockMvc mockMvc;
@@ -104,6 +121,158 @@ class InventoryControllerTest {
                 .andExpect(status().is4xxClientError());
     }
 
+    @Test
+    void adjustQuantity_ShouldRefuseNegativeQuantity() throws Exception {
+        this.mockMvc.perform(patch("/inventory/adjustQuantity/cat1/subcat1").param("delta", "4"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.quantity").value(4));
+
+        this.mockMvc.perform(patch("/inventory/adjustQuantity/cat1/subcat1").param("delta", "-5"))
+                .andExpect(status().isConflict());
+
+        this.mockMvc.perform(patch("/inventory/adjustQuantity/cat1/subcat1").param("delta", "-4"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.quantity").value(0));
+
+        this.mockMvc.perform(patch("/inventory/adjustQuantity/cat1/subcat2").param("delta", "-1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void bulkUpdateQuantity_ShouldCreateItems() throws Exception {
+        this.mockMvc.perform(post("/inventory/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\":\"bulkUpdateQuantity\",\"category\":\"CAT1\",\"subcategory\":\"subcat1\",\"quantity\":8}," +
+                                "{\"name\":\"bulkUpdateQuantity\",\"category\":\"cat1\",\"subcategory\":\"nope\",\"quantity\":8}]"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$[0].status").value("INSERTED"))
+                .andExpect(jsonPath("$[1].status").value("REJECTED"));
+
+        this.mockMvc.perform(get("/inventory/bulkUpdateQuantity/cat1/subcat1"))
+                .andExpect(status().is2xxSuccessful());
+
+        // empty batch
+        this.mockMvc.perform(post("/inventory/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    void streamAllItemsInInventory_ShouldWriteJsonArrayOrNdjson() throws Exception {
+        this.mockMvc.perform(get("/inventory/streamAllItemsInInventory").param("stream", "true"))
+                .andExpect(status().isNotFound());
+
+        this.mockMvc.perform(post("/inventory/streamAllItemsInInventory/cat1/subcat1/8"))
+                .andExpect(status().is2xxSuccessful());
+        this.mockMvc.perform(post("/inventory/streamAllItemsInInventory/cat1/subcat2/16"))
+                .andExpect(status().is2xxSuccessful());
+
+        MvcResult json = this.mockMvc.perform(get("/inventory/streamAllItemsInInventory").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(json))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].subcategory").value("subcat1"));
+
+        MvcResult ndjson = this.mockMvc.perform(get("/inventory/streamAllItemsInInventory")
+                        .param("stream", "true")
+                        .accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = this.mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(body.split("\n")).hasSize(2);
+    }
+
+    @Test
+    void getPageOfItemsInInventory_ShouldFollowNextToken() throws Exception {
+        this.mockMvc.perform(post("/inventory/getPageOfItemsInInventory/cat1/subcat1/1"))
+                .andExpect(status().is2xxSuccessful());
+        this.mockMvc.perform(post("/inventory/getPageOfItemsInInventory/cat1/subcat2/2"))
+                .andExpect(status().is2xxSuccessful());
+        this.mockMvc.perform(post("/inventory/getPageOfItemsInInventory/cat2/subcat3/3"))
+                .andExpect(status().is2xxSuccessful());
+
+        MvcResult firstPage = this.mockMvc.perform(get("/inventory/getPageOfItemsInInventory").param("limit", "2"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.next").isNotEmpty())
+                .andReturn();
+
+        String next = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.next");
+
+        this.mockMvc.perform(get("/inventory/getPageOfItemsInInventory")
+                        .param("limit", "2")
+                        .param("after", next))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].subcategory").value("subcat3"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+
+        // bad limit or token
+        this.mockMvc.perform(get("/inventory/getPageOfItemsInInventory").param("limit", "0"))
+                .andExpect(status().is4xxClientError());
+        this.mockMvc.perform(get("/inventory/getPageOfItemsInInventory")
+                        .param("limit", "2")
+                        .param("after", "not a token"))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    void getInventory_ShouldRejectCombinedReads() throws Exception {
+        this.mockMvc.perform(post("/inventory/getInventory_ShouldRejectCombinedReads/cat1/subcat1/1"))
+                .andExpect(status().is2xxSuccessful());
+
+        this.mockMvc.perform(get("/inventory/getInventory_ShouldRejectCombinedReads")
+                        .param("stream", "true")
+                        .param("limit", "10"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/inventory/getInventory_ShouldRejectCombinedReads")
+                        .param("shape", "compact")
+                        .param("limit", "10"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/inventory/getInventory_ShouldRejectCombinedReads").param("after", "token"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/inventory/getInventory_ShouldRejectCombinedReads").param("shape", "flat"))
+                .andExpect(status().isBadRequest());
+
+        // stream=false is the same as no stream
+        this.mockMvc.perform(get("/inventory/getInventory_ShouldRejectCombinedReads")
+                        .param("stream", "false")
+                        .param("limit", "10"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.items.length()").value(1));
+    }
+
+    @Test
+    void prometheus_ShouldExposeOperationTimers() throws Exception {
+        this.mockMvc.perform(get("/inventory/prometheus_ShouldExposeOperationTimers"))
+                .andExpect(status().isNotFound());
+
+        this.mockMvc.perform(post("/inventory/prometheus_ShouldExposeOperationTimers/cat1/subcat3/1"))
+                .andExpect(status().isBadRequest());
+
+        String metrics = this.mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(metrics)
+                .contains("inventory_operation_seconds_bucket")
+                .contains("layer=\"controller\",operation=\"find-by-name\",outcome=\"not-found\"")
+                .contains("layer=\"controller\",operation=\"upsert\",outcome=\"rejected\"")
+                .contains("layer=\"repository\",operation=\"find-by-name\"");
+    }
+
     @Test
     void paramFormatter_ShouldReturnLowerCaseStrOrNull() {
         assertThat(InventoryController.paramFormatter(null)).isNull();
@@ -113,4 +282,183 @@ class InventoryControllerTest {
         assertThat(InventoryController.paramFormatter("Test1")).isEqualTo("test1");
     }
 
-}
\ No newline at end of file
+    @Test
+    void getAllItemsInInventory_WithFieldsAndCompactShape() throws Exception {
+        this.mockMvc.perform(post("/inventory/getAllItemsInInventory_WithFields/cat1/subcat1/1"))
+                .andExpect(status().is2xxSuccessful());
+        this.mockMvc.perform(post("/inventory/getAllItemsInInventory_WithFields/cat2/subcat3/3"))
+                .andExpect(status().is2xxSuccessful());
+
+        this.mockMvc.perform(get("/inventory/getAllItemsInInventory_WithFields").param("fields", "subcategory,quantity"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].quantity").exists())
+                .andExpect(jsonPath("$[0].subcategory").exists())
+                .andExpect(jsonPath("$[0].name").doesNotExist())
+                .andExpect(jsonPath("$[0].category").doesNotExist());
+
+        this.mockMvc.perform(get("/inventory/getAllItemsInInventory_WithFields/cat2").param("fields", "quantity"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].quantity").value(3))
+                .andExpect(jsonPath("$[0].subcategory").doesNotExist());
+
+        this.mockMvc.perform(get("/inventory/getAllItemsInInventory_WithFields").param("shape", "compact"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.name").value("getAllItemsInInventory_WithFields"))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].name").doesNotExist())
+                .andExpect(jsonPath("$.items[0].category").exists());
+
+        // unknown field
+        this.mockMvc.perform(get("/inventory/getAllItemsInInventory_WithFields").param("fields", "price"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get("/inventory/getAllItemsInInventory_WithFields")
+                        .param("shape", "compact")
+                        .param("fields", "name"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void bulkUpdateQuantity_WithCborAndSmile() throws Exception {
+        MediaType cbor = MediaType.parseMediaType("application/cbor");
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+        byte[] request = cborMapper.writeValueAsBytes(List.of(
+                new QuantityUpdate("bulkUpdateQuantity_WithCbor", "cat1", "subcat1", 8)));
+
+        MvcResult bulk = this.mockMvc.perform(post("/inventory/bulk")
+                        .contentType(cbor)
+                        .accept(cbor)
+                        .content(request))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn();
+
+        assertThat(bulk.getResponse().getContentType()).startsWith("application/cbor");
+        assertThat(cborMapper.readTree(bulk.getResponse().getContentAsByteArray()).get(0).get("status").asText())
+                .isEqualTo("INSERTED");
+
+        MvcResult items = this.mockMvc.perform(get("/inventory/bulkUpdateQuantity_WithCbor").accept(smile))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn();
+
+        JsonNode item = smileMapper.readTree(items.getResponse().getContentAsByteArray()).get(0);
+        assertThat(item.get("subcategory").asText()).isEqualTo("subcat1");
+        assertThat(item.get("quantity").asInt()).isEqualTo(8);
+    }
+
+    @Test
+    void getAllItemsInInventory_ShouldAnswerIfNoneMatch() throws Exception {
+        this.mockMvc.perform(post("/inventory/getAllItemsInInventory_IfNoneMatch/cat1/subcat1/1"))
+                .andExpect(status().is2xxSuccessful());
+
+        String etag = this.mockMvc.perform(get("/inventory/getAllItemsInInventory_IfNoneMatch"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc.perform(get("/inventory/getAllItemsInInventory_IfNoneMatch")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // another representation, another tag
+        this.mockMvc.perform(get("/inventory/getAllItemsInInventory_IfNoneMatch")
+                        .param("fields", "quantity")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(post("/inventory/getAllItemsInInventory_IfNoneMatch/cat1/subcat2/2"))
+                .andExpect(status().is2xxSuccessful());
+
+        this.mockMvc.perform(get("/inventory/getAllItemsInInventory_IfNoneMatch")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void updateQuantity_ShouldCheckIfMatch() throws Exception {
+        String etag = this.mockMvc.perform(post("/inventory/updateQuantity_IfMatch/cat1/subcat1/1"))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(this.mockMvc.perform(get("/inventory/updateQuantity_IfMatch/cat1/subcat1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+
+        this.mockMvc.perform(get("/inventory/updateQuantity_IfMatch/cat1/subcat1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        String newEtag = this.mockMvc.perform(post("/inventory/updateQuantity_IfMatch/cat1/subcat1/2")
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(newEtag).isNotEqualTo(etag);
+
+        // lost update: someone else modified the item since
+        this.mockMvc.perform(post("/inventory/updateQuantity_IfMatch/cat1/subcat1/3")
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+        this.mockMvc.perform(delete("/inventory/updateQuantity_IfMatch/cat1/subcat1")
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+        this.mockMvc.perform(post("/inventory/updateQuantity_IfMatch/cat1/subcat1/3")
+                        .header(HttpHeaders.IF_MATCH, "not a tag"))
+                .andExpect(status().isPreconditionFailed());
+
+        // If-Match: * only updates existing items
+        this.mockMvc.perform(post("/inventory/updateQuantity_IfMatch/cat1/subcat2/3")
+                        .header(HttpHeaders.IF_MATCH, "*"))
+                .andExpect(status().isPreconditionFailed());
+
+        this.mockMvc.perform(delete("/inventory/updateQuantity_IfMatch/cat1/subcat1")
+                        .header(HttpHeaders.IF_MATCH, newEtag))
+                .andExpect(status().is2xxSuccessful());
+
+        this.mockMvc.perform(get("/inventory/updateQuantity_IfMatch/cat1/subcat1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getItemsInInventories_ShouldGroupByInventory() throws Exception {
+        this.mockMvc.perform(post("/inventory/getItemsInInventories_1/cat1/subcat1/1"))
+                .andExpect(status().is2xxSuccessful());
+        this.mockMvc.perform(post("/inventory/getItemsInInventories_1/cat2/subcat3/2"))
+                .andExpect(status().is2xxSuccessful());
+        this.mockMvc.perform(post("/inventory/getItemsInInventories_2/cat1/subcat2/3"))
+                .andExpect(status().is2xxSuccessful());
+
+        this.mockMvc.perform(get("/inventories")
+                        .param("names", "getItemsInInventories_1,getItemsInInventories_2,getItemsInInventories_3"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.getItemsInInventories_1.length()").value(2))
+                .andExpect(jsonPath("$.getItemsInInventories_2.length()").value(1))
+                .andExpect(jsonPath("$.getItemsInInventories_3.length()").value(0));
+
+        this.mockMvc.perform(get("/inventories")
+                        .param("names", "getItemsInInventories_1,getItemsInInventories_2")
+                        .param("category", "CAT1"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.getItemsInInventories_1.length()").value(1))
+                .andExpect(jsonPath("$.getItemsInInventories_1[0].subcategory").value("subcat1"))
+                .andExpect(jsonPath("$.getItemsInInventories_2[0].quantity").value(3));
+
+        this.mockMvc.perform(post("/inventories/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\":\"getItemsInInventories_2\",\"category\":\"cat1\",\"subcategory\":\"subcat2\"}," +
+                                "{\"name\":\"getItemsInInventories_1\",\"category\":\"cat1\",\"subcategory\":\"subcat2\"}," +
+                                "{\"name\":\"getItemsInInventories_1\",\"category\":\"CAT2\",\"subcategory\":\"subcat3\"}]"))
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].quantity").value(3))
+                .andExpect(jsonPath("$[1]").isEmpty())
+                .andExpect(jsonPath("$[2].quantity").value(2));
+
+        this.mockMvc.perform(get("/inventories").param("names", ""))
+                .andExpect(status().is4xxClientError());
+    }
+
+}
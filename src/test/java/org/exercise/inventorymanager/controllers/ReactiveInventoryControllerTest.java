@@ -0,0 +1,84 @@
+package org.exercise.inventorymanager.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest
+@ActiveProfiles("reactive")
+@AutoConfigureWebTestClient
+class ReactiveInventoryControllerTest {
+
+    private final WebTestClient webTestClient;
+
+    @Autowired
+    ReactiveInventoryControllerTest(WebTestClient webTestClient) {
+        this.webTestClient = webTestClient;
+    }
+
+    @Test
+    void createAnInventory() {
+        // check if it's empty
+        this.webTestClient.get().uri("/inventory/reactiveCreateAnInventory")
+                .exchange()
+                .expectStatus().isNotFound();
+
+        // create a product
+        this.webTestClient.post().uri("/inventory/reactiveCreateAnInventory/cat1/subcat1/8")
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+
+        // check the product is created
+        this.webTestClient.get().uri("/inventory/reactiveCreateAnInventory/CAT1/subcat1")
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.quantity").isEqualTo(8);
+    }
+
+    @Test
+    void deleteInventory_WithMultipleItems() {
+        this.webTestClient.post()
+                .uri("/inventory/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"name\":\"reactiveDeleteInventory\",\"category\":\"cat1\",\"subcategory\":\"subcat1\",\"quantity\":8}," +
+                        "{\"name\":\"reactiveDeleteInventory\",\"category\":\"cat1\",\"subcategory\":\"subcat2\",\"quantity\":16}]")
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo("INSERTED")
+                .jsonPath("$[1].status").isEqualTo("INSERTED");
+
+        this.webTestClient.get().uri("/inventory/reactiveDeleteInventory")
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2);
+
+        this.webTestClient.delete().uri("/inventory/reactiveDeleteInventory")
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+
+        this.webTestClient.get().uri("/inventory/reactiveDeleteInventory")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void updateQuantity_ShouldNotWorkBecauseOfBadInput() {
+        // less than zero quantity
+        this.webTestClient.post().uri("/inventory/reactiveUpdateQuantity/cat1/subcat1/-1")
+                .exchange()
+                .expectStatus().is4xxClientError();
+
+        // not an allowed item
+        this.webTestClient.post().uri("/inventory/reactiveUpdateQuantity/cat1/subcat3/1")
+                .exchange()
+                .expectStatus().is4xxClientError();
+    }
+
+}
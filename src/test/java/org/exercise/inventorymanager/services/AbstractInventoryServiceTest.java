@@ -0,0 +1,547 @@
+package org.exercise.inventorymanager.services;
+
+import org.exercise.inventorymanager.dto.Durability;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.dto.QuantityUpdateResult;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.errors.InsufficientQuantityError;
+import org.exercise.inventorymanager.errors.ItemNotFoundError;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// the same tests for every InventoryRepository, the subclasses store the fixtures
+abstract class AbstractInventoryServiceTest {
+
+    private final InventoryService inventoryService;
+
+    AbstractInventoryServiceTest(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    // writes the item straight to the storage, the entity gets what was stored (id...)
+    abstract void insert(InventoryEntity entity);
+
+    // reads the items straight from the storage
+    abstract List<InventoryEntity> findStored(String name);
+
+    @Test
+    void findAllItemsByName_ShouldBeEmpty() {
+        List<InventoryEntity> actualEntities = inventoryService.findAllItemsByName("findAllItemsByName_ShouldBeEmpty");
+        assertThat(actualEntities).isEmpty();
+
+        InventoryEntity entity1 = InventoryEntity.builder()
+                .name("findAllItemsByName_ShouldBeEmpty_DoesNotMatch")
+                .category("cat1")
+                .subcategory("subcat1")
+                .build();
+
+        insert(entity1);
+
+        List<InventoryEntity> actualEntitiesAfterInsert = inventoryService.findAllItemsByName(
+                "findAllItemsByName_ShouldBeEmpty");
+
+        assertThat(actualEntitiesAfterInsert).isEmpty();
+    }
+
+    @Test
+    void findAllItemsByName_ShouldHave2Items() {
+        InventoryEntity entity1 = InventoryEntity.builder()
+                .name("findAllItemsByName_ShouldHave2Items")
+                .category("cat1")
+                .subcategory("subcat1")
+                .build();
+
+        InventoryEntity entity2 = InventoryEntity.builder()
+                .name("findAllItemsByName_ShouldHave2Items")
+                .category("cat2")
+                .subcategory("subcat3")
+                .build();
+
+        InventoryEntity entity3 = InventoryEntity.builder()
+                .name("findAllItemsByName_ShouldHave2Items_ButNotThisOne")
+                .category("cat2")
+                .subcategory("subcat4")
+                .build();
+
+        insert(entity1);
+        insert(entity2);
+        insert(entity3);
+
+        List<InventoryEntity> expectedEntities = List.of(entity1, entity2);
+        List<InventoryEntity> actualEntities = inventoryService.findAllItemsByName("findAllItemsByName_ShouldHave2Items");
+
+        assertThat(actualEntities).hasSize(2);
+        assertThat(actualEntities).containsExactlyInAnyOrderElementsOf(expectedEntities);
+    }
+
+    @Test
+    void findAllItemsByNameAndCategory_ShouldBeEmpty() {
+        InventoryEntity entity = InventoryEntity.builder()
+                .name("findAllItemsByNameAndCategory_ShouldBeEmpty")
+                .category("cat1")
+                .subcategory("subcat1")
+                .build();
+
+        insert(entity);
+
+        List<InventoryEntity> entities = inventoryService
+                .findAllItemsByNameAndCategory("findAllItemsByNameAndCategory_ShouldBeEmpty", "cat2");
+
+        assertThat(entities).isEmpty();
+    }
+
+    @Test
+    void findAllItemsByNameAndCategory_ShouldHave1Item() {
+        InventoryEntity entity1 = InventoryEntity.builder()
+                .name("findAllItemsByNameAndCategory_ShouldHave1Item")
+                .category("cat1")
+                .subcategory("subcat1")
+                .build();
+
+        InventoryEntity entity2 = InventoryEntity.builder()
+                .name("findAllItemsByNameAndCategory_ShouldHave1Item")
+                .category("cat2")
+                .subcategory("subcat3")
+                .build();
+
+        insert(entity1);
+        insert(entity2);
+
+        List<InventoryEntity> expectedEntities = List.of(entity1);
+        List<InventoryEntity> actualEntities = inventoryService.findAllItemsByNameAndCategory(
+                "findAllItemsByNameAndCategory_ShouldHave1Item",
+                "cat1");
+
+        assertThat(actualEntities).hasSize(1);
+        assertThat(actualEntities).containsExactlyInAnyOrderElementsOf(expectedEntities);
+    }
+
+    @Test
+    void findSpecificItemInInventory_ShouldBeEmpty() {
+        InventoryEntity entity = InventoryEntity.builder()
+                .name("findSpecificItemInInventory_ShouldBeEmpty")
+                .category("cat1")
+                .subcategory("subcat1")
+                .build();
+
+        insert(entity);
+
+        InventoryEntity actualEntity = inventoryService
+                .findSpecificItemInInventory(
+                        "findAllItemsByNameAndCategory_ShouldBeEmpty",
+                        "cat1",
+                        "subcat2");
+
+        assertThat(actualEntity).isNull();
+
+    }
+
+    @Test
+    void findSpecificItemInInventory_ShouldHave1Item() {
+        InventoryEntity entity1 = InventoryEntity.builder()
+                .name("findSpecificItemInInventory_ShouldHave1Item")
+                .category("cat1")
+                .subcategory("subcat1")
+                .build();
+
+        InventoryEntity entity2 = InventoryEntity.builder()
+                .name("findSpecificItemInInventory_ShouldHave1Item")
+                .category("cat1")
+                .subcategory("subcat2")
+                .build();
+
+        insert(entity1);
+        insert(entity2);
+
+        InventoryEntity entity = inventoryService
+                .findSpecificItemInInventory(
+                        "findSpecificItemInInventory_ShouldHave1Item",
+                        "cat1",
+                        "subcat2");
+
+        assertThat(entity).isNotNull();
+        assertThat(entity).isEqualTo(entity2);
+    }
+
+    @Test
+    void updateItemQuantity_ShouldCreateItemAndReturnNewlyCreatedItem() {
+        InventoryEntity expectedEntity = InventoryEntity.builder()
+                .name("updateItemQuantity_ShouldCreateItem")
+                .category("cat1")
+                .subcategory("subcat2")
+                .quantity(8)
+                .build();
+
+        InventoryEntity actualEntityBeforeUpdate = inventoryService.findSpecificItemInInventory(
+                "updateItemQuantity_ShouldCreateItem",
+                "cat1",
+                "subcat2");
+
+        assertThat(actualEntityBeforeUpdate).isNull();
+
+        InventoryEntity actualEntityAfterUpdate = inventoryService.updateItemQuantity(
+                "updateItemQuantity_ShouldCreateItem",
+                "cat1",
+                "subcat2",
+                8);
+
+        assertThat(actualEntityAfterUpdate).isNotNull();
+        assertThat(actualEntityAfterUpdate.getId()).isNotNull();
+
+        assertThat(actualEntityAfterUpdate.getName()).isEqualTo(expectedEntity.getName());
+        assertThat(actualEntityAfterUpdate.getCategory()).isEqualTo(expectedEntity.getCategory());
+        assertThat(actualEntityAfterUpdate.getSubcategory()).isEqualTo(expectedEntity.getSubcategory());
+        assertThat(actualEntityAfterUpdate.getQuantity()).isEqualTo(expectedEntity.getQuantity());
+    }
+
+    @Test
+    void updateItemQuantity_ShouldUpdateItem() {
+        InventoryEntity expectedEntity = InventoryEntity.builder()
+                .name("updateItemQuantity_ShouldUpdateItem")
+                .category("cat1")
+                .subcategory("subcat2")
+                .quantity(8)
+                .build();
+
+        insert(expectedEntity);
+
+        InventoryEntity actualEntityBeforeUpdate = inventoryService.findSpecificItemInInventory(
+                "updateItemQuantity_ShouldUpdateItem",
+                "cat1",
+                "subcat2");
+
+        assertThat(actualEntityBeforeUpdate).isNotNull();
+        assertThat(actualEntityBeforeUpdate.getQuantity()).isEqualTo(8);
+
+        InventoryEntity actualEntityAfterUpdate = inventoryService.updateItemQuantity(
+                "updateItemQuantity_ShouldUpdateItem",
+                "cat1",
+                "subcat2",
+                16);
+
+        assertThat(actualEntityAfterUpdate).isNotNull();
+        assertThat(actualEntityAfterUpdate.getId()).isNotNull();
+
+        assertThat(actualEntityAfterUpdate.getName()).isEqualTo(expectedEntity.getName());
+        assertThat(actualEntityAfterUpdate.getCategory()).isEqualTo(expectedEntity.getCategory());
+        assertThat(actualEntityAfterUpdate.getSubcategory()).isEqualTo(expectedEntity.getSubcategory());
+        assertThat(actualEntityAfterUpdate.getQuantity()).isEqualTo(16);
+    }
+
+    @Test
+    void updateItemQuantity_ShouldThrow() {
+        assertThatThrownBy(() -> inventoryService.updateItemQuantity(
+                null,
+                "cat1",
+                "subcat1",
+                1))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> inventoryService.updateItemQuantity(
+                "",
+                "cat1",
+                "subcat1",
+                1))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> inventoryService.updateItemQuantity(
+                "updateItemQuantity_ShouldThrow",
+                "cat1",
+                "subcat1",
+                -8))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> inventoryService.updateItemQuantity(
+                "updateItemQuantity_ShouldThrow",
+                "cat1",
+                "subcat3",
+                8))
+                .isInstanceOf(ItemNotFoundError.class);
+    }
+
+    @Test
+    void adjustItemQuantity_ShouldCreateThenIncrementAndDecrement() {
+        InventoryEntity created = inventoryService.adjustItemQuantity(
+                "adjustItemQuantity_ShouldIncrement", "cat1", "subcat1", 5, false);
+
+        assertThat(created.getId()).isNotNull();
+        assertThat(created.getQuantity()).isEqualTo(5);
+
+        InventoryEntity incremented = inventoryService.adjustItemQuantity(
+                "adjustItemQuantity_ShouldIncrement", "cat1", "subcat1", 3, false);
+
+        assertThat(incremented.getQuantity()).isEqualTo(8);
+
+        InventoryEntity decremented = inventoryService.adjustItemQuantity(
+                "adjustItemQuantity_ShouldIncrement", "cat1", "subcat1", -8, false);
+
+        assertThat(decremented.getQuantity()).isEqualTo(0);
+    }
+
+    @Test
+    void adjustItemQuantity_ShouldThrow() {
+        inventoryService.updateItemQuantity("adjustItemQuantity_ShouldThrow", "cat1", "subcat1", 2);
+
+        // not enough left
+        assertThatThrownBy(() -> inventoryService.adjustItemQuantity(
+                "adjustItemQuantity_ShouldThrow", "cat1", "subcat1", -3, false))
+                .isInstanceOf(InsufficientQuantityError.class);
+
+        assertThat(inventoryService.findSpecificItemInInventory(
+                "adjustItemQuantity_ShouldThrow", "cat1", "subcat1").getQuantity()).isEqualTo(2);
+
+        // unless explicitly allowed
+        assertThat(inventoryService.adjustItemQuantity(
+                "adjustItemQuantity_ShouldThrow", "cat1", "subcat1", -3, true).getQuantity()).isEqualTo(-1);
+
+        // nothing to decrement
+        assertThatThrownBy(() -> inventoryService.adjustItemQuantity(
+                "adjustItemQuantity_ShouldThrow", "cat1", "subcat2", -1, false))
+                .isInstanceOf(ItemNotFoundError.class);
+
+        // not an allowed item
+        assertThatThrownBy(() -> inventoryService.adjustItemQuantity(
+                "adjustItemQuantity_ShouldThrow", "cat1", "subcat3", 1, false))
+                .isInstanceOf(ItemNotFoundError.class);
+    }
+
+    @Test
+    void adjustItemQuantity_ShouldRejectOutOfRangeQuantities() {
+        inventoryService.updateItemQuantity("adjustItemQuantity_ShouldRejectOutOfRange", "cat1", "subcat1", 2);
+
+        // -Integer.MIN_VALUE is Integer.MIN_VALUE again
+        assertThatThrownBy(() -> inventoryService.adjustItemQuantity(
+                "adjustItemQuantity_ShouldRejectOutOfRange", "cat1", "subcat1", Integer.MIN_VALUE, false))
+                .isInstanceOf(InsufficientQuantityError.class);
+
+        assertThatThrownBy(() -> inventoryService.adjustItemQuantity(
+                "adjustItemQuantity_ShouldRejectOutOfRange", "cat1", "subcat1", Integer.MAX_VALUE, false))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        inventoryService.adjustItemQuantity("adjustItemQuantity_ShouldRejectOutOfRange", "cat1", "subcat1", -4, true);
+
+        assertThatThrownBy(() -> inventoryService.adjustItemQuantity(
+                "adjustItemQuantity_ShouldRejectOutOfRange", "cat1", "subcat1", Integer.MIN_VALUE, true))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(inventoryService.findSpecificItemInInventory(
+                "adjustItemQuantity_ShouldRejectOutOfRange", "cat1", "subcat1").getQuantity()).isEqualTo(-2);
+    }
+
+    @Test
+    void bulkUpdateItemQuantity_ShouldUpsertValidItemsAndRejectOthers() {
+        insert(InventoryEntity.builder()
+                .name("bulkUpdateItemQuantity_ShouldUpsert")
+                .category("cat1")
+                .subcategory("subcat1")
+                .quantity(1)
+                .build());
+
+        List<QuantityUpdate> items = List.of(
+                new QuantityUpdate("bulkUpdateItemQuantity_ShouldUpsert", "cat1", "subcat1", 10),
+                new QuantityUpdate("bulkUpdateItemQuantity_ShouldUpsert", "cat1", "subcat2", 20),
+                new QuantityUpdate("bulkUpdateItemQuantity_ShouldUpsert", "cat1", "subcat3", 30),
+                new QuantityUpdate("", "cat2", "subcat3", 40),
+                new QuantityUpdate("bulkUpdateItemQuantity_ShouldUpsert", "cat2", "subcat3", -1),
+                new QuantityUpdate("bulkUpdateItemQuantity_ShouldUpsert", "cat2", "subcat4", 50));
+
+        List<QuantityUpdateResult> results = inventoryService.bulkUpdateItemQuantity(items);
+
+        assertThat(results).extracting(QuantityUpdateResult::getStatus).containsExactly(
+                QuantityUpdateResult.Status.UPDATED,
+                QuantityUpdateResult.Status.INSERTED,
+                QuantityUpdateResult.Status.REJECTED,
+                QuantityUpdateResult.Status.REJECTED,
+                QuantityUpdateResult.Status.REJECTED,
+                QuantityUpdateResult.Status.INSERTED);
+
+        assertThat(inventoryService.findAllItemsByName("bulkUpdateItemQuantity_ShouldUpsert"))
+                .extracting(InventoryEntity::getSubcategory, InventoryEntity::getQuantity)
+                .containsExactlyInAnyOrder(
+                        tuple("subcat1", 10),
+                        tuple("subcat2", 20),
+                        tuple("subcat4", 50));
+    }
+
+    @Test
+    void bulkUpdateItemQuantity_ShouldKeepLastQuantityOfAnItem() {
+        // in the same chunks, see app.bulk-chunk-size of the tests
+        List<QuantityUpdate> items = List.of(
+                new QuantityUpdate("bulkUpdateItemQuantity_ShouldKeepLast", "cat1", "subcat1", 1),
+                new QuantityUpdate("bulkUpdateItemQuantity_ShouldKeepLast", "cat1", "subcat1", 5),
+                new QuantityUpdate("bulkUpdateItemQuantity_ShouldKeepLast", "cat1", "subcat2", 7),
+                new QuantityUpdate("bulkUpdateItemQuantity_ShouldKeepLast", "cat1", "subcat2", 2));
+
+        List<QuantityUpdateResult> results = inventoryService.bulkUpdateItemQuantity(items);
+
+        assertThat(results).extracting(QuantityUpdateResult::getItem).containsExactlyElementsOf(items);
+        assertThat(results).extracting(QuantityUpdateResult::getStatus)
+                .doesNotContain(QuantityUpdateResult.Status.FAILED, QuantityUpdateResult.Status.REJECTED);
+
+        assertThat(inventoryService.findAllItemsByName("bulkUpdateItemQuantity_ShouldKeepLast"))
+                .extracting(InventoryEntity::getSubcategory, InventoryEntity::getQuantity)
+                .containsExactlyInAnyOrder(
+                        tuple("subcat1", 5),
+                        tuple("subcat2", 2));
+    }
+
+    @Test
+    void deleteItemInInventory_ShouldNotDeleteAnything_BecauseNoMatch() {
+        InventoryEntity entity1 = InventoryEntity.builder()
+                .name("deleteItemInInventory_ShouldNotDeleteAnything_BecauseNoMatch")
+                .category("cat1")
+                .subcategory("subcat1")
+                .build();
+
+        InventoryEntity entity2 = InventoryEntity.builder()
+                .name("deleteItemInInventory_ShouldNotDeleteAnything_BecauseNoMatch")
+                .category("cat1")
+                .subcategory("subcat2")
+                .build();
+
+        insert(entity1);
+        insert(entity2);
+
+        inventoryService.deleteItemInInventory(
+                "deleteItemInInventory_ShouldNotDeleteAnything_BecauseNoMatch",
+                "cat2",
+                "subcat3"
+        );
+
+        List<InventoryEntity> expectedEntities = List.of(entity1, entity2);
+        List<InventoryEntity> actualEntities = inventoryService.findAllItemsByName(
+                "deleteItemInInventory_ShouldNotDeleteAnything_BecauseNoMatch");
+
+        assertThat(actualEntities).hasSize(2);
+        assertThat(actualEntities).containsExactlyInAnyOrderElementsOf(expectedEntities);
+    }
+
+    @Test
+    void deleteItemInInventory_ShouldDeleteOneItem() {
+        InventoryEntity entity1 = InventoryEntity.builder()
+                .name("deleteItemInInventory_ShouldDeleteOneItem")
+                .category("cat1")
+                .subcategory("subcat1")
+                .build();
+
+        InventoryEntity entity2 = InventoryEntity.builder()
+                .name("deleteItemInInventory_ShouldDeleteOneItem")
+                .category("cat1")
+                .subcategory("subcat2")
+                .build();
+
+        insert(entity1);
+        insert(entity2);
+
+        inventoryService.deleteItemInInventory(
+                "deleteItemInInventory_ShouldDeleteOneItem",
+                "cat1",
+                "subcat2"
+        );
+
+        List<InventoryEntity> expectedEntities = List.of(entity1);
+        List<InventoryEntity> actualEntities = findStored("deleteItemInInventory_ShouldDeleteOneItem");
+
+        assertThat(actualEntities).hasSize(1);
+        assertThat(actualEntities).containsExactlyInAnyOrderElementsOf(expectedEntities);
+    }
+
+    @Test
+    void deleteInventory_ShouldDeleteAllItems() {
+        InventoryEntity entity1 = InventoryEntity.builder()
+                .name("deleteInventory_ShouldDeleteAllItems")
+                .category("cat1")
+                .subcategory("subcat1")
+                .build();
+
+        InventoryEntity entity2 = InventoryEntity.builder()
+                .name("deleteInventory_ShouldDeleteAllItems")
+                .category("cat1")
+                .subcategory("subcat2")
+                .build();
+
+        insert(entity1);
+        insert(entity2);
+
+        inventoryService.deleteInventory(
+                "deleteInventory_ShouldDeleteAllItems");
+
+        List<InventoryEntity> actualEntities = findStored("deleteInventory_ShouldDeleteAllItems");
+
+        assertThat(actualEntities).isEmpty();
+    }
+
+    @Test
+    void updateItemQuantity_WithDurability_ShouldWriteRightAway() {
+        InventoryEntity entity = inventoryService.updateItemQuantity(
+                "updateItemQuantity_WithDurability_ShouldWriteRightAway",
+                "cat1",
+                "subcat1",
+                8,
+                Durability.ACKNOWLEDGED);
+
+        assertThat(entity.getId()).isNotNull();
+        assertThat(findStored("updateItemQuantity_WithDurability_ShouldWriteRightAway"))
+                .extracting(InventoryEntity::getQuantity)
+                .containsExactly(8);
+
+        inventoryService.deleteInventory("updateItemQuantity_WithDurability_ShouldWriteRightAway",
+                Durability.MAJORITY);
+
+        assertThat(findStored("updateItemQuantity_WithDurability_ShouldWriteRightAway")).isEmpty();
+    }
+
+    @Test
+    void isAllowedItem_ShouldReturnTrue() {
+        assertThat(inventoryService.isAllowedItem(
+                "cat1",
+                "subcat1"))
+                .isTrue();
+    }
+
+    @Test
+    void isAllowedItem_ShouldReturnFalse() {
+        assertThat(inventoryService.isAllowedItem(
+                "cat1",
+                "subcat3"))
+                .isFalse();
+    }
+
+    @Test
+    void isAllowedItem_ShouldThrow() {
+        assertThatThrownBy(() -> inventoryService.isAllowedItem(
+                "",
+                "subcat1"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> inventoryService.isAllowedItem(
+                "cat1",
+                ""))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> inventoryService.isAllowedItem(
+                "",
+                ""))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> inventoryService.isAllowedItem(
+                null,
+                "subcat1"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> inventoryService.isAllowedItem(
+                "cat1",
+                null))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> inventoryService.isAllowedItem(
+                null,
+                null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package org.exercise.inventorymanager.services;
+
+import org.exercise.inventorymanager.config.AppConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AllowedItemsIndexTest {
+
+    private final AllowedItemsIndex allowedItemsIndex = new AllowedItemsIndex(new AppConfig());
+
+    @Test
+    void isAllowed_ShouldIgnoreCase() {
+        allowedItemsIndex.refresh(Map.of(
+                "food", Set.of("cake", "Cucumber"),
+                "CLOTHES", Set.of("shoes")));
+
+        assertThat(allowedItemsIndex.size()).isEqualTo(3);
+        assertThat(allowedItemsIndex.isAllowed("food", "cake")).isTrue();
+        assertThat(allowedItemsIndex.isAllowed("FOOD", "cucumber")).isTrue();
+        assertThat(allowedItemsIndex.isAllowed("clothes", "SHOES")).isTrue();
+        assertThat(allowedItemsIndex.isAllowed("food", "shoes")).isFalse();
+        assertThat(allowedItemsIndex.isAllowed("toys", "cake")).isFalse();
+        assertThat(allowedItemsIndex.isAllowed(null, "cake")).isFalse();
+    }
+
+    @Test
+    void refresh_ShouldReplaceAllowedItems() {
+        allowedItemsIndex.refresh(Map.of("food", Set.of("cake")));
+        assertThat(allowedItemsIndex.isAllowed("food", "cake")).isTrue();
+
+        allowedItemsIndex.refresh(Map.of("food", Set.of("pie")));
+        assertThat(allowedItemsIndex.isAllowed("food", "cake")).isFalse();
+        assertThat(allowedItemsIndex.isAllowed("food", "pie")).isTrue();
+
+        allowedItemsIndex.refresh(Map.of());
+        assertThat(allowedItemsIndex.isAllowed("food", "pie")).isFalse();
+    }
+
+}
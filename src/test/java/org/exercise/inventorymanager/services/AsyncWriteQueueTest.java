@@ -0,0 +1,176 @@
+package org.exercise.inventorymanager.services;
+
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.errors.WriteQueueFullError;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncWriteQueueTest {
+
+    @Test
+    void submit_ShouldWriteInOrder() throws InterruptedException {
+        AsyncWriteQueue queue = start(400, 4);
+        List<Integer> written = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            int write = i;
+            queue.submit("submit_ShouldWriteInOrder", () -> written.add(write));
+        }
+
+        queue.stop();
+
+        assertThat(written).isEqualTo(IntStream.range(0, 50).boxed().collect(Collectors.toList()));
+        assertThat(queue.getAcceptedWrites()).isEqualTo(50);
+        assertThat(queue.getWrittenWrites()).isEqualTo(50);
+    }
+
+    @Test
+    void submit_ShouldRejectWhenFull() throws InterruptedException {
+        AsyncWriteQueue queue = start(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // the worker is busy with the first write, the second one fills the queue
+        queue.submit("submit_ShouldRejectWhenFull", () -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        started.await();
+        queue.submit("submit_ShouldRejectWhenFull", () -> {
+        });
+
+        assertThatThrownBy(() -> queue.submit("submit_ShouldRejectWhenFull", () -> {
+        })).isInstanceOf(WriteQueueFullError.class);
+        assertThat(queue.getPendingCount()).isEqualTo(1);
+        assertThat(queue.getRejectedWrites()).isEqualTo(1);
+
+        release.countDown();
+        queue.stop();
+
+        assertThat(queue.getWrittenWrites()).isEqualTo(2);
+    }
+
+    @Test
+    void awaitPending_ShouldWaitForQueuedWrites() throws InterruptedException {
+        AsyncWriteQueue queue = start(10, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = new CopyOnWriteArrayList<>();
+
+        // nothing queued, nothing to wait for
+        queue.awaitPending("awaitPending_ShouldWaitForQueuedWrites");
+
+        queue.submit("awaitPending_ShouldWaitForQueuedWrites", () -> {
+            awaitQuietly(release);
+            written.add("accepted");
+        });
+
+        Thread releaser = new Thread(() -> {
+            sleepQuietly(100);
+            release.countDown();
+        });
+        releaser.start();
+
+        queue.awaitPending("awaitPending_ShouldWaitForQueuedWrites");
+        written.add("synchronous");
+
+        assertThat(written).containsExactly("accepted", "synchronous");
+        assertThat(queue.getPendingCount()).isZero();
+
+        releaser.join();
+        queue.stop();
+
+        // the wait is not a write of its own
+        assertThat(queue.getAcceptedWrites()).isEqualTo(1);
+        assertThat(queue.getWrittenWrites()).isEqualTo(1);
+    }
+
+    @Test
+    void stop_ShouldCountFailedWrites() throws InterruptedException {
+        AsyncWriteQueue queue = start(10, 1);
+
+        queue.submit("stop_ShouldCountFailedWrites", () -> {
+            throw new IllegalStateException("Write failed!");
+        });
+        queue.submit("stop_ShouldCountFailedWrites", () -> {
+        });
+
+        queue.stop();
+
+        assertThat(queue.getFailedWrites()).isEqualTo(1);
+        assertThat(queue.getWrittenWrites()).isEqualTo(1);
+        assertThatThrownBy(() -> queue.submit("stop_ShouldCountFailedWrites", () -> {
+        })).isInstanceOf(WriteQueueFullError.class);
+    }
+
+    @Test
+    void stop_ShouldWriteEveryAcceptedWrite() throws InterruptedException {
+        AsyncWriteQueue queue = start(100_000, 4);
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+        List<Thread> clients = new ArrayList<>();
+
+        // clients keep submitting until they are refused, while the queue stops
+        for (int i = 0; i < 4; i++) {
+            String name = "stop_ShouldWriteEveryAcceptedWrite" + i;
+            Thread client = new Thread(() -> {
+                try {
+                    while (true) {
+                        queue.submit(name, written::incrementAndGet);
+                        accepted.incrementAndGet();
+                    }
+                } catch (WriteQueueFullError e) {
+                    // stopped
+                }
+            });
+            client.start();
+            clients.add(client);
+        }
+
+        sleepQuietly(50);
+        queue.stop();
+
+        for (Thread client : clients)
+            client.join();
+
+        assertThat(written.get()).isEqualTo(accepted.get());
+        assertThat(queue.getWrittenWrites()).isEqualTo(accepted.get());
+    }
+
+    private static AsyncWriteQueue start(int capacity, int workers) {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getAsyncWrites().setCapacity(capacity);
+        appConfig.getAsyncWrites().setWorkers(workers);
+
+        AsyncWriteQueue queue = new AsyncWriteQueue(appConfig);
+        queue.start();
+
+        return queue;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.exercise.inventorymanager.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CatalogServiceTest {
+
+    private final CatalogService catalogService;
+    private final InventoryService inventoryService;
+
+    @Autowired
+    CatalogServiceTest(CatalogService catalogService, InventoryService inventoryService) {
+        this.catalogService = catalogService;
+        this.inventoryService = inventoryService;
+    }
+
+    @Test
+    void getCatalog_ShouldBeSeededFromConfig() {
+        assertThat(catalogService.getCatalog()).containsKeys("cat1", "cat2");
+        assertThat(catalogService.getCatalog().get("cat1")).contains("subcat1", "subcat2");
+        assertThat(inventoryService.isAllowedItem("cat1", "subcat1")).isTrue();
+    }
+
+    @Test
+    void addItem_ShouldBeAllowedWithoutRestart() {
+        assertThat(inventoryService.isAllowedItem("addItem_Cat", "addItem_Subcat")).isFalse();
+
+        catalogService.addItem("addItem_Cat", "addItem_Subcat");
+
+        assertThat(inventoryService.isAllowedItem("addItem_Cat", "addItem_Subcat")).isTrue();
+        assertThat(catalogService.getCatalog()).containsKey("additem_cat");
+    }
+
+    @Test
+    void addItem_ShouldRejectFieldPathCharacters() {
+        assertThatThrownBy(() -> catalogService.addItem("add.item", "subcat1"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> catalogService.addItem("$additem", "subcat1"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(catalogService.getCatalog()).doesNotContainKeys("add.item", "$additem");
+    }
+
+    @Test
+    void removeItem_ShouldNotBeAllowedAnymore() {
+        catalogService.addItem("removeItem_Cat", "removeItem_Subcat1");
+        catalogService.addItem("removeItem_Cat", "removeItem_Subcat2");
+
+        assertThat(catalogService.removeItem("removeItem_Cat", "removeItem_Subcat1")).isTrue();
+        assertThat(catalogService.removeItem("removeItem_Cat", "removeItem_Subcat1")).isFalse();
+
+        assertThat(inventoryService.isAllowedItem("removeItem_Cat", "removeItem_Subcat1")).isFalse();
+        assertThat(inventoryService.isAllowedItem("removeItem_Cat", "removeItem_Subcat2")).isTrue();
+
+        assertThat(catalogService.removeCategory("removeItem_Cat")).isTrue();
+        assertThat(catalogService.getCatalog()).doesNotContainKey("removeitem_cat");
+    }
+
+    @Test
+    void reload_ShouldKeepRemovedItemsOut() {
+        catalogService.addItem("reload_Cat", "reload_Subcat");
+        catalogService.removeItem("reload_Cat", "reload_Subcat");
+
+        catalogService.reload();
+
+        assertThat(inventoryService.isAllowedItem("reload_Cat", "reload_Subcat")).isFalse();
+        assertThat(catalogService.getCatalog().get("cat2")).contains("subcat3", "subcat4");
+    }
+
+}
@@ -0,0 +1,121 @@
+package org.exercise.inventorymanager.services;
+
+import org.exercise.inventorymanager.dto.ItemKey;
+import org.exercise.inventorymanager.entities.DeleteJobEntity;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.entities.InventorySummaryEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "app.delete-jobs.chunk-size=2",
+        "app.delete-jobs.pause=0s"
+})
+class DeleteJobServiceTest {
+
+    private final DeleteJobService deleteJobService;
+    private final InventoryService inventoryService;
+    private final InventoryStatsService inventoryStatsService;
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    DeleteJobServiceTest(DeleteJobService deleteJobService, InventoryService inventoryService,
+                         InventoryStatsService inventoryStatsService, MongoTemplate mongoTemplate) {
+        this.deleteJobService = deleteJobService;
+        this.inventoryService = inventoryService;
+        this.inventoryStatsService = inventoryStatsService;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    private void insert(String name, String category, String subcategory, int quantity) {
+        mongoTemplate.insert(InventoryEntity.builder()
+                .name(name)
+                .category(category)
+                .subcategory(subcategory)
+                .quantity(quantity)
+                .build());
+    }
+
+    private DeleteJobEntity awaitFinished(String id) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            DeleteJobEntity job = deleteJobService.findById(id);
+
+            if (job.getStatus() == DeleteJobEntity.Status.DONE || job.getStatus() == DeleteJobEntity.Status.FAILED)
+                return job;
+
+            Thread.sleep(100);
+        }
+
+        throw new AssertionError("Delete job " + id + " did not finish!");
+    }
+
+    @Test
+    void submit_ShouldDeleteInventoriesInChunks() throws InterruptedException {
+        String name = "submit_ShouldDeleteInventoriesInChunks";
+        for (int i = 0; i < 5; i++)
+            insert(name, "cat1", "subcat" + i, i);
+        insert(name + "-kept", "cat1", "subcat1", 1);
+
+        DeleteJobEntity job = awaitFinished(deleteJobService.submit(List.of(name), null).getId());
+
+        assertThat(job.getStatus()).isEqualTo(DeleteJobEntity.Status.DONE);
+        assertThat(job.getDeleted()).isEqualTo(5);
+        assertThat(inventoryService.findAllItemsByName(name)).isEmpty();
+        assertThat(inventoryService.findAllItemsByName(name + "-kept")).hasSize(1);
+    }
+
+    @Test
+    void submit_ShouldDeleteKeys() throws InterruptedException {
+        String name = "submit_ShouldDeleteKeys";
+        insert(name, "cat1", "subcat1", 1);
+        insert(name, "cat1", "subcat2", 2);
+        insert(name, "cat1", "subcat3", 3);
+
+        List<ItemKey> keys = List.of(new ItemKey(name, "cat1", "subcat1"), new ItemKey(name, "cat1", "subcat3"),
+                new ItemKey(name, "cat1", "missing"));
+        DeleteJobEntity job = awaitFinished(deleteJobService.submit(null, keys).getId());
+
+        assertThat(job.getStatus()).isEqualTo(DeleteJobEntity.Status.DONE);
+        assertThat(job.getDeleted()).isEqualTo(2);
+        assertThat(inventoryService.findAllItemsByName(name))
+                .extracting(InventoryEntity::getSubcategory)
+                .containsExactly("subcat2");
+    }
+
+    @Test
+    void submit_ShouldUpdateSummaries() throws InterruptedException {
+        String name = "submit_ShouldUpdateSummaries";
+        inventoryService.updateItemQuantity(name, "cat1", "subcat1", 1);
+        inventoryService.updateItemQuantity(name, "cat1", "subcat2", 2);
+        inventoryService.updateItemQuantity(name, "cat2", "subcat4", 4);
+        long version = inventoryStatsService.findSummaryByName(name).getVersion();
+
+        awaitFinished(deleteJobService.submit(null, List.of(new ItemKey(name, "cat1", "subcat2"))).getId());
+
+        InventorySummaryEntity summary = inventoryStatsService.findSummaryByName(name);
+        assertThat(summary.getItems()).isEqualTo(2);
+        assertThat(summary.getQuantity()).isEqualTo(5);
+        assertThat(summary.getCategories().get("cat1").getQuantity()).isEqualTo(1);
+        assertThat(summary.getVersion()).isGreaterThan(version);
+
+        awaitFinished(deleteJobService.submit(List.of(name), null).getId());
+
+        assertThat(inventoryStatsService.findSummaryByName(name)).isNull();
+    }
+
+    @Test
+    void submit_ShouldRejectEmptyRequest() {
+        assertThatThrownBy(() -> deleteJobService.submit(List.of(), null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> deleteJobService.submit(List.of(" "), null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
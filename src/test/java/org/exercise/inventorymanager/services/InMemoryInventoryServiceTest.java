@@ -0,0 +1,73 @@
+package org.exercise.inventorymanager.services;
+
+import org.exercise.inventorymanager.dto.Durability;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.repositories.InventoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("memory")
+class InMemoryInventoryServiceTest extends AbstractInventoryServiceTest {
+
+    private final InventoryService inventoryService;
+    private final InventoryRepository inventoryRepository;
+
+    @Autowired
+    InMemoryInventoryServiceTest(InventoryService inventoryService, InventoryRepository inventoryRepository) {
+        super(inventoryService);
+        this.inventoryService = inventoryService;
+        this.inventoryRepository = inventoryRepository;
+    }
+
+    @DynamicPropertySource
+    static void memoryProperties(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("inventories").toString();
+
+        registry.add("app.memory.directory", () -> directory);
+        registry.add("app.memory.fsync", () -> "false");
+    }
+
+    // the embedded MongoDB of the other subclass runs without a journal, and refuses journaled writes
+    @Test
+    void updateItemQuantity_Journaled_ShouldWriteRightAway() {
+        InventoryEntity entity = inventoryService.updateItemQuantity(
+                "updateItemQuantity_Journaled_ShouldWriteRightAway",
+                "cat1",
+                "subcat1",
+                8,
+                Durability.JOURNALED);
+
+        assertThat(entity.getId()).isNotNull();
+        assertThat(findStored("updateItemQuantity_Journaled_ShouldWriteRightAway"))
+                .extracting(InventoryEntity::getQuantity)
+                .containsExactly(8);
+    }
+
+    @Override
+    void insert(InventoryEntity entity) {
+        InventoryEntity stored = inventoryRepository.updateQuantity(entity.getName(), entity.getCategory(),
+                entity.getSubcategory(), entity.getQuantity() == null ? 0 : entity.getQuantity());
+
+        // the store has no missing quantity, nor missing version
+        entity.setId(stored.getId());
+        entity.setQuantity(stored.getQuantity());
+        entity.setVersion(stored.getVersion());
+    }
+
+    @Override
+    List<InventoryEntity> findStored(String name) {
+        return inventoryRepository.findByName(name);
+    }
+
+}
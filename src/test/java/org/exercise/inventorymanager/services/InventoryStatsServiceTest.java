@@ -0,0 +1,190 @@
+package org.exercise.inventorymanager.services;
+
+import org.exercise.inventorymanager.dto.QuantityTotal;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.entities.InventorySummaryEntity;
+import org.exercise.inventorymanager.repositories.InventorySummaryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class InventoryStatsServiceTest {
+
+    private final InventoryStatsService inventoryStatsService;
+    private final InventoryService inventoryService;
+    private final InventorySummaryRepository inventorySummaryRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    InventoryStatsServiceTest(InventoryStatsService inventoryStatsService, InventoryService inventoryService,
+                              InventorySummaryRepository inventorySummaryRepository, MongoTemplate mongoTemplate) {
+        this.inventoryStatsService = inventoryStatsService;
+        this.inventoryService = inventoryService;
+        this.inventorySummaryRepository = inventorySummaryRepository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    private void insert(String name, String category, String subcategory, int quantity) {
+        mongoTemplate.insert(InventoryEntity.builder()
+                .name(name)
+                .category(category)
+                .subcategory(subcategory)
+                .quantity(quantity)
+                .build());
+    }
+
+    @Test
+    void totalsByName_ShouldSumPerGroup() {
+        String name = "totalsByName_ShouldSumPerGroup";
+        insert(name, "cat1", "subcat1", 1);
+        insert(name, "cat1", "subcat2", 2);
+        insert(name, "cat2", "subcat3", 4);
+
+        assertThat(inventoryStatsService.totalsByName(name, QuantityTotal.GroupBy.INVENTORY))
+                .extracting(QuantityTotal::getName, QuantityTotal::getCategory, QuantityTotal::getQuantity,
+                        QuantityTotal::getItems)
+                .containsExactly(tuple(name, null, 7L, 3L));
+
+        assertThat(inventoryStatsService.totalsByName(name, QuantityTotal.GroupBy.CATEGORY))
+                .extracting(QuantityTotal::getCategory, QuantityTotal::getQuantity, QuantityTotal::getItems)
+                .containsExactly(tuple("cat1", 3L, 2L), tuple("cat2", 4L, 1L));
+
+        assertThat(inventoryStatsService.totalsByName(name, QuantityTotal.GroupBy.SUBCATEGORY))
+                .extracting(QuantityTotal::getCategory, QuantityTotal::getSubcategory, QuantityTotal::getQuantity)
+                .containsExactly(tuple("cat1", "subcat1", 1L), tuple("cat1", "subcat2", 2L),
+                        tuple("cat2", "subcat3", 4L));
+    }
+
+    @Test
+    void totalsByName_ShouldBeEmpty() {
+        assertThat(inventoryStatsService.totalsByName("totalsByName_ShouldBeEmpty", QuantityTotal.GroupBy.CATEGORY))
+                .isEmpty();
+    }
+
+    @Test
+    void totals_ShouldIncludeEveryInventory() {
+        insert("totals_ShouldIncludeEveryInventory_1", "cat1", "subcat1", 5);
+        insert("totals_ShouldIncludeEveryInventory_2", "cat1", "subcat1", 6);
+
+        assertThat(inventoryStatsService.totals(QuantityTotal.GroupBy.INVENTORY))
+                .extracting(QuantityTotal::getName, QuantityTotal::getQuantity)
+                .contains(tuple("totals_ShouldIncludeEveryInventory_1", 5L),
+                        tuple("totals_ShouldIncludeEveryInventory_2", 6L));
+
+        assertThat(inventoryStatsService.totals(QuantityTotal.GroupBy.CATEGORY))
+                .extracting(QuantityTotal::getName)
+                .containsOnlyNulls();
+    }
+
+    @Test
+    void topItems_ShouldBeSortedByQuantity() {
+        String name = "topItems_ShouldBeSortedByQuantity";
+        insert(name, "cat1", "subcat1", 10);
+        insert(name, "cat1", "subcat2", 30);
+        insert(name, "cat2", "subcat3", 20);
+
+        assertThat(inventoryStatsService.topItems(name, 2))
+                .extracting(InventoryEntity::getSubcategory)
+                .containsExactly("subcat2", "subcat3");
+    }
+
+    @Test
+    void lowStockItems_ShouldBeUnderThreshold() {
+        String name = "lowStockItems_ShouldBeUnderThreshold";
+        insert(name, "cat1", "subcat1", 10);
+        insert(name, "cat1", "subcat2", 0);
+        insert(name, "cat2", "subcat3", 3);
+
+        List<InventoryEntity> items = inventoryStatsService.lowStockItems(name, 5, 10);
+
+        assertThat(items)
+                .extracting(InventoryEntity::getSubcategory, InventoryEntity::getQuantity)
+                .containsExactly(tuple("subcat2", 0), tuple("subcat3", 3));
+    }
+
+    @Test
+    void findSummaryByName_ShouldFollowWrites() {
+        String name = "findSummaryByName_ShouldFollowWrites";
+        assertThat(inventoryStatsService.findSummaryByName(name)).isNull();
+
+        inventoryService.updateItemQuantity(name, "cat1", "subcat1", 5);
+        inventoryService.updateItemQuantity(name, "cat1", "subcat2", 2);
+        inventoryService.updateItemQuantity(name, "cat1", "subcat1", 8);
+        inventoryService.adjustItemQuantity(name, "cat2", "subcat3", 4, false);
+        inventoryService.adjustItemQuantity(name, "cat2", "subcat3", -1, false);
+
+        InventorySummaryEntity summary = inventoryStatsService.findSummaryByName(name);
+        assertThat(summary.getItems()).isEqualTo(3);
+        assertThat(summary.getQuantity()).isEqualTo(13);
+        assertThat(summary.getCategories().get("cat1").getQuantity()).isEqualTo(10);
+        assertThat(summary.getCategories().get("cat2").getQuantity()).isEqualTo(3);
+
+        inventoryService.deleteItemInInventory(name, "cat2", "subcat3");
+
+        InventorySummaryEntity afterDelete = inventoryStatsService.findSummaryByName(name);
+        assertThat(afterDelete.getItems()).isEqualTo(2);
+        assertThat(afterDelete.getQuantity()).isEqualTo(10);
+        assertThat(afterDelete.getCategories()).containsOnlyKeys("cat1");
+        assertThat(afterDelete.getVersion()).isGreaterThan(summary.getVersion());
+
+        inventoryService.deleteInventory(name);
+        assertThat(inventoryStatsService.findSummaryByName(name)).isNull();
+    }
+
+    @Test
+    void findSummaryByName_ShouldFollowBulkWrites() {
+        String name = "findSummaryByName_ShouldFollowBulkWrites";
+
+        inventoryService.bulkUpdateItemQuantity(List.of(
+                QuantityUpdate.builder().name(name).category("cat1").subcategory("subcat1").quantity(1).build(),
+                QuantityUpdate.builder().name(name).category("cat2").subcategory("subcat4").quantity(6).build()));
+
+        InventorySummaryEntity summary = inventoryStatsService.findSummaryByName(name);
+        assertThat(summary.getItems()).isEqualTo(2);
+        assertThat(summary.getQuantity()).isEqualTo(7);
+    }
+
+    @Test
+    void rebuildSummary_ShouldRepairDrift() {
+        String name = "rebuildSummary_ShouldRepairDrift";
+        inventoryService.updateItemQuantity(name, "cat1", "subcat1", 5);
+
+        // written behind the back of the repository, the summary does not know about it
+        insert(name, "cat2", "subcat3", 4);
+        assertThat(inventoryStatsService.findSummaryByName(name).getQuantity()).isEqualTo(5);
+
+        inventoryStatsService.rebuildSummary(name);
+
+        InventorySummaryEntity summary = inventoryStatsService.findSummaryByName(name);
+        assertThat(summary.getItems()).isEqualTo(2);
+        assertThat(summary.getQuantity()).isEqualTo(9);
+        assertThat(summary.getCategories()).containsOnlyKeys("cat1", "cat2");
+    }
+
+    @Test
+    void findSummaryByName_ShouldKeepCategoriesWithFieldPathCharacters() {
+        String name = "findSummaryByName_ShouldKeepCategoriesWithFieldPathCharacters";
+
+        // written before the catalog refused such categories
+        insert(name, "cat.1", "subcat1", 2);
+        insert(name, "$cat%2E", "subcat1", 3);
+        inventoryStatsService.rebuildSummary(name);
+
+        inventorySummaryRepository.apply(name, "cat.1", 1, 4);
+
+        InventorySummaryEntity summary = inventoryStatsService.findSummaryByName(name);
+        assertThat(summary.getItems()).isEqualTo(3);
+        assertThat(summary.getQuantity()).isEqualTo(9);
+        assertThat(summary.getCategories()).containsOnlyKeys("cat.1", "$cat%2E");
+        assertThat(summary.getCategories().get("cat.1").getQuantity()).isEqualTo(6);
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.exercise.inventorymanager.services;
+
+import org.exercise.inventorymanager.dto.ImportResult;
+import org.exercise.inventorymanager.dto.TransferFormat;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@ActiveProfiles("memory")
+class InventoryTransferServiceTest {
+
+    private final InventoryTransferService inventoryTransferService;
+    private final InventoryService inventoryService;
+
+    @Autowired
+    InventoryTransferServiceTest(InventoryTransferService inventoryTransferService,
+                                 InventoryService inventoryService) {
+        this.inventoryTransferService = inventoryTransferService;
+        this.inventoryService = inventoryService;
+    }
+
+    @DynamicPropertySource
+    static void memoryProperties(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("inventories").toString();
+
+        registry.add("app.memory.directory", () -> directory);
+        registry.add("app.memory.fsync", () -> "false");
+    }
+
+    private ImportResult importItems(String name, TransferFormat format, String content) throws IOException {
+        return inventoryTransferService.importItems(name, format,
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void importItems_Csv_ShouldReportRejectedRows() throws IOException {
+        String name = "importItems_Csv_ShouldReportRejectedRows";
+        ImportResult result = importItems(name, TransferFormat.CSV, "category,subcategory,quantity\n"
+                + "cat1,subcat1,1\n"
+                + "Cat1,SubCat2,2\n"
+                + "cat2,subcat3,-3\n"
+                + "\n"
+                + "cat2,subcat4,many\n"
+                + "cat9,subcat9,9\n"
+                + "cat2,subcat3,3\n"
+                + "cat1,subcat1,4\n");
+
+        assertThat(result.getRows()).isEqualTo(7);
+        assertThat(result.getImported()).isEqualTo(4);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(result.isComplete()).isTrue();
+        assertThat(result.getErrors())
+                .extracting(ImportResult.RowError::getLine)
+                .containsExactlyInAnyOrder(4L, 6L, 7L);
+
+        // the last row of an item wins
+        assertThat(inventoryService.findAllItemsByName(name))
+                .extracting(InventoryEntity::getCategory, InventoryEntity::getSubcategory, InventoryEntity::getQuantity)
+                .containsExactly(tuple("cat1", "subcat1", 4), tuple("cat1", "subcat2", 2),
+                        tuple("cat2", "subcat3", 3));
+    }
+
+    @Test
+    void importItems_Csv_ShouldRequireHeader() {
+        assertThatThrownBy(() -> importItems("importItems_Csv_ShouldRequireHeader", TransferFormat.CSV,
+                "cat1,subcat1,1\n"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void importItems_Ndjson_ShouldReportRejectedRows() throws IOException {
+        String name = "importItems_Ndjson_ShouldReportRejectedRows";
+        ImportResult result = importItems(name, TransferFormat.NDJSON,
+                "{\"category\":\"cat1\",\"subcategory\":\"subcat1\",\"quantity\":1}\n"
+                        + "{\"category\":\"cat1\",\"subcategory\":\n"
+                        + "{\"name\":\"other\",\"category\":\"cat1\",\"subcategory\":\"subcat2\",\"quantity\":2}\n"
+                        + "{\"name\":\"" + name + "\",\"category\":\"cat2\",\"subcategory\":\"subcat3\",\"quantity\":3}\n");
+
+        assertThat(result.getRows()).isEqualTo(4);
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors())
+                .extracting(ImportResult.RowError::getLine)
+                .containsExactlyInAnyOrder(2L, 3L);
+        assertThat(inventoryService.findAllItemsByName(name)).hasSize(2);
+    }
+
+    @Test
+    void exportItems_ShouldImportBack() throws IOException {
+        String name = "exportItems_ShouldImportBack";
+        inventoryService.updateItemQuantity(name, "cat1", "subcat1", 1);
+        inventoryService.updateItemQuantity(name, "cat1", "subcat2", 2);
+        inventoryService.updateItemQuantity(name, "cat2", "subcat3", 3);
+
+        for (TransferFormat format : TransferFormat.values()) {
+            ByteArrayOutputStream exported = new ByteArrayOutputStream();
+            inventoryTransferService.exportItems(inventoryService.streamAllItemsByName(name), format, exported);
+
+            String copy = name + "_" + format;
+            ImportResult result = importItems(copy, format, exported.toString(StandardCharsets.UTF_8));
+
+            assertThat(result.getImported()).isEqualTo(3);
+            assertThat(inventoryService.findAllItemsByName(copy))
+                    .extracting(InventoryEntity::getSubcategory, InventoryEntity::getQuantity)
+                    .containsExactly(tuple("subcat1", 1), tuple("subcat2", 2), tuple("subcat3", 3));
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.exercise.inventorymanager.services;
+
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.dto.QuantityUpdate;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.exercise.inventorymanager.repositories.InventoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.write-behind.enabled=true",
+        "app.write-behind.flush-interval-ms=3600000"
+})
+class WriteBehindBufferTest {
+
+    private final AppConfig appConfig;
+    private final InventoryRepository inventoryRepository;
+    private final InventoryService inventoryService;
+    private final WriteBehindBuffer writeBehindBuffer;
+
+    @Autowired
+    WriteBehindBufferTest(AppConfig appConfig, InventoryRepository inventoryRepository,
+                          InventoryService inventoryService, WriteBehindBuffer writeBehindBuffer) {
+        this.appConfig = appConfig;
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryService = inventoryService;
+        this.writeBehindBuffer = writeBehindBuffer;
+    }
+
+    @Test
+    void updateItemQuantity_ShouldBeCoalescedUntilFlush() {
+        for (int quantity = 1; quantity <= 100; quantity++)
+            inventoryService.updateItemQuantity("updateItemQuantity_ShouldBeCoalesced", "cat1", "subcat1", quantity);
+
+        // nothing is written before the flush
+        assertThat(inventoryService.findSpecificItemInInventory(
+                "updateItemQuantity_ShouldBeCoalesced", "cat1", "subcat1")).isNull();
+
+        long writtenBefore = writeBehindBuffer.getWrittenUpdates();
+        writeBehindBuffer.flush();
+
+        InventoryEntity entity = inventoryService.findSpecificItemInInventory(
+                "updateItemQuantity_ShouldBeCoalesced", "cat1", "subcat1");
+
+        assertThat(entity).isNotNull();
+        assertThat(entity.getQuantity()).isEqualTo(100);
+        assertThat(writeBehindBuffer.getWrittenUpdates() - writtenBefore).isEqualTo(1);
+    }
+
+    @Test
+    void deleteItemInInventory_ShouldDiscardPendingUpdate() {
+        inventoryService.updateItemQuantity("deleteItemInInventory_ShouldDiscard", "cat1", "subcat1", 8);
+        inventoryService.deleteItemInInventory("deleteItemInInventory_ShouldDiscard", "cat1", "subcat1");
+
+        writeBehindBuffer.flush();
+
+        assertThat(inventoryService.findSpecificItemInInventory(
+                "deleteItemInInventory_ShouldDiscard", "cat1", "subcat1")).isNull();
+    }
+
+    @Test
+    void stop_ShouldWriteUpdatesOfferedWhileStopping() throws InterruptedException {
+        // a buffer of its own, the one of the context is stopped with it
+        WriteBehindBuffer buffer = new WriteBehindBuffer(appConfig, inventoryRepository);
+        buffer.start();
+
+        buffer.offer(new QuantityUpdate("stop_ShouldWriteUpdatesOffered", "cat1", "subcat1", 1));
+        buffer.stop();
+
+        // neither rejected by the stopped scheduler nor left in the buffer
+        buffer.offer(new QuantityUpdate("stop_ShouldWriteUpdatesOffered", "cat1", "subcat2", 2));
+
+        assertThat(buffer.getPendingCount()).isZero();
+        assertThat(inventoryService.findSpecificItemInInventory(
+                "stop_ShouldWriteUpdatesOffered", "cat1", "subcat1").getQuantity()).isEqualTo(1);
+        assertThat(inventoryService.findSpecificItemInInventory(
+                "stop_ShouldWriteUpdatesOffered", "cat1", "subcat2").getQuantity()).isEqualTo(2);
+    }
+
+}
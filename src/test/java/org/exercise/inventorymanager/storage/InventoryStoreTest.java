@@ -0,0 +1,229 @@
+package org.exercise.inventorymanager.storage;
+
+import org.exercise.inventorymanager.config.AppConfig;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class InventoryStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void start_ShouldRecoverFromTheLog() throws IOException {
+        InventoryStore store = start();
+
+        put(store, "recover", "cat1", "subcat1", 1);
+        put(store, "recover", "cat1", "subcat2", 2);
+        put(store, "recover", "cat1", "subcat1", 3);
+        store.await(store.update("recover", "cat1", "subcat2", previous -> null).getPosition());
+        put(store, "deleted", "cat2", "subcat3", 4);
+        store.await(store.delete("deleted"));
+
+        crash(store);
+
+        InventoryStore recovered = start();
+
+        assertThat(recovered.find("recover").list(null))
+                .extracting(InventoryEntity::getSubcategory, InventoryEntity::getQuantity, InventoryEntity::getVersion)
+                .containsExactly(tuple("subcat1", 3, 2L));
+        assertThat(recovered.find("deleted")).isNull();
+
+        recovered.stop();
+    }
+
+    @Test
+    void start_ShouldReplayTheLogWrittenAfterTheSnapshot() throws IOException {
+        InventoryStore store = start();
+
+        put(store, "snapshot", "cat1", "subcat1", 1);
+        store.snapshot();
+        put(store, "snapshot", "cat1", "subcat1", 2);
+        put(store, "snapshot", "cat2", "subcat3", 3);
+
+        crash(store);
+
+        // only the log of the last snapshot is left
+        assertThat(files("snapshot-")).hasSize(1);
+        assertThat(files("wal-")).hasSize(1);
+
+        InventoryStore recovered = start();
+
+        assertThat(recovered.find("snapshot").list(null))
+                .extracting(InventoryEntity::getCategory, InventoryEntity::getSubcategory, InventoryEntity::getQuantity)
+                .containsExactly(tuple("cat1", "subcat1", 2), tuple("cat2", "subcat3", 3));
+
+        recovered.stop();
+    }
+
+    @Test
+    void start_ShouldCutOffATornRecord() throws IOException {
+        InventoryStore store = start();
+
+        put(store, "torn", "cat1", "subcat1", 1);
+        put(store, "torn", "cat1", "subcat2", 2);
+
+        crash(store);
+
+        // the last record was only partly written
+        Path segment = files("wal-").get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        InventoryStore recovered = start();
+
+        assertThat(recovered.find("torn").list(null))
+                .extracting(InventoryEntity::getSubcategory)
+                .containsExactly("subcat1");
+
+        // and writes go on in a new segment
+        put(recovered, "torn", "cat1", "subcat2", 3);
+        crash(recovered);
+
+        assertThat(start().find("torn").list(null))
+                .extracting(InventoryEntity::getQuantity)
+                .containsExactly(1, 3);
+    }
+
+    @Test
+    void start_ShouldReplaySegmentsRotatedBySize() throws IOException {
+        InventoryStore store = start(DataSize.ofBytes(100));
+
+        for (int i = 0; i < 10; i++)
+            put(store, "rotated", "cat1", "subcat" + i, i);
+
+        crash(store);
+
+        // about one record per segment
+        assertThat(files("wal-")).hasSizeGreaterThan(5);
+
+        assertThat(start().find("rotated").list(null))
+                .extracting(InventoryEntity::getQuantity)
+                .containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    @Test
+    void readSnapshot_ShouldReadRecordsAcrossWindows() throws IOException {
+        InventoryStore store = start();
+
+        for (int i = 0; i < 100; i++)
+            put(store, "windows", "cat" + i % 3, "subcat" + i, i);
+
+        store.stop();
+
+        List<InventoryEntity> items = new ArrayList<>();
+        InventoryStore.readSnapshot(files("snapshot-").get(0), new LogRecords.Handler() {
+            @Override
+            public void put(InventoryEntity item) {
+                items.add(item);
+            }
+
+            @Override
+            public void deleteItem(String name, String category, String subcategory) {
+            }
+
+            @Override
+            public void deleteInventory(String name) {
+            }
+        }, 100);
+
+        assertThat(items)
+                .extracting(InventoryEntity::getQuantity)
+                .containsExactlyInAnyOrderElementsOf(IntStream.range(0, 100).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    void update_ShouldNotApplyAChangeTheLogRefused() throws IOException {
+        InventoryStore store = start();
+
+        put(store, "refused", "cat1", "subcat1", 1);
+        store.stop();
+
+        assertThatThrownBy(() -> put(store, "refused", "cat1", "subcat1", 2))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> put(store, "refused", "cat1", "subcat2", 3))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(store.find("refused").list(null))
+                .extracting(InventoryEntity::getSubcategory, InventoryEntity::getQuantity)
+                .containsExactly(tuple("subcat1", 1));
+    }
+
+    @Test
+    void page_ShouldResumeAfterTheGivenItem() throws IOException {
+        InventoryStore store = start();
+
+        put(store, "page", "cat1", "subcat2", 1);
+        put(store, "page", "cat2", "subcat3", 2);
+        put(store, "page", "cat1", "subcat1", 3);
+        put(store, "page", "cat2", "subcat4", 4);
+
+        assertThat(store.find("page").page("cat1", "subcat2", 10))
+                .extracting(InventoryEntity::getSubcategory)
+                .containsExactly("subcat3", "subcat4");
+
+        store.stop();
+    }
+
+    private InventoryStore start() throws IOException {
+        return start(DataSize.ofMegabytes(256));
+    }
+
+    private InventoryStore start(DataSize segmentSize) throws IOException {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getMemory().setDirectory(directory.toString());
+        appConfig.getMemory().setSnapshotInterval(Duration.ZERO);
+        appConfig.getMemory().setSegmentSize(segmentSize);
+
+        InventoryStore store = new InventoryStore(appConfig);
+        store.start();
+
+        return store;
+    }
+
+    private static void put(InventoryStore store, String name, String category, String subcategory, int quantity) {
+        InventoryStore.Change change = store.update(name, category, subcategory, previous -> InventoryEntity.builder()
+                .id(previous == null ? name + "-" + subcategory : previous.getId())
+                .name(name)
+                .category(category)
+                .subcategory(subcategory)
+                .quantity(quantity)
+                .version(previous == null ? 1 : previous.getVersion() + 1)
+                .build());
+
+        store.await(change.getPosition());
+    }
+
+    private static void crash(InventoryStore store) {
+        // abandoned without stop(), so without the snapshot of a clean shutdown:
+        // only what was acknowledged, so written to the log, is there on the next start
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package org.exercise.inventorymanager.storage;
+
+import org.bson.types.ObjectId;
+import org.exercise.inventorymanager.entities.InventoryEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ItemTableTest {
+
+    @Test
+    void get_ShouldReturnTheStoredItem() {
+        ItemTable table = new ItemTable(new StringTable());
+        String objectId = new ObjectId().toHexString();
+
+        table.put(item(objectId, "cat1", "subcat1", 1, 3L));
+        table.put(item("custom-id", "cat1", "subcat2", null, null));
+        table.put(item(null, "cat2", "subcat3", 5, 1L));
+
+        assertThat(table.get("table", "cat1", "subcat1")).isEqualTo(InventoryEntity.builder()
+                .id(objectId)
+                .name("table")
+                .category("cat1")
+                .subcategory("subcat1")
+                .quantity(1)
+                .version(3L)
+                .build());
+        assertThat(table.get("table", "cat1", "subcat2"))
+                .extracting(InventoryEntity::getId, InventoryEntity::getQuantity, InventoryEntity::getVersion)
+                .containsExactly("custom-id", null, null);
+        assertThat(table.get("table", "cat2", "subcat3").getId()).isNull();
+        assertThat(table.get("table", "cat2", "subcat1")).isNull();
+        assertThat(table.get("table", "never-stored", "subcat1")).isNull();
+    }
+
+    @Test
+    void put_ShouldReplaceTheItemWithTheSameKey() {
+        ItemTable table = new ItemTable(new StringTable());
+
+        table.put(item("id1", "cat1", "subcat1", 1, 1L));
+        table.put(item("id1", "cat1", "subcat1", 2, 2L));
+
+        assertThat(table.size()).isEqualTo(1);
+        assertThat(table.list("table", null))
+                .extracting(InventoryEntity::getQuantity, InventoryEntity::getVersion)
+                .containsExactly(tuple(2, 2L));
+    }
+
+    @Test
+    void list_ShouldSelectTheFields() {
+        ItemTable table = new ItemTable(new StringTable());
+
+        table.put(item("id1", "cat1", "subcat1", 1, 1L));
+        table.put(item("id2", "cat2", "subcat2", 2, 1L));
+
+        assertThat(table.list("table", "cat2", Set.of("subcategory", "quantity")))
+                .containsExactly(InventoryEntity.builder()
+                        .subcategory("subcat2")
+                        .quantity(2)
+                        .build());
+    }
+
+    @Test
+    void remove_ShouldKeepTheOtherItems() {
+        ItemTable table = new ItemTable(new StringTable());
+        List<InventoryEntity> kept = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5000; i++)
+            table.put(item(new ObjectId().toHexString(), "cat" + i % 7, "subcat" + i, i, 1L));
+
+        // removed by key or by id, moving the last rows and shifting the index around
+        for (InventoryEntity item : table.list("table", null)) {
+            if (random.nextBoolean()) {
+                kept.add(item);
+            } else if (random.nextBoolean()) {
+                assertThat(table.remove(item.getCategory(), item.getSubcategory())).isTrue();
+            } else {
+                assertThat(table.removeById(item.getId())).isTrue();
+            }
+        }
+
+        kept.sort(Comparator.comparing(InventoryEntity::getCategory)
+                .thenComparing(InventoryEntity::getSubcategory));
+
+        assertThat(table.size()).isEqualTo(kept.size());
+        assertThat(table.list("table", null)).isEqualTo(kept);
+
+        for (InventoryEntity item : kept)
+            assertThat(table.get("table", item.getCategory(), item.getSubcategory())).isEqualTo(item);
+    }
+
+    @Test
+    void iterator_ShouldResumeAfterEachChunk() {
+        ItemTable table = new ItemTable(new StringTable());
+
+        for (int i = 0; i < 3000; i++)
+            table.put(item("id" + i, "cat1", String.format("subcat%04d", i), i, 1L));
+
+        Iterator<InventoryEntity> iterator = table.iterator("table");
+        List<Integer> quantities = new ArrayList<>();
+
+        while (iterator.hasNext()) {
+            InventoryEntity item = iterator.next();
+            quantities.add(item.getQuantity());
+
+            // removed while iterating, the iteration goes on after the last item returned
+            if (item.getQuantity() == 1000)
+                table.remove("cat1", "subcat1500");
+        }
+
+        assertThat(quantities).hasSize(2999).doesNotContain(1500);
+        assertThat(quantities).isSorted();
+    }
+
+    private static InventoryEntity item(String id, String category, String subcategory, Integer quantity,
+                                        Long version) {
+        return InventoryEntity.builder()
+                .id(id)
+                .name("table")
+                .category(category)
+                .subcategory(subcategory)
+                .quantity(quantity)
+                .version(version)
+                .build();
+    }
+
+}